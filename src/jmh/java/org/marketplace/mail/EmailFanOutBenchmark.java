@@ -0,0 +1,68 @@
+package org.marketplace.mail;
+
+import org.marketplace.builders.EmailBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notifies 50k observers about one price change, building every email from scratch as before versus
+ * rendering the shared text once and filling in only the recipient. Run with "gradle jmh"; the gc profiler
+ * reports gc.alloc.rate.norm per recipient since one operation is one recipient.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailFanOutBenchmark {
+    private static final int OBSERVERS = 50_000;
+
+    private final String title = "Mountain bike";
+    private final double price = 1299.99;
+    private String[] observers;
+    private EmailTemplates emailTemplates;
+
+    @Setup
+    public void setUp() {
+        observers = new String[OBSERVERS];
+        for (int i = 0; i < OBSERVERS; i++) {
+            observers[i] = "observer" + i + "@example.com";
+        }
+        emailTemplates = new EmailTemplates("email/templates", "en", "en");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OBSERVERS)
+    public void buildPerRecipient(Blackhole blackhole) {
+        for (String observer : observers) {
+            blackhole.consume(new EmailBuilder()
+                    .setTo(observer)
+                    .setSubject("Price change for advertisement " + title)
+                    .setContent("Hello " + observer + ",\n\nThe price for the advertisement " + title + " has been changed to " + price)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OBSERVERS)
+    public void prepareOncePerEvent(Blackhole blackhole) {
+        PreparedEmail prepared = emailTemplates.prepare("observer.price", Map.of("title", title, "price", price));
+        for (String observer : observers) {
+            blackhole.consume(prepared.to(observer));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.marketplace.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.marketplace.models.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token handling of one authenticated request in JwtRequestFilter: parsing the token three times as before,
+ * verifying it once, and verifying a token that was verified recently. Run with "gradle jmh".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenVerificationBenchmark {
+    private static final String SECRET_KEY = "secret";
+    // twice the size of the verified token cache, so cycling through them never hits it
+    private static final int DISTINCT_TOKENS = 20_000;
+
+    private String[] tokens;
+    private int next;
+    private TokenService tokenService;
+
+    @Setup
+    public void setUp() {
+        tokens = new String[DISTINCT_TOKENS];
+        Date expiration = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(10));
+        for (int i = 0; i < DISTINCT_TOKENS; i++) {
+            tokens[i] = Jwts.builder().setSubject("user" + i + "@example.com").setIssuedAt(new Date())
+                    .setExpiration(expiration).signWith(SignatureAlgorithm.HS256, SECRET_KEY).compact();
+        }
+        tokenService = new TokenService();
+    }
+
+    @Benchmark
+    public boolean parseThreeTimes() {
+        String token = nextToken();
+        String username = claims(token).getSubject();
+        boolean sameUser = claims(token).getSubject().equals(username);
+        return sameUser && !claims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean verifyOnce() {
+        VerifiedToken verifiedToken = tokenService.verify(nextToken());
+        return verifiedToken.getUsername() != null && !verifiedToken.isExpired();
+    }
+
+    @Benchmark
+    public boolean verifyRecentlyVerified() {
+        VerifiedToken verifiedToken = tokenService.verify(tokens[0]);
+        return verifiedToken.getUsername() != null && !verifiedToken.isExpired();
+    }
+
+    private String nextToken() {
+        String token = tokens[next];
+        next = (next + 1) % DISTINCT_TOKENS;
+        return token;
+    }
+
+    private static Claims claims(String token) {
+        return Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,189 @@
+package org.marketplace.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.marketplace.models.Advertisement;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Read-through cache of advertisements by id. Concurrent misses of the same id wait for a single load,
+ * and ids that do not exist are cached for a short time as well. Cached advertisements are shared between
+ * requests, so they must not be modified; code changing an advertisement loads it from the repository and
+ * drops the cached one, see {@link Invalidations}. Dropping an advertisement discards only the load in progress
+ * of the same id. Cached advertisements embed their category and owner, so changing either drops the
+ * advertisements embedding it as well.
+ */
+@Component
+public class AdvertisementCache implements MeterBinder {
+    private final AdvertisementManagementRepository advertisementManagementRepository;
+    private final BoundedCache<Long, Optional<Advertisement>> advertisements;
+    private final Duration missingTimeToLive;
+    private final ConcurrentHashMap<Long, CompletableFuture<Optional<Advertisement>>> loads = new ConcurrentHashMap<>();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+
+    public AdvertisementCache(AdvertisementManagementRepository advertisementManagementRepository,
+                              @Value("${advertisement.cache.max-entries:10000}") int maximumSize,
+                              @Value("${advertisement.cache.ttl-seconds:60}") long timeToLiveSeconds,
+                              @Value("${advertisement.cache.missing-ttl-seconds:5}") long missingTimeToLiveSeconds) {
+        this.advertisementManagementRepository = advertisementManagementRepository;
+        this.advertisements = new BoundedCache<>(maximumSize, timeToLiveSeconds, TimeUnit.SECONDS);
+        this.missingTimeToLive = Duration.ofSeconds(missingTimeToLiveSeconds);
+    }
+
+    /**
+     * @param id id of the advertisement
+     * @return cached advertisement, loaded by this or a concurrent call on a miss, empty if it does not exist
+     */
+    public Optional<Advertisement> get(Long id) {
+        Optional<Advertisement> advertisement = advertisements.get(id);
+        if (advertisement != null) {
+            return advertisement;
+        }
+
+        CompletableFuture<Optional<Advertisement>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<Advertisement>> runningLoad = loads.putIfAbsent(id, load);
+        if (runningLoad != null) {
+            coalescedCount.increment();
+            return await(runningLoad);
+        }
+
+        try {
+            advertisement = advertisementManagementRepository.findById(id);
+            loadCount.increment();
+            putUnlessInvalidated(id, advertisement, load);
+            load.complete(advertisement);
+            return advertisement;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(id, load);
+        }
+    }
+
+    /**
+     * @param id id of the advertisement
+     * @return cached advertisement, empty if it is cached as missing, null if it is not cached
+     */
+    public Optional<Advertisement> getIfPresent(Long id) {
+        return advertisements.get(id);
+    }
+
+    /**
+     * Has to be called when an advertisement is created, changed or deleted
+     */
+    public void invalidate(Long id) {
+        if (id == null) {
+            return;
+        }
+
+        Invalidations.invalidateNowAndAfterCompletion(() -> invalidateNow(id));
+    }
+
+    /**
+     * Has to be called when a category is changed
+     */
+    public void invalidateCategory(Long categoryId) {
+        if (categoryId == null) {
+            return;
+        }
+
+        Invalidations.invalidateNowAndAfterCompletion(() -> invalidateEmbeddingNow(advertisement ->
+                advertisement.getCategory() != null && categoryId.equals(advertisement.getCategory().getId())));
+    }
+
+    /**
+     * Has to be called when a user is changed
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+
+        Invalidations.invalidateNowAndAfterCompletion(() -> invalidateEmbeddingNow(advertisement ->
+                advertisement.getUser() != null && userId.equals(advertisement.getUser().getId())));
+    }
+
+    /**
+     * @return share of lookups answered from the cache
+     */
+    public double getHitRatio() {
+        long hits = advertisements.getHitCount();
+        long lookups = hits + advertisements.getMissCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * @return number of advertisements read from the repository
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    /**
+     * @return number of misses that waited for a load started by another call
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        advertisements.registerMetrics(registry, "advertisements");
+        Gauge.builder("cache.hit.ratio", this, AdvertisementCache::getHitRatio).tag("cache", "advertisements").register(registry);
+        FunctionCounter.builder("cache.loads", loadCount, LongAdder::sum).tag("cache", "advertisements").tag("result", "loaded").register(registry);
+        FunctionCounter.builder("cache.loads", coalescedCount, LongAdder::sum).tag("cache", "advertisements").tag("result", "coalesced").register(registry);
+    }
+
+    private static Optional<Advertisement> await(CompletableFuture<Optional<Advertisement>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Invalidating the id removes its load, so the load is still registered only if the id was not invalidated
+     */
+    private synchronized void putUnlessInvalidated(Long id, Optional<Advertisement> advertisement, CompletableFuture<Optional<Advertisement>> load) {
+        if (loads.get(id) != load) {
+            return;
+        }
+        if (advertisement.isPresent()) {
+            advertisements.put(id, advertisement);
+        } else {
+            advertisements.put(id, advertisement, missingTimeToLive);
+        }
+    }
+
+    private synchronized void invalidateEmbeddingNow(Predicate<Advertisement> embedding) {
+        advertisements.invalidateIf((id, advertisement) -> advertisement.filter(embedding).isPresent());
+        // any load in progress may embed the old state
+        loads.clear();
+    }
+
+    private synchronized void invalidateNow(Long id) {
+        advertisements.invalidate(id);
+        // calls after the change must not wait for a load that may have read the old state, nor may it be cached
+        loads.remove(id);
+    }
+}
@@ -0,0 +1,277 @@
+package org.marketplace.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * Size- and time-bounded cache. Entries expire after a fixed or per-entry time to live and, once the cache
+ * is full, the least recently used entry is evicted. Hits, misses and evictions are counted.
+ * Entries are also kept in order of expiry, so removing the expired ones only touches those entries: entries with
+ * the fixed time to live expire in the order they are put and are appended to a linked list, entries with their
+ * own time to live are kept in a tree sorted by expiry.
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class BoundedCache<K, V> {
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier ticker;
+    private final LinkedHashMap<K, CacheEntry<K, V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // entries with the fixed time to live, in order of expiry
+    private CacheEntry<K, V> firstToExpire;
+    private CacheEntry<K, V> lastToExpire;
+    // entries with their own time to live, in order of expiry and then of insertion
+    private final TreeSet<CacheEntry<K, V>> ownTimeToLiveEntries = new TreeSet<>(BoundedCache::compareExpiry);
+    private long sequence;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public BoundedCache(int maximumSize, long timeToLive, TimeUnit unit) {
+        this(maximumSize, timeToLive, unit, System::nanoTime);
+    }
+
+    /**
+     * @param maximumSize maximum number of entries
+     * @param timeToLive time after which an entry expires
+     * @param unit unit of timeToLive
+     * @param ticker source of the current time in nanoseconds
+     */
+    public BoundedCache(int maximumSize, long timeToLive, TimeUnit unit, LongSupplier ticker) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.ticker = ticker;
+    }
+
+    /**
+     * @param key key to look up
+     * @return cached value or null if it is missing or expired
+     */
+    public synchronized V get(K key) {
+        CacheEntry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+        if (entry.isExpired(ticker.getAsLong())) {
+            remove(entry);
+            evictionCount.increment();
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        return entry.value;
+    }
+
+    /**
+     * @param key key to look up
+     * @return true if the key is cached, possibly expired; neither counted as a get nor changing the eviction order
+     */
+    public synchronized boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        put(key, value, timeToLiveNanos, false);
+    }
+
+    /**
+     * Caches the value with its own time to live instead of the fixed one
+     * @param key key of the value
+     * @param value value to cache
+     * @param timeToLive time after which the entry expires
+     */
+    public synchronized void put(K key, V value, Duration timeToLive) {
+        put(key, value, timeToLive.toNanos(), true);
+    }
+
+    public synchronized void invalidate(K key) {
+        CacheEntry<K, V> entry = entries.get(key);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    /**
+     * Removes every entry matching the predicate
+     * @param predicate predicate on key and value
+     * @return number of removed entries
+     */
+    public synchronized int invalidateIf(BiPredicate<K, V> predicate) {
+        int removed = 0;
+        Iterator<Map.Entry<K, CacheEntry<K, V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, CacheEntry<K, V>> entry = iterator.next();
+            if (predicate.test(entry.getKey(), entry.getValue().value)) {
+                iterator.remove();
+                unlink(entry.getValue());
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        firstToExpire = null;
+        lastToExpire = null;
+        ownTimeToLiveEntries.clear();
+    }
+
+    /**
+     * Removes all expired entries, in time proportional to their number
+     * @return number of removed entries
+     */
+    public synchronized int cleanUp() {
+        long now = ticker.getAsLong();
+        int removed = 0;
+        while (firstToExpire != null && firstToExpire.isExpired(now)) {
+            remove(firstToExpire);
+            evictionCount.increment();
+            removed++;
+        }
+        while (!ownTimeToLiveEntries.isEmpty() && ownTimeToLiveEntries.first().isExpired(now)) {
+            remove(ownTimeToLiveEntries.first());
+            evictionCount.increment();
+            removed++;
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Registers size, gets (hit/miss) and eviction meters, named like the Micrometer cache metrics
+     * @param registry registry to register the meters in
+     * @param name name of the cache, used as the "cache" tag
+     */
+    public void registerMetrics(MeterRegistry registry, String name) {
+        Gauge.builder("cache.size", this, BoundedCache::size).tag("cache", name).register(registry);
+        FunctionCounter.builder("cache.gets", this, BoundedCache::getHitCount).tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", this, BoundedCache::getMissCount).tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", this, BoundedCache::getEvictionCount).tag("cache", name).register(registry);
+    }
+
+    private void put(K key, V value, long timeToLiveNanos, boolean ownTimeToLive) {
+        CacheEntry<K, V> entry = new CacheEntry<>(key, value, ticker.getAsLong() + timeToLiveNanos, ownTimeToLive, sequence++);
+        CacheEntry<K, V> replaced = entries.put(key, entry);
+        if (replaced != null) {
+            unlink(replaced);
+        }
+        link(entry);
+        evictExcess();
+    }
+
+    private void evictExcess() {
+        Iterator<CacheEntry<K, V>> iterator = entries.values().iterator();
+        while (entries.size() > maximumSize && iterator.hasNext()) {
+            CacheEntry<K, V> leastRecentlyUsed = iterator.next();
+            iterator.remove();
+            unlink(leastRecentlyUsed);
+            evictionCount.increment();
+        }
+    }
+
+    private void remove(CacheEntry<K, V> entry) {
+        entries.remove(entry.key);
+        unlink(entry);
+    }
+
+    /**
+     * Inserts the entry into the expiry order, in constant time for the fixed time to live
+     * and in logarithmic time for an own time to live
+     */
+    private void link(CacheEntry<K, V> entry) {
+        if (entry.ownTimeToLive) {
+            ownTimeToLiveEntries.add(entry);
+            return;
+        }
+
+        entry.previous = lastToExpire;
+        if (lastToExpire == null) {
+            firstToExpire = entry;
+        } else {
+            lastToExpire.next = entry;
+        }
+        lastToExpire = entry;
+    }
+
+    private void unlink(CacheEntry<K, V> entry) {
+        if (entry.ownTimeToLive) {
+            ownTimeToLiveEntries.remove(entry);
+            return;
+        }
+
+        if (entry.previous == null) {
+            firstToExpire = entry.next;
+        } else {
+            entry.previous.next = entry.next;
+        }
+        if (entry.next == null) {
+            lastToExpire = entry.previous;
+        } else {
+            entry.next.previous = entry.previous;
+        }
+        entry.previous = null;
+        entry.next = null;
+    }
+
+    private static int compareExpiry(CacheEntry<?, ?> first, CacheEntry<?, ?> second) {
+        long difference = first.expiresAt - second.expiresAt;
+        if (difference != 0) {
+            return difference < 0 ? -1 : 1;
+        }
+        return Long.compare(first.sequence, second.sequence);
+    }
+
+    private static class CacheEntry<K, V> {
+        private final K key;
+        private final V value;
+        private final long expiresAt;
+        private final boolean ownTimeToLive;
+        private final long sequence;
+        private CacheEntry<K, V> previous;
+        private CacheEntry<K, V> next;
+
+        private CacheEntry(K key, V value, long expiresAt, boolean ownTimeToLive, long sequence) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.ownTimeToLive = ownTimeToLive;
+            this.sequence = sequence;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.marketplace.cache;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalidation of cached entries by code changing them in a transaction
+ */
+final class Invalidations {
+    private Invalidations() {
+    }
+
+    /**
+     * Runs the invalidation right away and once more when the current transaction completes, if there is one.
+     * A load running concurrently with the change may still read the old state until the transaction commits,
+     * the second invalidation drops what such a load cached meanwhile.
+     * @param invalidateNow drops the entries and makes the loads in progress of the same entries stale
+     */
+    static void invalidateNowAndAfterCompletion(Runnable invalidateNow) {
+        invalidateNow.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.marketplace.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stamps of the loads in progress, per key. A load takes a stamp before reading a value and caches the value
+ * only while its stamp is current; invalidating a key makes the stamps of its running loads stale, without
+ * affecting loads of other keys. Only keys with a load in progress are tracked.
+ * <p>
+ * The check of the stamp and the write of the cache have to be atomic with respect to the invalidation,
+ * so callers do both under the same lock.
+ */
+class LoadStamps<K> {
+    private final ConcurrentHashMap<K, Long> stamps = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @return stamp of a load of the key starting now; a later load of the same key makes it stale as well
+     */
+    long begin(K key) {
+        long stamp = sequence.incrementAndGet();
+        stamps.put(key, stamp);
+        return stamp;
+    }
+
+    /**
+     * @return whether the key was not invalidated since the load took the stamp
+     */
+    boolean isCurrent(K key, long stamp) {
+        Long current = stamps.get(key);
+        return current != null && current == stamp;
+    }
+
+    /**
+     * Has to be called when the load is done, whether it succeeded or not
+     */
+    void end(K key, long stamp) {
+        stamps.remove(key, stamp);
+    }
+
+    void invalidate(K key) {
+        stamps.remove(key);
+    }
+}
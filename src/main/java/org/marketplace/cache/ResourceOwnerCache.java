@@ -0,0 +1,115 @@
+package org.marketplace.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.marketplace.repositories.AdvertisementImageManagementRepository;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owner ids of advertisements and advertisement ids of images, read with single-column queries and cached
+ * for authorization checks. Entries are dropped when an advertisement or image is changed or deleted,
+ * see {@link Invalidations}; dropping an entry discards only the lookups in progress of the same id.
+ */
+@Component
+public class ResourceOwnerCache implements MeterBinder {
+    private final AdvertisementManagementRepository advertisementManagementRepository;
+    private final AdvertisementImageManagementRepository advertisementImageManagementRepository;
+    private final BoundedCache<Long, Long> advertisementOwners;
+    private final BoundedCache<Long, Long> imageAdvertisements;
+    private final LoadStamps<Long> advertisementOwnerLoads = new LoadStamps<>();
+    private final LoadStamps<Long> imageAdvertisementLoads = new LoadStamps<>();
+
+    public ResourceOwnerCache(AdvertisementManagementRepository advertisementManagementRepository,
+                              AdvertisementImageManagementRepository advertisementImageManagementRepository,
+                              @Value("${authorization.owner-cache.max-entries:50000}") int maximumSize,
+                              @Value("${authorization.owner-cache.ttl-seconds:600}") long timeToLiveSeconds) {
+        this.advertisementManagementRepository = advertisementManagementRepository;
+        this.advertisementImageManagementRepository = advertisementImageManagementRepository;
+        this.advertisementOwners = new BoundedCache<>(maximumSize, timeToLiveSeconds, TimeUnit.SECONDS);
+        this.imageAdvertisements = new BoundedCache<>(maximumSize, timeToLiveSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param advertisementId id of the advertisement
+     * @return id of the user owning the advertisement, null if it does not exist
+     */
+    public Long getAdvertisementOwnerId(Long advertisementId) {
+        Long ownerId = advertisementOwners.get(advertisementId);
+        if (ownerId != null) {
+            return ownerId;
+        }
+
+        long stamp = advertisementOwnerLoads.begin(advertisementId);
+        try {
+            ownerId = advertisementManagementRepository.findOwnerIdById(advertisementId).orElse(null);
+            putUnlessInvalidated(advertisementOwners, advertisementOwnerLoads, advertisementId, ownerId, stamp);
+        } finally {
+            advertisementOwnerLoads.end(advertisementId, stamp);
+        }
+        return ownerId;
+    }
+
+    /**
+     * @param imageId id of the advertisement image
+     * @return id of the advertisement the image belongs to, null if it does not exist
+     */
+    public Long getImageAdvertisementId(Long imageId) {
+        Long advertisementId = imageAdvertisements.get(imageId);
+        if (advertisementId != null) {
+            return advertisementId;
+        }
+
+        long stamp = imageAdvertisementLoads.begin(imageId);
+        try {
+            advertisementId = advertisementImageManagementRepository.findAdvertisementIdById(imageId).orElse(null);
+            putUnlessInvalidated(imageAdvertisements, imageAdvertisementLoads, imageId, advertisementId, stamp);
+        } finally {
+            imageAdvertisementLoads.end(imageId, stamp);
+        }
+        return advertisementId;
+    }
+
+    /**
+     * Has to be called when an advertisement is deleted or its owner may have changed
+     */
+    public void invalidateAdvertisement(Long advertisementId) {
+        invalidate(advertisementOwners, advertisementOwnerLoads, advertisementId);
+    }
+
+    /**
+     * Has to be called when an image is deleted or moved to another advertisement
+     */
+    public void invalidateImage(Long imageId) {
+        invalidate(imageAdvertisements, imageAdvertisementLoads, imageId);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        advertisementOwners.registerMetrics(registry, "advertisementOwners");
+        imageAdvertisements.registerMetrics(registry, "imageAdvertisements");
+    }
+
+    private synchronized void putUnlessInvalidated(BoundedCache<Long, Long> cache, LoadStamps<Long> loads, Long key, Long value, long stamp) {
+        if (value != null && loads.isCurrent(key, stamp)) {
+            cache.put(key, value);
+        }
+    }
+
+    private void invalidate(BoundedCache<Long, Long> cache, LoadStamps<Long> loads, Long key) {
+        if (key == null) {
+            return;
+        }
+
+        Invalidations.invalidateNowAndAfterCompletion(() -> invalidateNow(cache, loads, key));
+    }
+
+    private synchronized void invalidateNow(BoundedCache<Long, Long> cache, LoadStamps<Long> loads, Long key) {
+        loads.invalidate(key);
+        cache.invalidate(key);
+    }
+}
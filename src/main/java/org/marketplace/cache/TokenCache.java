@@ -1,29 +1,79 @@
 package org.marketplace.cache;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Tokens of logged in users, so a repeated login gets the token already issued. Every token is kept until
+ * its JWT expires, and once the cache is full the token of the least recently active user is dropped.
+ * Requests are authenticated by the claims of the token and the token version of the user, not by this
+ * cache, so dropping a token does not log the user out: the token stays valid and the next login of the
+ * user is issued a new one. Expired tokens are removed in the background.
+ */
 @Component
-public class TokenCache {
-    private final Map<String, String> tokenCache = new ConcurrentHashMap<>();
+public class TokenCache implements MeterBinder {
+    private final BoundedCache<String, String> tokenCache;
     Logger logger = LoggerFactory.getLogger(TokenCache.class);
 
-    public void saveToken(String username, String token){
-        tokenCache.put(username, token);
-        logger.info("Token added to cache for user: " + username);
+    public TokenCache(@Value("${token.cache.max-entries:100000}") int maximumSize) {
+        // every token is put with the time left until its own expiry
+        this.tokenCache = new BoundedCache<>(maximumSize, 0, TimeUnit.NANOSECONDS);
     }
 
+    /**
+     * @param username user the token was issued to
+     * @param token the token
+     * @param expiresAt expiry of the token, it is not returned anymore afterwards
+     */
+    public void saveToken(String username, String token, Instant expiresAt){
+        Duration timeToLive = Duration.between(Instant.now(), expiresAt);
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            tokenCache.invalidate(username);
+            return;
+        }
+        tokenCache.put(username, token, timeToLive);
+        logger.debug("Token added to cache for user: {}", username);
+    }
+
+    /**
+     * @return token of the user, null if the user is not logged in or the token expired
+     */
     public String getToken(String username){
-        logger.info("Getting token for user: " + username);
         return tokenCache.get(username);
     }
 
     public void removeToken(String username){
-        tokenCache.remove(username);
-        logger.info("Token removed from cache for user: " + username);
+        tokenCache.invalidate(username);
+        logger.debug("Token removed from cache for user: {}", username);
+    }
+
+    /**
+     * Removes expired tokens, touching only the expired ones
+     */
+    @Scheduled(fixedDelayString = "${token.cache.cleanup-interval-ms:60000}")
+    public void removeExpiredTokens(){
+        int removed = tokenCache.cleanUp();
+        if (removed > 0) {
+            logger.debug("Removed {} expired tokens from cache", removed);
+        }
+    }
+
+    public BoundedCache<String, String> getCache() {
+        return tokenCache;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        tokenCache.registerMetrics(registry, "tokens");
     }
 }
@@ -0,0 +1,81 @@
+package org.marketplace.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.marketplace.repositories.UserManagementRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Current token version of every recently active user, so checking that a token has not been revoked
+ * does not query the database on every request. Revocations on this instance update the cache directly,
+ * the time to live bounds how long a revocation made elsewhere can go unnoticed. A version read from the
+ * database is not cached if the version of the user was updated while it was being read.
+ */
+@Component
+public class TokenVersionCache implements MeterBinder {
+    // cached for users that do not exist, so their tokens are rejected without a query
+    private static final int MISSING_USER = -1;
+
+    private final UserManagementRepository userManagementRepository;
+    private final BoundedCache<Long, Integer> versions;
+    private final LoadStamps<Long> loads = new LoadStamps<>();
+
+    public TokenVersionCache(UserManagementRepository userManagementRepository,
+                             @Value("${token.version-cache.max-entries:100000}") int maximumSize,
+                             @Value("${token.version-cache.ttl-seconds:300}") long timeToLiveSeconds) {
+        this.userManagementRepository = userManagementRepository;
+        this.versions = new BoundedCache<>(maximumSize, timeToLiveSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param userId id of the user
+     * @return current token version of the user, null if the user does not exist
+     */
+    public Integer getVersion(Long userId) {
+        Integer version = versions.get(userId);
+        if (version == null) {
+            long stamp = loads.begin(userId);
+            try {
+                Integer current = userManagementRepository.findTokenVersionById(userId);
+                version = current == null ? MISSING_USER : current;
+                putUnlessUpdated(userId, version, stamp);
+            } finally {
+                loads.end(userId, stamp);
+            }
+        }
+        return version == MISSING_USER ? null : version;
+    }
+
+    /**
+     * @param userId id of the user
+     * @param version new token version of the user
+     */
+    public synchronized void update(Long userId, int version) {
+        loads.invalidate(userId);
+        versions.put(userId, version);
+    }
+
+    /**
+     * Marks the user as deleted, its tokens are rejected from now on
+     * @param userId id of the deleted user
+     */
+    public synchronized void remove(Long userId) {
+        loads.invalidate(userId);
+        versions.put(userId, MISSING_USER);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        versions.registerMetrics(registry, "tokenVersions");
+    }
+
+    private synchronized void putUnlessUpdated(Long userId, int version, long stamp) {
+        if (loads.isCurrent(userId, stamp)) {
+            versions.put(userId, version);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.marketplace.configuration;
+
+import org.marketplace.enums.UserRole;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Principal of a request authenticated with a token, built from the claims of the token alone
+ */
+public class AuthenticatedUser implements AuthenticatedPrincipal {
+    private final Long id;
+    private final String email;
+    private final UserRole role;
+
+    public AuthenticatedUser(Long id, String email, UserRole role) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    public boolean isAdmin() {
+        return role == UserRole.ADMIN;
+    }
+
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.getValue()));
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -3,21 +3,25 @@ package org.marketplace.configuration;
 import org.marketplace.enums.AdvertisementStatus;
 import org.marketplace.enums.UserRole;
 import org.marketplace.models.Advertisement;
+import org.marketplace.models.AdvertisementObserver;
 import org.marketplace.models.Category;
 import org.marketplace.models.User;
 import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.repositories.AdvertisementObserverRepository;
 import org.marketplace.repositories.CategoryManagementRepository;
 import org.marketplace.repositories.UserManagementRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.env.Environment;
 import org.springframework.lang.NonNull;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
-import java.util.Collections;
 
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class DataLoader implements ApplicationListener<ApplicationReadyEvent> {
 
     @Autowired
@@ -26,6 +30,9 @@ public class DataLoader implements ApplicationListener<ApplicationReadyEvent> {
     @Autowired
     private AdvertisementManagementRepository advertisementRepository;
 
+    @Autowired
+    private AdvertisementObserverRepository advertisementObserverRepository;
+
     @Autowired
     private CategoryManagementRepository categoryRepository;
 
@@ -77,8 +84,8 @@ public class DataLoader implements ApplicationListener<ApplicationReadyEvent> {
         advertisement.setLocation("Default Location");
         advertisement.setStatus(AdvertisementStatus.ACTIVE);
         advertisement.setBuyerId(null);
-        advertisement.setObservers(Collections.singletonList(userRepository.findByLogin(env.getProperty("user.default.login")).getEmail()));
         advertisementRepository.save(advertisement);
+        advertisementObserverRepository.save(new AdvertisementObserver(advertisement.getId(), advertisement.getUser().getEmail()));
     }
 
     private Category createDefaultCategory() {
@@ -4,13 +4,11 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.marketplace.services.BasicUserDetailsService;
+import org.marketplace.models.VerifiedToken;
 import org.marketplace.services.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -20,9 +18,6 @@ import java.io.IOException;
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
-    @Autowired
-    private BasicUserDetailsService userDetailsService;
-
     @Autowired
     private TokenService tokenService;
 
@@ -31,26 +26,22 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        VerifiedToken verifiedToken = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                username = tokenService.extractUsername(jwt);
-            } catch (Exception e) {
-                throw new BadCredentialsException("Submitted token is not valid.");
-            }
+            String jwt = authorizationHeader.substring(7);
+            // parsed and verified once, the claims are reused below
+            verifiedToken = tokenService.verify(jwt);
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (verifiedToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            if (tokenService.validateToken(jwt, userDetails)) {
+            // the user is taken from the signed claims, not loaded from the database
+            if (tokenService.isAuthenticationValid(verifiedToken)) {
+                AuthenticatedUser user = new AuthenticatedUser(verifiedToken.getUserId(), verifiedToken.getUsername(), verifiedToken.getRole());
 
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                        user, null, user.getAuthorities());
                 usernamePasswordAuthenticationToken
                         .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
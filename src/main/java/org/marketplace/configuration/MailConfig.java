@@ -0,0 +1,41 @@
+package org.marketplace.configuration;
+
+import org.marketplace.mail.PooledJavaMailSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Replaces the mail sender of Spring Boot with a pooled one configured from the same spring.mail properties
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailConfig {
+
+    @Bean
+    public PooledJavaMailSender javaMailSender(MailProperties mailProperties,
+                                               @Value("${mail.pool.max-connections:4}") int maxConnections,
+                                               @Value("${mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                                               @Value("${mail.pool.idle-timeout-ms:30000}") long idleTimeoutMillis) {
+        PooledJavaMailSender mailSender = new PooledJavaMailSender(maxConnections, maxMessagesPerConnection, Duration.ofMillis(idleTimeoutMillis));
+        mailSender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            mailSender.setPort(mailProperties.getPort());
+        }
+        mailSender.setUsername(mailProperties.getUsername());
+        mailSender.setPassword(mailProperties.getPassword());
+        mailSender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            mailSender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.putAll(mailProperties.getProperties());
+        mailSender.setJavaMailProperties(javaMailProperties);
+        return mailSender;
+    }
+}
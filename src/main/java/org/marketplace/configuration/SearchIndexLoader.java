@@ -0,0 +1,33 @@
+package org.marketplace.configuration;
+
+import org.marketplace.services.AdvertisementSearchService;
+import org.marketplace.services.SavedSearchManagementService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the in-memory search indexes and the saved search index once the application is ready,
+ * after {@link DataLoader} has inserted the default data.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class SearchIndexLoader implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final AdvertisementSearchService advertisementSearchService;
+    private final SavedSearchManagementService savedSearchManagementService;
+
+    public SearchIndexLoader(AdvertisementSearchService advertisementSearchService, SavedSearchManagementService savedSearchManagementService) {
+        this.advertisementSearchService = advertisementSearchService;
+        this.savedSearchManagementService = savedSearchManagementService;
+    }
+
+    @Override
+    public void onApplicationEvent(@NonNull ApplicationReadyEvent event) {
+        advertisementSearchService.rebuildIndexes();
+        savedSearchManagementService.rebuildPercolator();
+    }
+}
@@ -83,7 +83,8 @@ public class UserPassRequestFilter extends AbstractAuthenticationProcessingFilte
 
     @Override
     protected void successfulAuthentication(HttpServletRequest request, HttpServletResponse response, FilterChain chain, Authentication authResult) throws IOException, ServletException {
-        String jwt = tokenService.generateToken(authResult.getName());
+        User user = ((CustomUserDetails) authResult.getPrincipal()).getUser();
+        String jwt = tokenService.generateToken(user);
         response.addHeader("Authorization", "Bearer " + jwt);
         response.setContentType("application/json");
         response.getWriter().write("{\"Bearer\": \"" + jwt + "\"}");
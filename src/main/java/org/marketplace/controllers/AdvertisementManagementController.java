@@ -2,21 +2,33 @@ package org.marketplace.controllers;
 
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.ValidationException;
 import org.marketplace.enums.ResourceType;
 import org.marketplace.models.Advertisement;
+import org.marketplace.requests.AdvertisementChanges;
+import org.marketplace.requests.AdvertisementListing;
+import org.marketplace.requests.AdvertisementPage;
+import org.marketplace.requests.AdvertisementSuggestion;
+import org.marketplace.requests.ResourceVersion;
 import org.marketplace.requests.Response;
 import org.marketplace.requests.UserNotFoundException;
+import org.marketplace.services.AdvertisementExportService;
 import org.marketplace.services.AdvertisementManagementService;
+import org.marketplace.services.AdvertisementSyncService;
 import org.marketplace.services.ResourceAccessAuthorizationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -24,14 +36,21 @@ import java.util.Map;
 @RequestMapping("/api/advertisement")
 public class AdvertisementManagementController {
     private static final Logger logger = LoggerFactory.getLogger(AdvertisementManagementController.class);
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
     private final AdvertisementManagementService advertisementManagementService;
 
     private final ResourceAccessAuthorizationService resourceAccessAuthorizationService;
 
+    private final AdvertisementExportService advertisementExportService;
 
-    public AdvertisementManagementController(AdvertisementManagementService advertisementManagementService, ResourceAccessAuthorizationService resourceAccessAuthorizationService) {
+    private final AdvertisementSyncService advertisementSyncService;
+
+
+    public AdvertisementManagementController(AdvertisementManagementService advertisementManagementService, ResourceAccessAuthorizationService resourceAccessAuthorizationService, AdvertisementExportService advertisementExportService, AdvertisementSyncService advertisementSyncService) {
         this.advertisementManagementService = advertisementManagementService;
         this.resourceAccessAuthorizationService = resourceAccessAuthorizationService;
+        this.advertisementExportService = advertisementExportService;
+        this.advertisementSyncService = advertisementSyncService;
     }
 
     /**
@@ -96,13 +115,19 @@ public class AdvertisementManagementController {
     }
 
     /**
-     * Get an advertisement by id
+     * Get an advertisement by id. Supports conditional requests: the advertisement is neither loaded nor
+     * serialized when the If-None-Match or If-Modified-Since header matches its current version.
      *
      * @param id id of the advertisement to be retrieved
-     * @return advertisement with HTTP status code
+     * @return advertisement with HTTP status code, 304 without a body if it has not changed
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Response> requestGetAdvertisement(@PathVariable Long id) {
+    public ResponseEntity<Response> requestGetAdvertisement(@PathVariable Long id, WebRequest request) {
+        ResourceVersion version = advertisementManagementService.getAdvertisementVersion(id);
+        if (request.checkNotModified(version.getETag(), version.getLastModifiedMillis())) {
+            return null;
+        }
+
         Advertisement ad = advertisementManagementService.getAdvertisementById(id);
         logger.info("Request for advertisement with id: " + id + "\n" + ad.toString());
         Response response = new Response<>(ad, String.format("Advertisement retrieved successfully for ID: %d", id), HttpStatus.OK);
@@ -116,12 +141,44 @@ public class AdvertisementManagementController {
      */
     @GetMapping("/all")
     public ResponseEntity<Response> requestGetAllAdvertisements() {
-        List<Advertisement> ads = advertisementManagementService.getAllAdvertisements();
+        List<AdvertisementListing> ads = advertisementManagementService.getAllAdvertisements();
         logger.info("Retrieved all advertisements.");
         Response response = new Response<>(ads, "Advertisements retrieved successfully", HttpStatus.OK);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    /**
+     * Export all advertisements as newline delimited JSON (one advertisement per line), streamed straight
+     * to the response without loading the whole table into memory
+     *
+     * @param response HTTP response the advertisements are written to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping(value = "/export", produces = NDJSON_CONTENT_TYPE)
+    public void requestExportAdvertisements(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON_CONTENT_TYPE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"advertisements.ndjson\"");
+        long count = advertisementExportService.exportAdvertisements(response.getOutputStream());
+        logger.info("Exported advertisements: " + count);
+    }
+
+    /**
+     * Get a page of advertisements changed since the last synchronization, together with ids of deleted ones.
+     * The client repeats the request with the returned cursor while hasMore is true. Changed advertisements
+     * reference their category and seller by id, names are read from the category and user endpoints.
+     *
+     * @param since cursor returned by the previous request, omitted to start with all current advertisements
+     * @return changed advertisements, deleted ids, the next cursor and whether more changes follow, with HTTP status code
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<Response> requestGetAdvertisementChanges(@RequestParam(required = false) String since) {
+        AdvertisementChanges changes = advertisementSyncService.getChangesSince(since);
+        logger.info("Request for advertisement changes since: " + since + ", changed: " + changes.getChanged().size() + ", deleted: " + changes.getDeleted().size());
+        Response response = new Response<>(changes, "Advertisement changes retrieved successfully", HttpStatus.OK);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     /**
      * Get advertisements by category
      *
@@ -130,7 +187,7 @@ public class AdvertisementManagementController {
      */
     @GetMapping("/category/{id}")
     public ResponseEntity<Response> requestGetAdvertisementsByCategory(@PathVariable Long id) {
-        List<Advertisement> ads = advertisementManagementService.getAdvertisementsByCategory(id);
+        List<AdvertisementListing> ads = advertisementManagementService.getAdvertisementsByCategory(id);
         logger.info("Request for advertisements for category ID: " + id);
         Response response = new Response<>(ads, String.format("Advertisements retrieved successfully for ID: %d", id), HttpStatus.OK);
         return new ResponseEntity<>(response, HttpStatus.OK);
@@ -144,7 +201,7 @@ public class AdvertisementManagementController {
      */
     @GetMapping("/user/{id}")
     public ResponseEntity<Response> requestGetAdvertisementsByUser(@PathVariable Long id) {
-        List<Advertisement> ads = advertisementManagementService.getAdvertisementsByUser(id);
+        List<AdvertisementListing> ads = advertisementManagementService.getAdvertisementsByUser(id);
         logger.info("Request for advertisements for user ID: " + id);
         Response response = new Response<>(ads, String.format("Advertisements retrieved successfully for ID: %d", id), HttpStatus.OK);
         return new ResponseEntity<>(response, HttpStatus.OK);
@@ -154,11 +211,11 @@ public class AdvertisementManagementController {
      * Buy an advertisement
      *
      * @param id id of the advertisement to be bought
-     * @return advertisement with HTTP status code
+     * @return advertisement with HTTP status code, 409 if the advertisement is not active anymore
      */
     @PutMapping("/buy/{id}")
     public ResponseEntity<Response> buyAdvertisementWithId(@PathVariable Long id) {
-        Long currentUserId = resourceAccessAuthorizationService.extractCurrentUserFromAuth().getId();
+        Long currentUserId = resourceAccessAuthorizationService.extractCurrentUserId();
         Advertisement ad = advertisementManagementService.buyAdvertisement(id, currentUserId);
         logger.info("Request to buy advertisement with ID: " + id + " by user with ID: " + currentUserId);
         Response response = new Response<>(ad, String.format("Advertisement with id: %d was bought by user with id: %d", id, currentUserId), HttpStatus.OK);
@@ -169,14 +226,14 @@ public class AdvertisementManagementController {
      * Observe an advertisement for tracking changes
      *
      * @param id id of the advertisement to be observed
-     * @return advertisement with HTTP status code
+     * @return id of the advertisement with HTTP status code
      */
     @PutMapping("/observe/{id}")
     public ResponseEntity<Response> observeAdvertisementWithId(@PathVariable Long id) {
-        String email = resourceAccessAuthorizationService.extractCurrentUserFromAuth().getEmail();
-        Advertisement ad = advertisementManagementService.observeAdvertisement(id, email);
+        String email = resourceAccessAuthorizationService.extractCurrentUserEmail();
+        advertisementManagementService.observeAdvertisement(id, email);
         logger.info("Request to observe advertisement with ID: " + id + " by user with email: " + email);
-        Response response = new Response<>(ad, String.format("Advertisement with id: %d was observed by user with id: %s", id, email), HttpStatus.OK);
+        Response response = new Response<>(id, String.format("Advertisement with id: %d was observed by user with id: %s", id, email), HttpStatus.OK);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
@@ -184,14 +241,14 @@ public class AdvertisementManagementController {
      * Unobserve an advertisement
      *
      * @param id id of the advertisement to be unobserved
-     * @return advertisement with HTTP status code
+     * @return id of the advertisement with HTTP status code
      */
     @PutMapping("/unobserve/{id}")
     public ResponseEntity<Response> unobserveAdvertisementWithId(@PathVariable Long id) {
-        String email = resourceAccessAuthorizationService.extractCurrentUserFromAuth().getEmail();
-        Advertisement ad = advertisementManagementService.unobserveAdvertisement(id, email);
+        String email = resourceAccessAuthorizationService.extractCurrentUserEmail();
+        advertisementManagementService.unobserveAdvertisement(id, email);
         logger.info("Request to unobserve advertisement with ID: " + id + " by user with email: " + email);
-        Response response = new Response<>(ad, String.format("Advertisement with id: %d was unobserved by user with id: %s", id, email), HttpStatus.OK);
+        Response response = new Response<>(id, String.format("Advertisement with id: %d was unobserved by user with id: %s", id, email), HttpStatus.OK);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
@@ -210,11 +267,40 @@ public class AdvertisementManagementController {
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
+    /**
+     * Search advertisements, one page at a time. Pages are not addressed by number: the response carries
+     * nextCursor and hasNext, and the next page is requested with cursor set to nextCursor and the same filters and sort.
+     * <p>
+     * Filters on categoryId, price, createdAt and status compare for equality, or with an operator suffix:
+     * "price.lt=500", "price.gt=100", "price.between=100,500", "status.in=ACTIVE,INACTIVE".
+     * "q" searches the title, description and location, "title", "description" and "location" a single field;
+     * "fuzzy" (auto, true or false) controls typo-tolerant title matching. "near" (place name) or "lat" and "lon"
+     * with "radiusKm", or "bbox", limit the results to an area. "facets=true" adds counts by category, status
+     * and price range.
+     *
+     * @param searchParams search filters and optional paging parameters: size, sort (relevance, price, createdAt or id
+     *                     with optional ",asc"/",desc"; relevance by default with a text query) and cursor
+     * @return page of advertisements with nextCursor, hasNext and the optional facets, with HTTP status code
+     */
     @GetMapping("/search")
     public ResponseEntity<Response> requestSearchAdvertisements(@RequestParam Map<String, String> searchParams) {
-        List<Advertisement> ads = advertisementManagementService.searchAdvertisements(searchParams);
+        AdvertisementPage page = advertisementManagementService.searchAdvertisements(searchParams);
         logger.info("Request for advertisements with search parameters: " + searchParams);
-        Response response = new Response<>(ads, "Advertisements retrieved successfully", HttpStatus.OK);
+        Response response = new Response<>(page, "Advertisements retrieved successfully", HttpStatus.OK);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Suggest advertisement titles while the user types
+     *
+     * @param prefix typed text
+     * @param limit  maximum number of suggestions, 10 by default, at most 20
+     * @return title suggestions with HTTP status code
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<Response> requestSuggestAdvertisementTitles(@RequestParam String prefix, @RequestParam(required = false) Integer limit) {
+        List<AdvertisementSuggestion> suggestions = advertisementManagementService.suggestTitles(prefix, limit);
+        Response response = new Response<>(suggestions, "Suggestions retrieved successfully", HttpStatus.OK);
         return new ResponseEntity<>(response, HttpStatus.OK);
     }
 }
@@ -2,6 +2,7 @@ package org.marketplace.controllers;
 
 import jakarta.validation.Valid;
 import org.marketplace.models.Category;
+import org.marketplace.requests.ResourceVersion;
 import org.marketplace.requests.Response;
 import org.marketplace.services.CategoryManagementService;
 import org.slf4j.Logger;
@@ -10,6 +11,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -40,12 +42,18 @@ public class CategoryManagementController {
     }
 
     /**
-     * Get all categories
+     * Get all categories. Supports conditional requests: the categories are neither loaded nor serialized
+     * when the If-None-Match or If-Modified-Since header matches the current version of the list.
      *
-     * @return list of all categories with HTTP status code
+     * @return list of all categories with HTTP status code, 304 without a body if it has not changed
      */
     @GetMapping("/all")
-    public ResponseEntity<Response> requestGetAllCategories() {
+    public ResponseEntity<Response> requestGetAllCategories(WebRequest request) {
+        ResourceVersion version = categoryManagementService.getAllCategoriesVersion();
+        if (request.checkNotModified(version.getETag(), version.getLastModifiedMillis())) {
+            return null;
+        }
+
         List<Category> categories = categoryManagementService.getAllCategories();
         logger.info("Categories retrieved successfully");
         Response response = new Response<>(categories, "All categories retrieved successfully", HttpStatus.OK);
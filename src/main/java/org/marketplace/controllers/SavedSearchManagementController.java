@@ -0,0 +1,71 @@
+package org.marketplace.controllers;
+
+import jakarta.validation.Valid;
+import org.marketplace.enums.ResourceType;
+import org.marketplace.models.SavedSearch;
+import org.marketplace.requests.Response;
+import org.marketplace.services.ResourceAccessAuthorizationService;
+import org.marketplace.services.SavedSearchManagementService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/saved-search")
+public class SavedSearchManagementController {
+    private static final Logger logger = LoggerFactory.getLogger(SavedSearchManagementController.class);
+    private final SavedSearchManagementService savedSearchManagementService;
+    private final ResourceAccessAuthorizationService resourceAccessAuthorizationService;
+
+    public SavedSearchManagementController(SavedSearchManagementService savedSearchManagementService, ResourceAccessAuthorizationService resourceAccessAuthorizationService) {
+        this.savedSearchManagementService = savedSearchManagementService;
+        this.resourceAccessAuthorizationService = resourceAccessAuthorizationService;
+    }
+
+    /**
+     * Save a search for the current user, who is then notified by email about new matching advertisements
+     *
+     * @param savedSearch name and search parameters, the same as accepted by /api/advertisement/search
+     * @return saved search with HTTP status code
+     */
+    @PostMapping("/add")
+    public ResponseEntity<Response> requestAddSavedSearch(@Valid @RequestBody SavedSearch savedSearch) {
+        savedSearch.setUser(resourceAccessAuthorizationService.extractCurrentUserFromAuth());
+        SavedSearch saved = savedSearchManagementService.addSavedSearch(savedSearch);
+        logger.info("Saved search added successfully.\n" + saved);
+        Response response = new Response<>(saved, "Saved search added successfully", HttpStatus.CREATED);
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
+    /**
+     * Get saved searches of the current user
+     *
+     * @return list of saved searches with HTTP status code
+     */
+    @GetMapping("/user")
+    public ResponseEntity<Response> requestGetSavedSearchesOfCurrentUser() {
+        Long userId = resourceAccessAuthorizationService.extractCurrentUserId();
+        List<SavedSearch> savedSearches = savedSearchManagementService.getSavedSearchesByUser(userId);
+        logger.info("Request for saved searches of user ID: " + userId);
+        Response response = new Response<>(savedSearches, String.format("Saved searches retrieved successfully for user ID: %d", userId), HttpStatus.OK);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Delete a saved search
+     *
+     * @param id id of the saved search to be deleted
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Response> requestDeleteSavedSearch(@PathVariable Long id) {
+        resourceAccessAuthorizationService.authorizeUserAccessFromRequestBodyOrThrow(ResourceType.SAVED_SEARCH, id);
+        savedSearchManagementService.deleteSavedSearch(id);
+        logger.info("Saved search deleted successfully for ID: " + id);
+        Response response = new Response<>(id, String.format("Saved search deleted successfully for ID: %d", id), HttpStatus.OK);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,27 @@
+package org.marketplace.enums;
+
+public enum AdvertisementSortField {
+    PRICE("price"),
+    CREATED_AT("createdAt"),
+    ID("id"),
+    RELEVANCE("relevance");
+
+    private final String attribute;
+
+    AdvertisementSortField(String attribute) {
+        this.attribute = attribute;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public static AdvertisementSortField fromAttribute(String attribute) {
+        for (AdvertisementSortField field : AdvertisementSortField.values()) {
+            if (field.getAttribute().equalsIgnoreCase(attribute)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
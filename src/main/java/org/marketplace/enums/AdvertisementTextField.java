@@ -0,0 +1,32 @@
+package org.marketplace.enums;
+
+public enum AdvertisementTextField {
+    TITLE("title", 2.0),
+    DESCRIPTION("description", 1.0),
+    LOCATION("location", 1.0);
+
+    private final String attribute;
+    private final double weight;
+
+    AdvertisementTextField(String attribute, double weight) {
+        this.attribute = attribute;
+        this.weight = weight;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public double getWeight() {
+        return weight;
+    }
+
+    public static AdvertisementTextField fromAttribute(String attribute) {
+        for (AdvertisementTextField field : AdvertisementTextField.values()) {
+            if (field.getAttribute().equalsIgnoreCase(attribute)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
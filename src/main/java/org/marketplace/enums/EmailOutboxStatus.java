@@ -0,0 +1,8 @@
+package org.marketplace.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,38 @@
+package org.marketplace.enums;
+
+public enum FuzzySearchMode {
+    /**
+     * Fuzzy title matching is used only when the exact text search finds nothing
+     */
+    AUTO("auto"),
+    /**
+     * Text queries are always answered by fuzzy title matching
+     */
+    ON("true"),
+    /**
+     * Only exact text matches are returned
+     */
+    OFF("false");
+
+    private final String value;
+
+    FuzzySearchMode(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static FuzzySearchMode fromValue(String value) {
+        if (value == null || value.isBlank()) {
+            return AUTO;
+        }
+        for (FuzzySearchMode mode : FuzzySearchMode.values()) {
+            if (mode.getValue().equalsIgnoreCase(value.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Invalid fuzzy mode provided: " + value);
+    }
+}
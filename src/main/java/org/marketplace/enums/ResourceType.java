@@ -4,4 +4,5 @@ public enum ResourceType {
     USER,
     ADVERTISEMENT_IMAGE,
     ADVERTISEMENT,
+    SAVED_SEARCH,
 }
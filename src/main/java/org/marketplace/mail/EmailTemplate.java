@@ -0,0 +1,124 @@
+package org.marketplace.mail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text with {name} placeholders, parsed once into literal parts and placeholder names so rendering
+ * only concatenates. Binding some of the placeholders gives a new template with the bound values merged
+ * into the literals, which lets the part shared by all recipients of an event be rendered once.
+ * A placeholder without a value is kept as it is.
+ */
+public final class EmailTemplate {
+    // literals[i] precedes placeholders[i], the last literal follows the last placeholder
+    private final String[] literals;
+    private final String[] placeholders;
+
+    private EmailTemplate(String[] literals, String[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * @param pattern text with placeholders such as "Hello {recipient}"
+     * @throws IllegalArgumentException if a placeholder is not closed or has no name
+     */
+    public static EmailTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int literalStart = 0;
+        int open;
+        while ((open = pattern.indexOf('{', literalStart)) >= 0) {
+            int close = pattern.indexOf('}', open);
+            if (close < 0 || close == open + 1) {
+                throw new IllegalArgumentException("Invalid placeholder at position " + open + " of template: " + pattern);
+            }
+            literals.add(pattern.substring(literalStart, open));
+            placeholders.add(pattern.substring(open + 1, close));
+            literalStart = close + 1;
+        }
+        literals.add(pattern.substring(literalStart));
+        return new EmailTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    /**
+     * @param values values of the placeholders to fill in, others stay placeholders
+     * @return template with the given placeholders replaced by their values
+     */
+    public EmailTemplate bind(Map<String, ?> values) {
+        List<String> boundLiterals = new ArrayList<>(literals.length);
+        List<String> boundPlaceholders = new ArrayList<>(placeholders.length);
+        StringBuilder literal = new StringBuilder(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            Object value = values.get(placeholders[i]);
+            if (value != null) {
+                literal.append(value).append(literals[i + 1]);
+                continue;
+            }
+            boundLiterals.add(literal.toString());
+            boundPlaceholders.add(placeholders[i]);
+            literal.setLength(0);
+            literal.append(literals[i + 1]);
+        }
+        boundLiterals.add(literal.toString());
+        return new EmailTemplate(boundLiterals.toArray(new String[0]), boundPlaceholders.toArray(new String[0]));
+    }
+
+    /**
+     * Renders a template with a single remaining placeholder, possibly used several times, without
+     * building a map. Allocates only the resulting string and its builder.
+     * @param placeholder name of the placeholder
+     * @param value value of the placeholder
+     */
+    public String render(String placeholder, String value) {
+        if (placeholders.length == 0) {
+            return literals[0];
+        }
+        int length = literals[0].length();
+        for (int i = 0; i < placeholders.length; i++) {
+            length += (placeholder.equals(placeholders[i]) ? value.length() : placeholders[i].length() + 2) + literals[i + 1].length();
+        }
+        StringBuilder text = new StringBuilder(length).append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            appendPlaceholder(text, placeholders[i], placeholder.equals(placeholders[i]) ? value : null);
+            text.append(literals[i + 1]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * @param values values of the placeholders
+     * @return rendered text
+     */
+    public String render(Map<String, ?> values) {
+        StringBuilder text = new StringBuilder(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            Object value = values.get(placeholders[i]);
+            appendPlaceholder(text, placeholders[i], value == null ? null : value.toString());
+            text.append(literals[i + 1]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return names of the placeholders left in the template, in order of appearance
+     */
+    public List<String> getPlaceholders() {
+        return Arrays.asList(placeholders);
+    }
+
+    private static void appendPlaceholder(StringBuilder text, String placeholder, String value) {
+        if (value != null) {
+            text.append(value);
+        } else {
+            text.append('{').append(placeholder).append('}');
+        }
+    }
+
+    @Override
+    public String toString() {
+        return render(Map.of());
+    }
+}
@@ -0,0 +1,97 @@
+package org.marketplace.mail;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * Localized email templates, loaded from properties bundles and compiled once at startup. Every template
+ * has a name with a ".subject" and a ".content" entry; a translation missing an entry falls back to the
+ * base bundle.
+ * <p>
+ * Recipients carry no locale yet, so every email is sent in the default locale and only the base bundle
+ * is shipped; a translation becomes useful once the senders pass the locale of the recipient.
+ */
+@Component
+public class EmailTemplates {
+    private final Locale defaultLocale;
+    private final Map<Locale, Map<String, EmailTemplate>> templates = new HashMap<>();
+
+    /**
+     * @param baseName classpath base name of the bundles, e.g. email/templates
+     * @param locales comma separated language tags of the translations to load
+     * @param defaultLocale language tag of the locale used when no other is requested or it is not loaded
+     */
+    public EmailTemplates(@Value("${email.templates.base-name:email/templates}") String baseName,
+                          @Value("${email.templates.locales:en}") String locales,
+                          @Value("${email.templates.default-locale:en}") String defaultLocale) {
+        this.defaultLocale = Locale.forLanguageTag(defaultLocale);
+        load(baseName, this.defaultLocale);
+        for (String languageTag : locales.split(",")) {
+            if (!languageTag.isBlank()) {
+                load(baseName, Locale.forLanguageTag(languageTag.trim()));
+            }
+        }
+    }
+
+    /**
+     * @param name name of the template entry, e.g. observer.bought.subject
+     * @return template in the default locale
+     */
+    public EmailTemplate get(String name) {
+        return get(name, defaultLocale);
+    }
+
+    /**
+     * @param name name of the template entry, e.g. observer.bought.subject
+     * @param locale preferred locale, the default one is used if it is not loaded
+     * @return template in the locale
+     * @throws IllegalArgumentException if there is no such template
+     */
+    public EmailTemplate get(String name, Locale locale) {
+        Map<String, EmailTemplate> localized = templates.getOrDefault(locale, templates.get(defaultLocale));
+        EmailTemplate template = localized.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Email template " + name + " does not exist");
+        }
+        return template;
+    }
+
+    /**
+     * Renders everything shared by the recipients of an event, in the default locale
+     * @param name name of the template without the .subject/.content suffix
+     * @param values values of all placeholders except {recipient}
+     */
+    public PreparedEmail prepare(String name, Map<String, ?> values) {
+        return prepare(name, values, defaultLocale);
+    }
+
+    /**
+     * Renders everything shared by the recipients of an event
+     * @param name name of the template without the .subject/.content suffix
+     * @param values values of all placeholders except {recipient}
+     * @param locale preferred locale, the default one is used if it is not loaded
+     */
+    public PreparedEmail prepare(String name, Map<String, ?> values, Locale locale) {
+        return new PreparedEmail(get(name + ".subject", locale).bind(values), get(name + ".content", locale).bind(values));
+    }
+
+    public Locale getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    private void load(String baseName, Locale locale) {
+        ResourceBundle bundle = ResourceBundle.getBundle(baseName, locale,
+                ResourceBundle.Control.getNoFallbackControl(ResourceBundle.Control.FORMAT_PROPERTIES));
+        Map<String, EmailTemplate> compiled = new LinkedHashMap<>();
+        for (String key : bundle.keySet()) {
+            compiled.put(key, EmailTemplate.compile(bundle.getString(key)));
+        }
+        templates.put(locale, compiled);
+    }
+}
@@ -0,0 +1,250 @@
+package org.marketplace.mail;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mail sender that keeps a few authenticated SMTP connections open between sends instead of connecting,
+ * negotiating TLS and logging in for every call. A connection is closed after a fixed number of messages,
+ * after being idle for too long, or when sending over it fails. At most maxConnections connections are
+ * used at once; further senders wait for one to be released.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements MeterBinder, DisposableBean {
+    private final int maxMessagesPerConnection;
+    private final long idleTimeoutNanos;
+    private final Semaphore permits;
+    // most recently released connection first, so the oldest ones become idle and get evicted
+    private final Deque<PooledConnection> idleConnections = new ArrayDeque<>();
+    private final LongAdder openedConnections = new LongAdder();
+    private final LongAdder sentMessages = new LongAdder();
+
+    /**
+     * @param maxConnections maximum number of connections used at once
+     * @param maxMessagesPerConnection number of messages after which a connection is closed
+     * @param idleTimeout time after which an unused connection is closed
+     */
+    public PooledJavaMailSender(int maxConnections, int maxMessagesPerConnection, Duration idleTimeout) {
+        if (maxConnections < 1 || maxMessagesPerConnection < 1) {
+            throw new IllegalArgumentException("Mail pool connections and messages per connection must be positive");
+        }
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Sends the messages over pooled connections, switching to another connection when the current one
+     * reaches its message limit or breaks. Messages that could not be sent are reported together in a
+     * {@link MailSendException}, like {@link JavaMailSenderImpl} does.
+     */
+    @Override
+    protected void doSend(@NonNull MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        PooledConnection connection = null;
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                Object original = originalMessages != null ? originalMessages[i] : mimeMessages[i];
+                if (connection == null) {
+                    try {
+                        connection = borrow();
+                    } catch (AuthenticationFailedException ex) {
+                        throw new MailAuthenticationException(ex);
+                    } catch (MessagingException ex) {
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+                        }
+                        break;
+                    }
+                }
+
+                try {
+                    send(connection, mimeMessages[i]);
+                } catch (SendFailedException ex) {
+                    // recipients were rejected, the connection itself is still usable
+                    failedMessages.put(original, ex);
+                    continue;
+                } catch (MessagingException | RuntimeException ex) {
+                    failedMessages.put(original, ex);
+                    discard(connection);
+                    connection = null;
+                    continue;
+                }
+
+                if (connection.messagesSent >= maxMessagesPerConnection) {
+                    discard(connection);
+                    connection = null;
+                }
+            }
+        } finally {
+            if (connection != null) {
+                release(connection);
+            }
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    /**
+     * Closes connections that have not been used for longer than the idle timeout
+     */
+    @Scheduled(fixedDelayString = "${mail.pool.eviction-interval-ms:10000}")
+    public void evictIdleConnections() {
+        long now = System.nanoTime();
+        List<PooledConnection> evicted = new ArrayList<>();
+        synchronized (idleConnections) {
+            Iterator<PooledConnection> oldestFirst = idleConnections.descendingIterator();
+            while (oldestFirst.hasNext()) {
+                PooledConnection connection = oldestFirst.next();
+                if (!connection.isIdleLongerThan(idleTimeoutNanos, now)) {
+                    break;
+                }
+                oldestFirst.remove();
+                evicted.add(connection);
+            }
+        }
+        evicted.forEach(PooledConnection::close);
+    }
+
+    public int getIdleConnectionCount() {
+        synchronized (idleConnections) {
+            return idleConnections.size();
+        }
+    }
+
+    public long getOpenedConnectionCount() {
+        return openedConnections.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("mail.pool.idle", this, PooledJavaMailSender::getIdleConnectionCount)
+                .description("Open SMTP connections waiting to be reused")
+                .register(registry);
+        FunctionCounter.builder("mail.pool.connections.opened", openedConnections, LongAdder::sum).register(registry);
+        FunctionCounter.builder("mail.pool.messages.sent", sentMessages, LongAdder::sum).register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        List<PooledConnection> connections;
+        synchronized (idleConnections) {
+            connections = new ArrayList<>(idleConnections);
+            idleConnections.clear();
+        }
+        connections.forEach(PooledConnection::close);
+    }
+
+    private void send(PooledConnection connection, MimeMessage mimeMessage) throws MessagingException {
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            // preserve an explicitly specified message id, saveChanges replaces it
+            mimeMessage.setHeader("Message-ID", messageId);
+        }
+        Address[] addresses = mimeMessage.getAllRecipients();
+        connection.transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+        connection.messagesSent++;
+        sentMessages.increment();
+    }
+
+    private PooledConnection borrow() throws MessagingException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection");
+        }
+
+        try {
+            long now = System.nanoTime();
+            PooledConnection connection;
+            while ((connection = pollIdle()) != null) {
+                if (!connection.isIdleLongerThan(idleTimeoutNanos, now) && connection.transport.isConnected()) {
+                    return connection;
+                }
+                connection.close();
+            }
+
+            Transport transport = connectTransport();
+            openedConnections.increment();
+            return new PooledConnection(transport);
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection pollIdle() {
+        synchronized (idleConnections) {
+            return idleConnections.pollFirst();
+        }
+    }
+
+    private void release(PooledConnection connection) {
+        connection.lastUsedNanos = System.nanoTime();
+        synchronized (idleConnections) {
+            idleConnections.addFirst(connection);
+        }
+        permits.release();
+    }
+
+    private void discard(PooledConnection connection) {
+        connection.close();
+        permits.release();
+    }
+
+    private static class PooledConnection {
+        private final Transport transport;
+        private int messagesSent;
+        private long lastUsedNanos = System.nanoTime();
+
+        private PooledConnection(Transport transport) {
+            this.transport = transport;
+        }
+
+        private boolean isIdleLongerThan(long timeoutNanos, long now) {
+            return now - lastUsedNanos > timeoutNanos;
+        }
+
+        private void close() {
+            try {
+                transport.close();
+            } catch (MessagingException ignored) {
+                // the connection is dropped either way
+            }
+        }
+    }
+}
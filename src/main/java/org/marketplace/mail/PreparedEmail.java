@@ -0,0 +1,32 @@
+package org.marketplace.mail;
+
+import org.marketplace.builders.EmailBuilder;
+import org.marketplace.models.Email;
+
+/**
+ * Email of one event with everything but the recipient already rendered, so sending it
+ * to many recipients only fills in the recipient
+ */
+public final class PreparedEmail {
+    public static final String RECIPIENT = "recipient";
+
+    private final EmailTemplate subject;
+    private final EmailTemplate content;
+
+    public PreparedEmail(EmailTemplate subject, EmailTemplate content) {
+        this.subject = subject;
+        this.content = content;
+    }
+
+    /**
+     * @param recipient email address of the recipient
+     * @return email to the recipient
+     */
+    public Email to(String recipient) {
+        return new EmailBuilder()
+                .setTo(recipient)
+                .setSubject(subject.render(RECIPIENT, recipient))
+                .setContent(content.render(RECIPIENT, recipient))
+                .build();
+    }
+}
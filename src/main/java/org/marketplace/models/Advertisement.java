@@ -6,12 +6,16 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.search.GeoPoint;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_advertisement_category_status_price", columnList = "categoryId, status, price"),
+        @Index(name = "idx_advertisement_status_created_at", columnList = "status, createdAt"),
+        @Index(name = "idx_advertisement_updated_at", columnList = "updatedAt, advertisementId")
+})
 public class Advertisement {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,14 +40,12 @@ public class Advertisement {
     @Min(value = 0, message = "Price cannot be negative")
     private double price;
     private String location;
+    private Double latitude;
+    private Double longitude;
     private final LocalDateTime createdAt = LocalDateTime.now();
     private LocalDateTime updatedAt = LocalDateTime.now();
     private AdvertisementStatus status;
     private Long buyerId;
-    @ElementCollection
-    @CollectionTable(name = "observers", joinColumns = @JoinColumn(name = "advertisement_id"))
-    @Column(name = "observer")
-    private List<String> observers;
     @JsonIgnore
     private Long owner;
 
@@ -57,7 +59,6 @@ public class Advertisement {
         this.location = location;
         this.status = AdvertisementStatus.ACTIVE;
         this.buyerId = null;
-        this.observers = new ArrayList<>();
     }
 
     public Advertisement(String title, String description, Category category, User user, double price, String location) {
@@ -69,7 +70,6 @@ public class Advertisement {
         this.location = location;
         this.status = AdvertisementStatus.ACTIVE;
         this.buyerId = null;
-        this.observers = new ArrayList<>();
     }
     public Advertisement(){}
 
@@ -128,6 +128,22 @@ public class Advertisement {
         this.location = location;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Sets coordinates resolved from the location, null clears them
+     */
+    public void setCoordinates(GeoPoint point) {
+        this.latitude = point == null ? null : point.getLatitude();
+        this.longitude = point == null ? null : point.getLongitude();
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -140,6 +156,12 @@ public class Advertisement {
         this.updatedAt = updatedAt;
     }
 
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
     public AdvertisementStatus getStatus() {
         return status;
     }
@@ -160,14 +182,6 @@ public class Advertisement {
         this.buyerId = buyerId;
     }
 
-    public List<String> getObservers() {
-        return observers;
-    }
-
-    public void setObservers(List<String> observers) {
-        this.observers = observers;
-    }
-
     @Override
     public String toString() {
         return "Advertisement{" +
@@ -182,7 +196,6 @@ public class Advertisement {
                 ", updatedAt=" + updatedAt +
                 ", status=" + status +
                 ", buyerId=" + buyerId +
-                ", observers=" + observers +
                 '}';
     }
 }
@@ -0,0 +1,49 @@
+package org.marketplace.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Subscription of an email address to changes of an advertisement. Subscriptions are rows of their own
+ * instead of a collection of the advertisement, so adding or removing one is a single statement that
+ * neither loads the advertisement nor rewrites its other subscriptions.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_advertisement_observer", columnNames = {"advertisementId", "email"}),
+        indexes = @Index(name = "idx_advertisement_observer_email", columnList = "email"))
+public class AdvertisementObserver {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "advertisementObserverId")
+    private Long id;
+    @Column(name = "advertisementId", nullable = false)
+    private Long advertisementId;
+    @Column(nullable = false)
+    private String email;
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public AdvertisementObserver(Long advertisementId, String email) {
+        this.advertisementId = advertisementId;
+        this.email = email;
+    }
+
+    public AdvertisementObserver() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getAdvertisementId() {
+        return advertisementId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,35 @@
+package org.marketplace.models;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a deleted advertisement, kept for a limited time so clients synchronizing changes since
+ * a cursor learn which advertisements to remove.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_advertisement_tombstone_deleted_at", columnList = "deletedAt, advertisementId"))
+public class AdvertisementTombstone {
+    @Id
+    @Column(name = "advertisementId")
+    private Long advertisementId;
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    public AdvertisementTombstone(Long advertisementId, LocalDateTime deletedAt) {
+        this.advertisementId = advertisementId;
+        this.deletedAt = deletedAt;
+    }
+
+    public AdvertisementTombstone() {
+    }
+
+    public Long getAdvertisementId() {
+        return advertisementId;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -1,9 +1,15 @@
 package org.marketplace.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.time.LocalDateTime;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Category {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -11,6 +17,9 @@ public class Category {
     private Long id;
     @Size(min = 2, max = 20, message = "Category name must be between 2 and 20 characters long")
     private String name;
+    // for conditional requests of the category list, not part of the representation
+    @JsonIgnore
+    private LocalDateTime updatedAt;
     public Category(Long id, String name) {
         this.id = id;
         this.name = name;
@@ -40,6 +49,16 @@ public class Category {
         this.name = name;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
     @Override
     public String toString() {
         return "Category{" +
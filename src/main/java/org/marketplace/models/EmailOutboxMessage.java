@@ -0,0 +1,128 @@
+package org.marketplace.models;
+
+import jakarta.persistence.*;
+import org.marketplace.builders.EmailBuilder;
+import org.marketplace.enums.EmailOutboxStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Email waiting in the outbox. It is written in the same transaction as the change it notifies about
+ * and sent later by the outbox dispatcher, so the change never waits for the mail server. While a dispatcher
+ * is sending it, the message is in the SENDING status, marked with the claim token of that dispatcher and
+ * its next attempt is the time the claim expires.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_email_outbox_claim_token", columnList = "claimToken")
+})
+public class EmailOutboxMessage {
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "emailOutboxMessageId")
+    private Long id;
+    @Column(nullable = false)
+    private String recipient;
+    private String subject;
+    @Lob
+    private String content;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+    private int attempts;
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private LocalDateTime sentAt;
+    @Column(length = MAX_ERROR_LENGTH)
+    private String lastError;
+    private String claimToken;
+
+    public EmailOutboxMessage(String recipient, String subject, String content) {
+        this.recipient = recipient;
+        this.subject = subject;
+        this.content = content;
+    }
+
+    public EmailOutboxMessage() {
+    }
+
+    public Email toEmail() {
+        return new EmailBuilder()
+                .setTo(recipient)
+                .setSubject(subject)
+                .setContent(content)
+                .build();
+    }
+
+    public void markSent(LocalDateTime sentAt) {
+        this.status = EmailOutboxStatus.SENT;
+        this.attempts++;
+        this.sentAt = sentAt;
+        this.lastError = null;
+        this.claimToken = null;
+    }
+
+    /**
+     * Records a failed attempt
+     * @param error cause of the failure
+     * @param nextAttemptAt time of the next attempt, null if the message should not be retried anymore
+     */
+    public void markFailed(String error, LocalDateTime nextAttemptAt) {
+        this.attempts++;
+        this.lastError = error == null || error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+        this.claimToken = null;
+        if (nextAttemptAt == null) {
+            this.status = EmailOutboxStatus.FAILED;
+        } else {
+            this.status = EmailOutboxStatus.PENDING;
+            this.nextAttemptAt = nextAttemptAt;
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public EmailOutboxStatus getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public String getClaimToken() {
+        return claimToken;
+    }
+}
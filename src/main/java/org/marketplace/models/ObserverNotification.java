@@ -0,0 +1,77 @@
+package org.marketplace.models;
+
+import jakarta.persistence.*;
+import org.marketplace.enums.AdvertisementStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Change of an observed advertisement waiting to be included in the next digest of the observer.
+ * There is at most one row per observer and advertisement: a later change of the price or status
+ * overwrites the earlier one, so superseded changes are never sent.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_observer_notification", columnNames = {"recipient", "advertisementId"}),
+        indexes = @Index(name = "idx_observer_notification_recipient_created_at", columnList = "recipient, createdAt"))
+public class ObserverNotification {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "observerNotificationId")
+    private Long id;
+    @Version
+    private long version;
+    @Column(nullable = false)
+    private String recipient;
+    @Column(name = "advertisementId", nullable = false)
+    private Long advertisementId;
+    private String advertisementTitle;
+    private Double price;
+    @Enumerated(EnumType.STRING)
+    private AdvertisementStatus status;
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public ObserverNotification(String recipient, Long advertisementId, String advertisementTitle, Double price, AdvertisementStatus status) {
+        this.recipient = recipient;
+        this.advertisementId = advertisementId;
+        this.advertisementTitle = advertisementTitle;
+        this.price = price;
+        this.status = status;
+    }
+
+    public ObserverNotification() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public Long getAdvertisementId() {
+        return advertisementId;
+    }
+
+    public String getAdvertisementTitle() {
+        return advertisementTitle;
+    }
+
+    /**
+     * @return latest price, null if the price did not change
+     */
+    public Double getPrice() {
+        return price;
+    }
+
+    /**
+     * @return latest status, null if the status did not change
+     */
+    public AdvertisementStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,88 @@
+package org.marketplace.models;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@Entity
+public class SavedSearch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "savedSearchId")
+    private Long id;
+    @NotNull(message = "Saved search name cannot be null")
+    @Size(min = 3, max = 50, message = "Saved search name must be between 3 and 50 characters long")
+    private String name;
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "userId")
+    private User user;
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "saved_search_params", joinColumns = @JoinColumn(name = "saved_search_id"))
+    @MapKeyColumn(name = "param")
+    @Column(name = "value")
+    private Map<String, String> params = new HashMap<>();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    public SavedSearch(Long id, String name, User user, Map<String, String> params) {
+        this.id = id;
+        this.name = name;
+        this.user = user;
+        this.params = params;
+    }
+
+    public SavedSearch() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    /**
+     * @return search parameters, the same as accepted by /api/advertisement/search
+     */
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, String> params) {
+        this.params = params;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "SavedSearch{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", params=" + params +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
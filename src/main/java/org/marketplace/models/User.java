@@ -7,10 +7,18 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.marketplace.enums.UserRole;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Table(name="_user")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,6 +37,7 @@ public class User {
 
     @Email(message = "Invalid email address")
     @Column(unique = true)
+    @NaturalId(mutable = true)
     private String email;
     @Pattern(regexp = "^[1-9][0-9]{8}$", message = "Phone number must have 9 digits and not start with 0")
     private String phoneNumber;
@@ -39,6 +48,15 @@ public class User {
     @JsonProperty
     private boolean admin;
 
+    // embedded in issued tokens, incremented to revoke all of them
+    @JsonIgnore
+    @Column(nullable = false)
+    private int tokenVersion;
+
+    // for conditional requests of advertisements embedding the user, not part of the representation
+    @JsonIgnore
+    private LocalDateTime updatedAt;
+
     public User(String login, String password, String email, String phoneNumber) {
         this.login = login;
         this.password = password;
@@ -125,6 +143,27 @@ public class User {
         return isVerified;
     }
 
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Makes all tokens issued so far invalid, has to be called when the password or the role changes
+     */
+    public void revokeTokens() {
+        tokenVersion++;
+    }
+
     @Override
     public String toString() {
         return "User{" +
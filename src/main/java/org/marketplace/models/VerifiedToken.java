@@ -0,0 +1,55 @@
+package org.marketplace.models;
+
+import org.marketplace.enums.UserRole;
+
+import java.time.Instant;
+
+/**
+ * JWT whose signature has been verified, with the claims the application uses. The user claims are
+ * null for tokens issued without them.
+ */
+public class VerifiedToken {
+    private final String token;
+    private final String username;
+    private final Instant expiration;
+    private final Long userId;
+    private final UserRole role;
+    private final Integer tokenVersion;
+
+    public VerifiedToken(String token, String username, Instant expiration, Long userId, UserRole role, Integer tokenVersion) {
+        this.token = token;
+        this.username = username;
+        this.expiration = expiration;
+        this.userId = userId;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Instant getExpiration() {
+        return expiration;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    public Integer getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public boolean isExpired() {
+        return expiration == null || !expiration.isAfter(Instant.now());
+    }
+}
@@ -0,0 +1,15 @@
+package org.marketplace.repositories;
+
+import org.marketplace.models.Advertisement;
+import org.marketplace.requests.AdvertisementFacets;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface AdvertisementFacetRepository {
+    /**
+     * Counts advertisements matching the specification per category, status and price range
+     * in a single aggregate query
+     * @param specification filter of the advertisements
+     * @return facet counts
+     */
+    AdvertisementFacets countFacets(Specification<Advertisement> specification);
+}
@@ -0,0 +1,76 @@
+package org.marketplace.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.requests.AdvertisementFacets;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AdvertisementFacetRepositoryImpl implements AdvertisementFacetRepository {
+    private static final int GROUP_COLUMNS = 3;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Groups the matching advertisements by (category, status); price ranges are counted with conditional sums
+     * inside the same groups, so every facet is derived from one pass over the filtered rows.
+     */
+    @Override
+    public AdvertisementFacets countFacets(Specification<Advertisement> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Advertisement> root = query.from(Advertisement.class);
+        Join<Advertisement, Category> category = root.join("category");
+        Path<Long> categoryId = category.get("id");
+        Path<String> categoryName = category.get("name");
+        Path<AdvertisementStatus> status = root.get("status");
+        Path<Double> price = root.get("price");
+
+        List<Selection<?>> selections = new ArrayList<>(List.of(categoryId, categoryName, status));
+        double[] bounds = AdvertisementFacets.PRICE_RANGE_BOUNDS;
+        for (int i = 0; i <= bounds.length; i++) {
+            Predicate inRange = priceRange(criteriaBuilder, price, i == 0 ? null : bounds[i - 1], i == bounds.length ? null : bounds[i]);
+            selections.add(criteriaBuilder.sum(criteriaBuilder.<Integer>selectCase()
+                    .when(inRange, criteriaBuilder.literal(1))
+                    .otherwise(criteriaBuilder.literal(0))));
+        }
+        query.multiselect(selections);
+
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.groupBy(categoryId, categoryName, status);
+
+        AdvertisementFacets facets = new AdvertisementFacets();
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            long[] priceRangeCounts = new long[bounds.length + 1];
+            for (int i = 0; i < priceRangeCounts.length; i++) {
+                Number count = (Number) row.get(GROUP_COLUMNS + i);
+                priceRangeCounts[i] = count == null ? 0 : count.longValue();
+            }
+            facets.addGroup(row.get(0, Long.class), row.get(1, String.class), row.get(2, AdvertisementStatus.class), priceRangeCounts);
+        }
+        return facets;
+    }
+
+    private static Predicate priceRange(CriteriaBuilder criteriaBuilder, Path<Double> price, Double from, Double to) {
+        if (from == null) {
+            return criteriaBuilder.lessThan(price, criteriaBuilder.literal(to));
+        }
+        if (to == null) {
+            return criteriaBuilder.greaterThanOrEqualTo(price, criteriaBuilder.literal(from));
+        }
+        return criteriaBuilder.and(
+                criteriaBuilder.greaterThanOrEqualTo(price, criteriaBuilder.literal(from)),
+                criteriaBuilder.lessThan(price, criteriaBuilder.literal(to)));
+    }
+}
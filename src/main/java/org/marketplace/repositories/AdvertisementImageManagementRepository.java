@@ -1,9 +1,16 @@
 package org.marketplace.repositories;
 
 import java.util.List;
+import java.util.Optional;
+
 import org.marketplace.models.AdvertisementImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface AdvertisementImageManagementRepository extends JpaRepository<AdvertisementImage, Long> {
     List<AdvertisementImage> findByAdvertisement_Id(Long advertisementId);
+
+    @Query("select i.advertisement.id from AdvertisementImage i where i.id = :id")
+    Optional<Long> findAdvertisementIdById(@Param("id") Long id);
 }
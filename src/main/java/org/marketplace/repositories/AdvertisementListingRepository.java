@@ -0,0 +1,20 @@
+package org.marketplace.repositories;
+
+import org.marketplace.models.Advertisement;
+import org.marketplace.requests.AdvertisementListing;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface AdvertisementListingRepository {
+    /**
+     * Reads listings of the advertisements matching the specification in a single query
+     * joining the category and the seller
+     * @param specification filter of the advertisements
+     * @param sort order of the listings
+     * @param limit maximum number of listings
+     * @return matching listings
+     */
+    List<AdvertisementListing> findListings(Specification<Advertisement> specification, Sort sort, int limit);
+}
@@ -0,0 +1,45 @@
+package org.marketplace.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.*;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.models.User;
+import org.marketplace.requests.AdvertisementListing;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+public class AdvertisementListingRepositoryImpl implements AdvertisementListingRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Selects the listing columns with a constructor expression, so neither the EAGER associations
+     * nor the observers of the matching advertisements are loaded.
+     */
+    @Override
+    public List<AdvertisementListing> findListings(Specification<Advertisement> specification, Sort sort, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AdvertisementListing> query = criteriaBuilder.createQuery(AdvertisementListing.class);
+        Root<Advertisement> root = query.from(Advertisement.class);
+        Join<Advertisement, Category> category = root.join("category");
+        Join<Advertisement, User> user = root.join("user");
+        query.select(criteriaBuilder.construct(AdvertisementListing.class,
+                root.get("id"), root.get("title"), root.get("price"), root.get("status"), root.get("location"), root.get("createdAt"),
+                category.get("id"), category.get("name"), user.get("id"), user.get("login")));
+
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
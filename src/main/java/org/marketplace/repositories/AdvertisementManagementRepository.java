@@ -1,12 +1,92 @@
 package org.marketplace.repositories;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.marketplace.models.Advertisement;
+import org.marketplace.requests.AdvertisementChange;
+import org.marketplace.requests.AdvertisementExportRow;
+import org.marketplace.requests.AdvertisementListing;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface AdvertisementManagementRepository extends JpaRepository<Advertisement, Long>, JpaSpecificationExecutor<Advertisement> {
-    List<Advertisement> findByCategory_Id(Long categoryId);
-    List<Advertisement> findByUser_Id(Long userId);
-}
\ No newline at end of file
+public interface AdvertisementManagementRepository extends JpaRepository<Advertisement, Long>, JpaSpecificationExecutor<Advertisement>, AdvertisementFacetRepository, AdvertisementListingRepository {
+    int EXPORT_FETCH_SIZE = 500;
+    String LISTING_SELECT = "select new org.marketplace.requests.AdvertisementListing(a.id, a.title, a.price, a.status, a.location, " +
+            "a.createdAt, c.id, c.name, u.id, u.login) from Advertisement a join a.category c join a.user u ";
+    String CHANGE_SELECT = "select new org.marketplace.requests.AdvertisementChange(a.id, a.title, a.price, a.status, a.location, " +
+            "a.createdAt, a.category.id, a.user.id, a.updatedAt) from Advertisement a ";
+
+    List<Advertisement> findTop500ByIdGreaterThanOrderByIdAsc(Long id);
+
+    @Query(LISTING_SELECT + "order by a.id")
+    List<AdvertisementListing> findAllListings();
+
+    @Query(LISTING_SELECT + "where c.id = :categoryId order by a.id")
+    List<AdvertisementListing> findListingsByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query(LISTING_SELECT + "where u.id = :userId order by a.id")
+    List<AdvertisementListing> findListingsByUserId(@Param("userId") Long userId);
+
+    @Query(CHANGE_SELECT + "where a.id > :lastId order by a.id")
+    List<AdvertisementChange> findChangesAfterId(@Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * @return advertisements changed after the position (since, lastId) and before until, ordered by time of change and id
+     */
+    @Query(CHANGE_SELECT + "where (a.updatedAt > :since or (a.updatedAt = :since and a.id > :lastId)) and a.updatedAt < :until order by a.updatedAt, a.id")
+    List<AdvertisementChange> findChangesBetween(@Param("since") LocalDateTime since, @Param("lastId") Long lastId, @Param("until") LocalDateTime until, Pageable pageable);
+
+    @Query("select a.user.id from Advertisement a where a.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+    /**
+     * Reads the advertisement and locks its row until the end of the transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Advertisement a where a.id = :id")
+    Optional<Advertisement> findAndLockById(@Param("id") Long id);
+
+    /**
+     * @return time of the last change of the advertisement, its category or its owner, which are all part of its representation
+     */
+    @Query("select greatest(a.updatedAt, coalesce(c.updatedAt, a.updatedAt), coalesce(u.updatedAt, a.updatedAt)) " +
+            "from Advertisement a join a.category c join a.user u where a.id = :id")
+    Optional<LocalDateTime> findLastModifiedById(@Param("id") Long id);
+
+    /**
+     * Marks an active advertisement as bought with a single conditional update. The database locks the row, so of
+     * concurrent buyers exactly one sees the advertisement still active, the others update no rows.
+     * @return 1 if the advertisement was bought by the buyer, 0 if it does not exist or is not active anymore
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Transactional
+    @Query("update Advertisement a set a.status = org.marketplace.enums.AdvertisementStatus.BOUGHT, a.buyerId = :buyerId, " +
+            "a.updatedAt = :updatedAt where a.id = :id and a.status = org.marketplace.enums.AdvertisementStatus.ACTIVE")
+    int markBought(@Param("id") Long id, @Param("buyerId") Long buyerId, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Forward-only stream of all advertisements in id order, fetched from the database in chunks of
+     * {@link #EXPORT_FETCH_SIZE} rows. Has to be consumed inside a transaction and closed afterwards.
+     */
+    @Query("select new org.marketplace.requests.AdvertisementExportRow(a.id, a.title, a.description, a.price, a.location, " +
+            "a.latitude, a.longitude, a.status, a.createdAt, a.updatedAt, c.id, c.name, u.id, u.login) " +
+            "from Advertisement a join a.category c join a.user u order by a.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<AdvertisementExportRow> streamAllForExport();
+}
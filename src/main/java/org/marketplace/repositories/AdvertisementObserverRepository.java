@@ -0,0 +1,35 @@
+package org.marketplace.repositories;
+
+import org.marketplace.models.AdvertisementObserver;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface AdvertisementObserverRepository extends JpaRepository<AdvertisementObserver, Long> {
+    /**
+     * Subscribes the email to the advertisement in one insert-select statement, which inserts nothing
+     * if the advertisement does not exist or the email already observes it
+     * @return number of inserted subscriptions, 0 or 1
+     */
+    @Modifying
+    @Transactional
+    @Query("insert into AdvertisementObserver (advertisementId, email, createdAt) " +
+            "select a.id, :email, local datetime from Advertisement a where a.id = :advertisementId " +
+            "and not exists (select 1 from AdvertisementObserver o where o.advertisementId = :advertisementId and o.email = :email)")
+    int insertIfAbsent(@Param("advertisementId") Long advertisementId, @Param("email") String email);
+
+    /**
+     * @return number of deleted subscriptions, 0 or 1
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from AdvertisementObserver o where o.advertisementId = :advertisementId and o.email = :email")
+    int deleteByAdvertisementIdAndEmail(@Param("advertisementId") Long advertisementId, @Param("email") String email);
+
+    @Modifying
+    @Transactional
+    @Query("delete from AdvertisementObserver o where o.advertisementId = :advertisementId")
+    int deleteAllByAdvertisementId(@Param("advertisementId") Long advertisementId);
+}
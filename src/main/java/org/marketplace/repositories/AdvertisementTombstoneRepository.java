@@ -0,0 +1,26 @@
+package org.marketplace.repositories;
+
+import org.marketplace.models.AdvertisementTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AdvertisementTombstoneRepository extends JpaRepository<AdvertisementTombstone, Long> {
+    /**
+     * @return advertisements deleted after the position (since, lastId) and before until, ordered by time of deletion and id
+     */
+    @Query("select t from AdvertisementTombstone t where (t.deletedAt > :since or (t.deletedAt = :since and t.advertisementId > :lastId)) " +
+            "and t.deletedAt < :until order by t.deletedAt, t.advertisementId")
+    List<AdvertisementTombstone> findDeletedBetween(@Param("since") LocalDateTime since, @Param("lastId") Long lastId, @Param("until") LocalDateTime until, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("delete from AdvertisementTombstone t where t.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") LocalDateTime before);
+}
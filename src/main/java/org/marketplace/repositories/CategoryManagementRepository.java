@@ -1,7 +1,11 @@
 package org.marketplace.repositories;
 
 import org.marketplace.models.Category;
+import org.marketplace.requests.ResourceVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 public interface CategoryManagementRepository extends JpaRepository<Category, Long> {
+    @Query("select new org.marketplace.requests.ResourceVersion(count(c), max(c.updatedAt)) from Category c")
+    ResourceVersion findVersion();
 }
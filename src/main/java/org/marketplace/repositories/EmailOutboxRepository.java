@@ -0,0 +1,39 @@
+package org.marketplace.repositories;
+
+import org.marketplace.enums.EmailOutboxStatus;
+import org.marketplace.models.EmailOutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+    /**
+     * @return ids of pending messages due by the time and of messages whose claim expired by then, in id order
+     */
+    @Query("select m.id from EmailOutboxMessage m where m.status in (org.marketplace.enums.EmailOutboxStatus.PENDING, " +
+            "org.marketplace.enums.EmailOutboxStatus.SENDING) and m.nextAttemptAt <= :now order by m.id")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claims those of the messages that are still due, a message is claimed by exactly one caller until the claim expires
+     * @return number of claimed messages
+     */
+    @Modifying
+    @Transactional
+    @Query("update EmailOutboxMessage m set m.status = org.marketplace.enums.EmailOutboxStatus.SENDING, m.claimToken = :claimToken, " +
+            "m.nextAttemptAt = :claimExpiresAt where m.id in :ids and m.status in (org.marketplace.enums.EmailOutboxStatus.PENDING, " +
+            "org.marketplace.enums.EmailOutboxStatus.SENDING) and m.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken, @Param("now") LocalDateTime now,
+              @Param("claimExpiresAt") LocalDateTime claimExpiresAt);
+
+    List<EmailOutboxMessage> findByClaimTokenOrderByIdAsc(String claimToken);
+
+    long countByStatus(EmailOutboxStatus status);
+}
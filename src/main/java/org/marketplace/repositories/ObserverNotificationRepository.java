@@ -0,0 +1,55 @@
+package org.marketplace.repositories;
+
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.models.ObserverNotification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pending observer notifications are written with bulk statements over the observers of an advertisement,
+ * so recording a change costs the same two statements no matter how many observers there are.
+ */
+public interface ObserverNotificationRepository extends JpaRepository<ObserverNotification, Long> {
+    @Modifying
+    @Transactional
+    @Query("update versioned ObserverNotification n set n.price = :price, n.advertisementTitle = :title where n.advertisementId = :advertisementId")
+    int updatePendingPrice(@Param("advertisementId") Long advertisementId, @Param("title") String title, @Param("price") Double price);
+
+    @Modifying
+    @Transactional
+    @Query("insert into ObserverNotification (version, recipient, advertisementId, advertisementTitle, price, createdAt) " +
+            "select 0, o.email, o.advertisementId, :title, :price, local datetime from AdvertisementObserver o " +
+            "where o.advertisementId = :advertisementId " +
+            "and not exists (select 1 from ObserverNotification n where n.advertisementId = :advertisementId and n.recipient = o.email)")
+    int insertPendingPrice(@Param("advertisementId") Long advertisementId, @Param("title") String title, @Param("price") Double price);
+
+    @Modifying
+    @Transactional
+    @Query("update versioned ObserverNotification n set n.status = :status, n.advertisementTitle = :title where n.advertisementId = :advertisementId")
+    int updatePendingStatus(@Param("advertisementId") Long advertisementId, @Param("title") String title, @Param("status") AdvertisementStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("insert into ObserverNotification (version, recipient, advertisementId, advertisementTitle, status, createdAt) " +
+            "select 0, o.email, o.advertisementId, :title, :status, local datetime from AdvertisementObserver o " +
+            "where o.advertisementId = :advertisementId " +
+            "and not exists (select 1 from ObserverNotification n where n.advertisementId = :advertisementId and n.recipient = o.email)")
+    int insertPendingStatus(@Param("advertisementId") Long advertisementId, @Param("title") String title, @Param("status") AdvertisementStatus status);
+
+    /**
+     * @param threshold recipients whose oldest pending notification is not newer than this are due
+     * @return recipients due for a digest, longest waiting first
+     */
+    @Query("select n.recipient from ObserverNotification n group by n.recipient having min(n.createdAt) <= :threshold order by min(n.createdAt)")
+    List<String> findRecipientsDue(@Param("threshold") LocalDateTime threshold, Pageable pageable);
+
+    List<ObserverNotification> findByRecipientInOrderByIdAsc(Collection<String> recipients);
+}
@@ -0,0 +1,18 @@
+package org.marketplace.repositories;
+
+import org.marketplace.models.SavedSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface SavedSearchManagementRepository extends JpaRepository<SavedSearch, Long> {
+    List<SavedSearch> findByUser_Id(Long id);
+
+    List<SavedSearch> findTop500ByIdGreaterThanOrderByIdAsc(Long id);
+
+    @Query("select s.user.id from SavedSearch s where s.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+}
@@ -2,11 +2,17 @@ package org.marketplace.repositories;
 
 import org.marketplace.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-public interface UserManagementRepository extends JpaRepository<User, Long> {
-    User findByEmail(String email);
+public interface UserManagementRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
     User findByLogin(String login);
-    User findByEmailIgnoreCase(String email);
     Boolean existsByEmail(String email);
     Boolean existsByLogin(String login);
+
+    /**
+     * @return current token version of the user, null if the user does not exist
+     */
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Integer findTokenVersionById(@Param("id") Long id);
 }
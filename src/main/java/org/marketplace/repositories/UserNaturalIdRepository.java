@@ -0,0 +1,19 @@
+package org.marketplace.repositories;
+
+import org.marketplace.models.User;
+
+public interface UserNaturalIdRepository {
+    /**
+     * Looks the user up by its natural id, served from the second-level cache when the email was resolved before
+     * @param email email of the user
+     * @return user, null if there is no user with the email
+     */
+    User findByEmail(String email);
+
+    /**
+     * Looks the user up by its natural id first and falls back to a case-insensitive query
+     * @param email email of the user, in any case
+     * @return user, null if there is no user with the email
+     */
+    User findByEmailIgnoreCase(String email);
+}
@@ -0,0 +1,41 @@
+package org.marketplace.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.marketplace.models.User;
+import org.springframework.transaction.annotation.Transactional;
+
+public class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Resolves the email to the id through the natural id cache and loads the user from the entity cache,
+     * so a user seen before is returned without a query. Runs in a transaction, a session unwrapped
+     * outside of one would already be closed.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public User findByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).load(email);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public User findByEmailIgnoreCase(String email) {
+        User user = findByEmail(email);
+        if (user != null || email == null) {
+            return user;
+        }
+        return entityManager.createQuery("select u from User u where lower(u.email) = lower(:email)", User.class)
+                .setParameter("email", email)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,72 @@
+package org.marketplace.requests;
+
+import org.marketplace.enums.AdvertisementStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a created or changed advertisement with the time of its last change, which orders the changes
+ * returned to synchronizing clients. The category and the seller are referenced by id only: renaming a category
+ * or changing a login does not change the advertisement, so their names are read from the category and user
+ * endpoints instead of being copied into every change.
+ */
+public class AdvertisementChange {
+    private final Long id;
+    private final String title;
+    private final double price;
+    private final AdvertisementStatus status;
+    private final String location;
+    private final LocalDateTime createdAt;
+    private final Long categoryId;
+    private final Long sellerId;
+    private final LocalDateTime updatedAt;
+
+    public AdvertisementChange(Long id, String title, double price, AdvertisementStatus status, String location, LocalDateTime createdAt,
+                               Long categoryId, Long sellerId, LocalDateTime updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.price = price;
+        this.status = status;
+        this.location = location;
+        this.createdAt = createdAt;
+        this.categoryId = categoryId;
+        this.sellerId = sellerId;
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public AdvertisementStatus getStatus() {
+        return status;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public Long getSellerId() {
+        return sellerId;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,40 @@
+package org.marketplace.requests;
+
+import java.util.List;
+
+/**
+ * One page of advertisements created or changed and ids of advertisements deleted after the requested cursor.
+ * The client passes {@link #getNextCursor()} with its next request, right away while {@link #isHasMore()}.
+ */
+public class AdvertisementChanges {
+    private final List<AdvertisementChange> changed;
+    private final List<Long> deleted;
+    private final String nextCursor;
+    private final boolean hasMore;
+
+    public AdvertisementChanges(List<AdvertisementChange> changed, List<Long> deleted, String nextCursor, boolean hasMore) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<AdvertisementChange> getChanged() {
+        return changed;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * @return true if further changes can be requested with the next cursor right away
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,101 @@
+package org.marketplace.requests;
+
+import org.marketplace.enums.AdvertisementStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, unmanaged copy of an advertisement with its category and seller, read by the export query
+ * straight from the result set, so exported rows never pile up in the persistence context.
+ */
+public class AdvertisementExportRow {
+    private final Long id;
+    private final String title;
+    private final String description;
+    private final double price;
+    private final String location;
+    private final Double latitude;
+    private final Double longitude;
+    private final AdvertisementStatus status;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Long categoryId;
+    private final String categoryName;
+    private final Long sellerId;
+    private final String sellerLogin;
+
+    public AdvertisementExportRow(Long id, String title, String description, double price, String location, Double latitude, Double longitude,
+                                  AdvertisementStatus status, LocalDateTime createdAt, LocalDateTime updatedAt,
+                                  Long categoryId, String categoryName, Long sellerId, String sellerLogin) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.price = price;
+        this.location = location;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.sellerId = sellerId;
+        this.sellerLogin = sellerLogin;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public AdvertisementStatus getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public Long getSellerId() {
+        return sellerId;
+    }
+
+    public String getSellerLogin() {
+        return sellerLogin;
+    }
+}
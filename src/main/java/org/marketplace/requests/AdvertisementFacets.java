@@ -0,0 +1,127 @@
+package org.marketplace.requests;
+
+import org.marketplace.enums.AdvertisementStatus;
+
+import java.util.*;
+
+/**
+ * Counts of advertisements matching a search, broken down by category, status and price range.
+ */
+public class AdvertisementFacets {
+    /**
+     * Lower bounds of the price ranges after the first one; the first range starts at 0, the last one is open
+     */
+    public static final double[] PRICE_RANGE_BOUNDS = {100, 500, 1000, 5000};
+
+    private long total;
+    private final Map<Long, CategoryCount> categories = new LinkedHashMap<>();
+    private final Map<AdvertisementStatus, Long> statuses = new EnumMap<>(AdvertisementStatus.class);
+    private final List<PriceRangeCount> priceRanges = new ArrayList<>();
+
+    public AdvertisementFacets() {
+        double from = 0;
+        for (double bound : PRICE_RANGE_BOUNDS) {
+            priceRanges.add(new PriceRangeCount(from, bound));
+            from = bound;
+        }
+        priceRanges.add(new PriceRangeCount(from, null));
+    }
+
+    /**
+     * Adds one aggregated (category, status) group
+     * @param categoryId id of the category
+     * @param categoryName name of the category
+     * @param status status of the advertisements in the group
+     * @param priceRangeCounts number of advertisements of the group in each price range
+     */
+    public void addGroup(Long categoryId, String categoryName, AdvertisementStatus status, long[] priceRangeCounts) {
+        long count = 0;
+        for (int i = 0; i < priceRangeCounts.length; i++) {
+            priceRanges.get(i).count += priceRangeCounts[i];
+            count += priceRangeCounts[i];
+        }
+
+        total += count;
+        categories.computeIfAbsent(categoryId, id -> new CategoryCount(id, categoryName)).count += count;
+        if (status != null) {
+            statuses.merge(status, count, Long::sum);
+        }
+    }
+
+    /**
+     * Adds the counts of facets computed over another, disjoint set of advertisements
+     * @param other facets to add
+     */
+    public void addAll(AdvertisementFacets other) {
+        total += other.total;
+        for (CategoryCount categoryCount : other.categories.values()) {
+            categories.computeIfAbsent(categoryCount.id, id -> new CategoryCount(id, categoryCount.name)).count += categoryCount.count;
+        }
+        other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+        for (int i = 0; i < priceRanges.size(); i++) {
+            priceRanges.get(i).count += other.priceRanges.get(i).count;
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public Collection<CategoryCount> getCategories() {
+        return categories.values();
+    }
+
+    public Map<AdvertisementStatus, Long> getStatuses() {
+        return statuses;
+    }
+
+    public List<PriceRangeCount> getPriceRanges() {
+        return priceRanges;
+    }
+
+    public static class CategoryCount {
+        private final Long id;
+        private final String name;
+        private long count;
+
+        public CategoryCount(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    public static class PriceRangeCount {
+        private final double from;
+        private final Double to;
+        private long count;
+
+        public PriceRangeCount(double from, Double to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public double getFrom() {
+            return from;
+        }
+
+        public Double getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
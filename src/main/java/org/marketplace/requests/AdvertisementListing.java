@@ -0,0 +1,87 @@
+package org.marketplace.requests;
+
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.models.Advertisement;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat summary of an advertisement returned by listing endpoints. It is selected with a constructor
+ * expression, so listings neither load the category, seller and observers of every advertisement
+ * nor serialize them; the full advertisement is returned by the detail endpoint only.
+ */
+public class AdvertisementListing {
+    private final Long id;
+    private final String title;
+    private final double price;
+    private final AdvertisementStatus status;
+    private final String location;
+    private final LocalDateTime createdAt;
+    private final Long categoryId;
+    private final String categoryName;
+    private final Long sellerId;
+    private final String sellerLogin;
+
+    public AdvertisementListing(Long id, String title, double price, AdvertisementStatus status, String location, LocalDateTime createdAt,
+                                Long categoryId, String categoryName, Long sellerId, String sellerLogin) {
+        this.id = id;
+        this.title = title;
+        this.price = price;
+        this.status = status;
+        this.location = location;
+        this.createdAt = createdAt;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.sellerId = sellerId;
+        this.sellerLogin = sellerLogin;
+    }
+
+    public static AdvertisementListing of(Advertisement advertisement) {
+        return new AdvertisementListing(advertisement.getId(), advertisement.getTitle(), advertisement.getPrice(), advertisement.getStatus(),
+                advertisement.getLocation(), advertisement.getCreatedAt(),
+                advertisement.getCategory() == null ? null : advertisement.getCategory().getId(),
+                advertisement.getCategory() == null ? null : advertisement.getCategory().getName(),
+                advertisement.getUser() == null ? null : advertisement.getUser().getId(),
+                advertisement.getUser() == null ? null : advertisement.getUser().getLogin());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public AdvertisementStatus getStatus() {
+        return status;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public Long getSellerId() {
+        return sellerId;
+    }
+
+    public String getSellerLogin() {
+        return sellerLogin;
+    }
+}
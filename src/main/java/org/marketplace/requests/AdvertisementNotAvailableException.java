@@ -0,0 +1,7 @@
+package org.marketplace.requests;
+
+public class AdvertisementNotAvailableException extends RuntimeException {
+    public AdvertisementNotAvailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,65 @@
+package org.marketplace.requests;
+
+import java.util.List;
+
+public class AdvertisementPage {
+    private final List<AdvertisementListing> content;
+    private final int size;
+    private final String nextCursor;
+    private AdvertisementFacets facets;
+    private boolean fuzzy;
+    private boolean truncated;
+
+    public AdvertisementPage(List<AdvertisementListing> content, int size, String nextCursor) {
+        this.content = content;
+        this.size = size;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<AdvertisementListing> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+
+    public AdvertisementFacets getFacets() {
+        return facets;
+    }
+
+    public void setFacets(AdvertisementFacets facets) {
+        this.facets = facets;
+    }
+
+    /**
+     * @return true if the text query was answered by typo-tolerant title matching
+     */
+    public boolean isFuzzy() {
+        return fuzzy;
+    }
+
+    public void setFuzzy(boolean fuzzy) {
+        this.fuzzy = fuzzy;
+    }
+
+    /**
+     * @return true if the search matched more advertisements than can be sorted by a column, so only the best
+     * matches can be paged through; facets still count all of them
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+}
@@ -0,0 +1,22 @@
+package org.marketplace.requests;
+
+public class AdvertisementSuggestion {
+    private final String title;
+    private final int count;
+
+    public AdvertisementSuggestion(String title, int count) {
+        this.title = title;
+        this.count = count;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return number of active advertisements with this title
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -32,7 +32,7 @@ public class LogoutSuccessHandler implements org.springframework.security.web.au
             }
 
             String token = authorizationHeader.substring(7);
-            tokenService.invalidateToken(token);
+            tokenService.invalidateToken(tokenService.verify(token));
 
             response.setStatus(HttpServletResponse.SC_OK);
             response.getWriter().write("Logout successful.");
@@ -0,0 +1,51 @@
+package org.marketplace.requests;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Version of a resource or a collection of resources for conditional requests, made of the number of entities
+ * and the time of the last change among them. It is selected without loading the entities, so a client already
+ * holding the current representation is answered without reading or serializing it.
+ */
+public class ResourceVersion {
+    private final long count;
+    private final LocalDateTime lastModified;
+
+    public ResourceVersion(Long count, LocalDateTime lastModified) {
+        this.count = count == null ? 0 : count;
+        // the database keeps microseconds
+        this.lastModified = lastModified == null ? null : lastModified.truncatedTo(ChronoUnit.MICROS);
+    }
+
+    public static ResourceVersion of(LocalDateTime lastModified) {
+        return new ResourceVersion(1L, lastModified);
+    }
+
+    /**
+     * @return quoted entity tag, changing whenever an entity is added, changed or removed
+     */
+    public String getETag() {
+        return "\"" + count + "-" + getLastModifiedMicros() + "\"";
+    }
+
+    /**
+     * @return time of the last change in milliseconds since the epoch, -1 if unknown
+     */
+    public long getLastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    private long getLastModifiedMicros() {
+        return lastModified == null ? 0 : ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), lastModified);
+    }
+}
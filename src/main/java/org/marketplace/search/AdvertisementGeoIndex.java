@@ -0,0 +1,168 @@
+package org.marketplace.search;
+
+import org.marketplace.models.Advertisement;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory spatial index of advertisement coordinates. The map is split into a fixed grid of
+ * 0.1 x 0.1 degree cells (about 11 km north to south), so a radius or bounding box query only
+ * checks the advertisements in the few cells overlapping the query area.
+ */
+@Component
+public class AdvertisementGeoIndex {
+    static final double CELL_SIZE_DEGREES = 0.1;
+
+    private final Map<Long, Set<Long>> cells = new HashMap<>();
+    private final Map<Long, GeoPoint> points = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds the advertisement to the index, replacing its previous position. Advertisements
+     * without coordinates are removed from the index.
+     * @param advertisement advertisement to index, must have an id
+     */
+    public void index(Advertisement advertisement) {
+        Long id = advertisement.getId();
+        if (id == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removePoint(id);
+            if (advertisement.getLatitude() != null && advertisement.getLongitude() != null) {
+                GeoPoint point = new GeoPoint(advertisement.getLatitude(), advertisement.getLongitude());
+                points.put(id, point);
+                cells.computeIfAbsent(cellOf(point.getLatitude(), point.getLongitude()), c -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the advertisement from the index
+     * @param id id of the advertisement
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removePoint(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the whole index content
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            points.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds advertisements inside the circle or bounding box of the clause
+     * @param clause spatial clause
+     * @return ids of matching advertisements, nearest first for a radius query, in id order for a bounding box
+     */
+    public List<Long> search(GeoQueryClause clause) {
+        lock.readLock().lock();
+        try {
+            int minRow = row(clause.getMinLatitude());
+            int maxRow = row(clause.getMaxLatitude());
+            int minColumn = column(clause.getMinLongitude());
+            int maxColumn = column(clause.getMaxLongitude());
+            long cellCount = (long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1);
+
+            List<Long> candidates = new ArrayList<>();
+            if (cellCount > cells.size()) {
+                for (Map.Entry<Long, Set<Long>> cell : cells.entrySet()) {
+                    int row = (int) (cell.getKey() >> 32);
+                    int column = (int) (long) cell.getKey();
+                    if (row >= minRow && row <= maxRow && column >= minColumn && column <= maxColumn) {
+                        candidates.addAll(cell.getValue());
+                    }
+                }
+            } else {
+                for (int row = minRow; row <= maxRow; row++) {
+                    for (int column = minColumn; column <= maxColumn; column++) {
+                        Set<Long> cell = cells.get(cellKey(row, column));
+                        if (cell != null) {
+                            candidates.addAll(cell);
+                        }
+                    }
+                }
+            }
+
+            List<Long> matching = new ArrayList<>();
+            for (Long id : candidates) {
+                GeoPoint point = points.get(id);
+                if (clause.matches(point.getLatitude(), point.getLongitude())) {
+                    matching.add(id);
+                }
+            }
+
+            if (clause.isRadius()) {
+                Map<Long, Double> distances = new HashMap<>();
+                for (Long id : matching) {
+                    distances.put(id, clause.getCenter().distanceKm(points.get(id)));
+                }
+                matching.sort(Comparator.comparing((Long id) -> distances.get(id)).thenComparing(id -> id));
+            } else {
+                Collections.sort(matching);
+            }
+            return matching;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return points.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removePoint(Long id) {
+        GeoPoint point = points.remove(id);
+        if (point == null) {
+            return;
+        }
+
+        long key = cellOf(point.getLatitude(), point.getLongitude());
+        Set<Long> cell = cells.get(key);
+        cell.remove(id);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    private static long cellOf(double latitude, double longitude) {
+        return cellKey(row(latitude), column(longitude));
+    }
+
+    private static long cellKey(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    private static int row(double latitude) {
+        return (int) Math.floor(latitude / CELL_SIZE_DEGREES);
+    }
+
+    private static int column(double longitude) {
+        return (int) Math.floor(longitude / CELL_SIZE_DEGREES);
+    }
+}
@@ -0,0 +1,124 @@
+package org.marketplace.search;
+
+import org.marketplace.enums.AdvertisementSortField;
+import org.marketplace.requests.AdvertisementListing;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque position in a sorted advertisement listing. It remembers the sort key and the id
+ * of the last advertisement returned, so the next page starts right after it instead of
+ * skipping over an offset.
+ */
+public class AdvertisementSearchCursor {
+    private static final String SEPARATOR = "|";
+
+    private final AdvertisementSortField field;
+    private final Sort.Direction direction;
+    private final Long lastId;
+    private final String lastValue;
+
+    public AdvertisementSearchCursor(AdvertisementSortField field, Sort.Direction direction, Long lastId, String lastValue) {
+        this.field = field;
+        this.direction = direction;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    /**
+     * Creates a cursor pointing right after the given advertisement
+     * @param advertisement listing of the last advertisement of the current page
+     * @param sort sort the page was fetched with
+     * @return cursor for the next page
+     */
+    public static AdvertisementSearchCursor after(AdvertisementListing advertisement, AdvertisementSort sort) {
+        String value = switch (sort.getField()) {
+            case PRICE -> Double.toString(advertisement.getPrice());
+            case CREATED_AT -> advertisement.getCreatedAt().toString();
+            case ID -> advertisement.getId().toString();
+            case RELEVANCE -> throw new IllegalArgumentException("Relevance cursor has to be created from a search hit");
+        };
+
+        return new AdvertisementSearchCursor(sort.getField(), sort.getDirection(), advertisement.getId(), value);
+    }
+
+    /**
+     * Creates a relevance cursor pointing right after the given full-text hit
+     * @param hit last hit of the current page
+     * @return cursor for the next page
+     */
+    public static AdvertisementSearchCursor after(TextSearchHit hit) {
+        return new AdvertisementSearchCursor(AdvertisementSortField.RELEVANCE, AdvertisementSort.RELEVANCE.getDirection(),
+                hit.getAdvertisementId(), Double.toString(hit.getScore()));
+    }
+
+    /**
+     * Decodes a cursor previously returned by {@link #encode()}
+     * @param encoded encoded cursor
+     * @return decoded cursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static AdvertisementSearchCursor decode(String encoded) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\" + SEPARATOR, 4);
+            AdvertisementSortField field = AdvertisementSortField.valueOf(parts[0]);
+            Sort.Direction direction = Sort.Direction.valueOf(parts[1]);
+            AdvertisementSearchCursor cursor = new AdvertisementSearchCursor(field, direction, Long.valueOf(parts[2]), parts[3]);
+            cursor.getTypedValue();
+            return cursor;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor provided");
+        }
+    }
+
+    public String encode() {
+        String raw = field.name() + SEPARATOR + direction.name() + SEPARATOR + lastId + SEPARATOR + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return true if the cursor points after the given hit in relevance order
+     */
+    public boolean isBefore(TextSearchHit hit) {
+        double lastScore = (Double) getTypedValue();
+        return hit.getScore() < lastScore || (hit.getScore() == lastScore && hit.getAdvertisementId() > lastId);
+    }
+
+    /**
+     * @return true if the cursor was created for the given sort
+     */
+    public boolean matches(AdvertisementSort sort) {
+        return field == sort.getField() && direction == sort.getDirection();
+    }
+
+    /**
+     * @return last sort key converted to the type of the sorted attribute
+     */
+    public Comparable<?> getTypedValue() {
+        return switch (field) {
+            case PRICE, RELEVANCE -> Double.valueOf(lastValue);
+            case CREATED_AT -> LocalDateTime.parse(lastValue);
+            case ID -> Long.valueOf(lastValue);
+        };
+    }
+
+    public AdvertisementSortField getField() {
+        return field;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public String getLastValue() {
+        return lastValue;
+    }
+}
@@ -0,0 +1,125 @@
+package org.marketplace.search;
+
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.enums.AdvertisementTextField;
+import org.marketplace.models.Advertisement;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable copy of the searchable attributes of an advertisement, taken before the entity is modified,
+ * so search filters can be evaluated against both the old and the new state of a changed advertisement.
+ * The text is analyzed on first use and only once, however many filters are evaluated against the document.
+ */
+public class AdvertisementSearchDocument {
+    private final Long id;
+    private final Long categoryId;
+    private final double price;
+    private final LocalDateTime createdAt;
+    private final AdvertisementStatus status;
+    private final String title;
+    private final String description;
+    private final String location;
+    private final Double latitude;
+    private final Double longitude;
+    private Map<AdvertisementTextField, Set<String>> terms;
+    private Set<String> titleTrigrams;
+
+    public AdvertisementSearchDocument(Long id, Long categoryId, double price, LocalDateTime createdAt, AdvertisementStatus status, String title, String description, String location, Double latitude, Double longitude) {
+        this.id = id;
+        this.categoryId = categoryId;
+        this.price = price;
+        this.createdAt = createdAt;
+        this.status = status;
+        this.title = title;
+        this.description = description;
+        this.location = location;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    public static AdvertisementSearchDocument of(Advertisement advertisement) {
+        Long categoryId = advertisement.getCategory() == null ? null : advertisement.getCategory().getId();
+        return new AdvertisementSearchDocument(advertisement.getId(), categoryId, advertisement.getPrice(), advertisement.getCreatedAt(),
+                advertisement.getStatus(), advertisement.getTitle(), advertisement.getDescription(), advertisement.getLocation(),
+                advertisement.getLatitude(), advertisement.getLongitude());
+    }
+
+    /**
+     * @return copy of the document with another status, for changes written without loading the advertisement first
+     */
+    public AdvertisementSearchDocument withStatus(AdvertisementStatus status) {
+        return new AdvertisementSearchDocument(id, categoryId, price, createdAt, status, title, description, location, latitude, longitude);
+    }
+
+    public String getText(AdvertisementTextField field) {
+        return switch (field) {
+            case TITLE -> title;
+            case DESCRIPTION -> description;
+            case LOCATION -> location;
+        };
+    }
+
+    /**
+     * @return analyzed terms of the text field
+     */
+    public synchronized Set<String> getTerms(AdvertisementTextField field) {
+        if (terms == null) {
+            terms = new EnumMap<>(AdvertisementTextField.class);
+        }
+        return terms.computeIfAbsent(field, f -> Set.copyOf(TextAnalyzer.analyze(getText(f))));
+    }
+
+    /**
+     * @return trigrams of the title, for fuzzy title matching
+     */
+    public synchronized Set<String> getTitleTrigrams() {
+        if (titleTrigrams == null) {
+            titleTrigrams = TextAnalyzer.trigrams(title);
+        }
+        return titleTrigrams;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public AdvertisementStatus getStatus() {
+        return status;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+}
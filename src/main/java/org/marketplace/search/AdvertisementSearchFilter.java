@@ -0,0 +1,194 @@
+package org.marketplace.search;
+
+import org.marketplace.enums.AdvertisementTextField;
+import org.marketplace.enums.FuzzySearchMode;
+import org.marketplace.models.Advertisement;
+import org.marketplace.specifications.AdvertisementSpecification;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.*;
+
+/**
+ * Parsed advertisement search filter: structured predicates evaluated by the database,
+ * text clauses evaluated by the full-text index and an optional spatial clause evaluated by the spatial index.
+ */
+public class AdvertisementSearchFilter {
+    public static final String TEXT_PARAM = "q";
+    public static final String FUZZY_PARAM = "fuzzy";
+
+    private final List<AdvertisementSpecification> specifications;
+    private final List<TextQueryClause> textClauses;
+    private final GeoQueryClause geoClause;
+    private final FuzzySearchMode fuzzyMode;
+    // the fuzzy title query is analyzed once, not for every advertisement the filter is evaluated against
+    private final Set<String> textQueryTrigrams;
+
+    public AdvertisementSearchFilter(List<AdvertisementSpecification> specifications, List<TextQueryClause> textClauses, GeoQueryClause geoClause, FuzzySearchMode fuzzyMode) {
+        this.specifications = specifications;
+        this.textClauses = textClauses;
+        this.geoClause = geoClause;
+        this.fuzzyMode = fuzzyMode;
+        this.textQueryTrigrams = textClauses.isEmpty() || fuzzyMode == FuzzySearchMode.OFF || matchesNothing() ? Set.of() : TextAnalyzer.trigrams(getTextQuery());
+    }
+
+    /**
+     * Parses filter parameters. "q" searches all text fields, "title", "description" and "location" search
+     * a single text field, "fuzzy" (auto, true or false) controls typo-tolerant title matching,
+     * "near", "lat", "lon", "radiusKm" and "bbox" form the spatial clause,
+     * every other parameter becomes an {@link AdvertisementSpecification}. A blank text parameter is ignored,
+     * one that leaves no terms after analysis (e.g. "q=the") matches no advertisement.
+     * @param searchParams search parameters without paging parameters
+     * @param gazetteer place name lookup for the "near" parameter
+     * @return parsed filter
+     * @throws IllegalArgumentException if a structured or spatial parameter is invalid
+     */
+    public static AdvertisementSearchFilter fromSearchParams(Map<String, String> searchParams, Gazetteer gazetteer) {
+        List<AdvertisementSpecification> specifications = new ArrayList<>();
+        List<TextQueryClause> textClauses = new ArrayList<>();
+        Map<String, String> filters = new HashMap<>(searchParams);
+        GeoQueryClause geoClause = GeoQueryClause.fromSearchParams(filters, gazetteer);
+        FuzzySearchMode fuzzyMode = FuzzySearchMode.fromValue(filters.remove(FUZZY_PARAM));
+
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            Set<AdvertisementTextField> fields = null;
+            if (filter.getKey().equals(TEXT_PARAM)) {
+                fields = EnumSet.allOf(AdvertisementTextField.class);
+            } else if (AdvertisementTextField.fromAttribute(filter.getKey()) != null) {
+                fields = EnumSet.of(AdvertisementTextField.fromAttribute(filter.getKey()));
+            }
+
+            if (fields == null) {
+                specifications.add(AdvertisementSpecification.fromSearchParam(filter.getKey(), filter.getValue()));
+                continue;
+            }
+
+            if (filter.getValue() != null && !filter.getValue().isBlank()) {
+                textClauses.add(TextQueryClause.of(fields, filter.getValue()));
+            }
+        }
+
+        return new AdvertisementSearchFilter(specifications, textClauses, geoClause, fuzzyMode);
+    }
+
+    /**
+     * @return specification combining all structured predicates
+     */
+    public Specification<Advertisement> toSpecification() {
+        Specification<Advertisement> specification = Specification.where(null);
+        for (AdvertisementSpecification advertisementSpecification : specifications) {
+            specification = specification.and(advertisementSpecification);
+        }
+        return specification;
+    }
+
+    /**
+     * @param document searchable attributes of an advertisement
+     * @return true if the advertisement satisfies all structured predicates, all text clauses (or, unless fuzzy
+     * matching is off, has a title similar to the text query) and the spatial clause
+     */
+    public boolean matches(AdvertisementSearchDocument document) {
+        for (AdvertisementSpecification specification : specifications) {
+            if (!specification.matches(document)) {
+                return false;
+            }
+        }
+        if (!matchesText(document)) {
+            return false;
+        }
+        return geoClause == null || geoClause.matches(document.getLatitude(), document.getLongitude());
+    }
+
+    public boolean hasText() {
+        return !textClauses.isEmpty();
+    }
+
+    /**
+     * @return true if a text clause has no terms, e.g. it is made of stop words only, so no advertisement matches
+     */
+    public boolean matchesNothing() {
+        for (TextQueryClause clause : textClauses) {
+            if (clause.getTerms().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return text of all text clauses, used as the fuzzy title query
+     */
+    public String getTextQuery() {
+        StringJoiner text = new StringJoiner(" ");
+        for (TextQueryClause clause : textClauses) {
+            text.add(clause.getText());
+        }
+        return text.toString();
+    }
+
+    /**
+     * @param key structured attribute, e.g. "categoryId" or "status"
+     * @return values the equality and "in" predicates on the attribute restrict it to, as strings,
+     * null if the attribute is not restricted to a set of values
+     */
+    public Set<String> getAllowedValues(String key) {
+        Set<String> values = null;
+        for (AdvertisementSpecification specification : specifications) {
+            if (!specification.getKey().equals(key)) {
+                continue;
+            }
+            if (!specification.getOperation().equals(AdvertisementSpecification.EQUAL) && !specification.getOperation().equals(AdvertisementSpecification.IN)) {
+                continue;
+            }
+
+            Set<String> allowed = new HashSet<>();
+            for (Object value : specification.getValues()) {
+                allowed.add(value instanceof Enum<?> constant ? constant.name() : String.valueOf(value));
+            }
+            if (values == null) {
+                values = allowed;
+            } else {
+                values.retainAll(allowed);
+            }
+        }
+        return values;
+    }
+
+    public boolean hasGeo() {
+        return geoClause != null;
+    }
+
+    public List<AdvertisementSpecification> getSpecifications() {
+        return specifications;
+    }
+
+    public List<TextQueryClause> getTextClauses() {
+        return textClauses;
+    }
+
+    public GeoQueryClause getGeoClause() {
+        return geoClause;
+    }
+
+    public FuzzySearchMode getFuzzyMode() {
+        return fuzzyMode;
+    }
+
+    private boolean matchesText(AdvertisementSearchDocument document) {
+        if (matchesNothing()) {
+            return false;
+        }
+        boolean exact = true;
+        for (TextQueryClause clause : textClauses) {
+            if (!clause.matches(document)) {
+                exact = false;
+                break;
+            }
+        }
+        if (exact || fuzzyMode == FuzzySearchMode.OFF) {
+            return exact;
+        }
+
+        double similarity = TextAnalyzer.trigramSimilarity(textQueryTrigrams, document.getTitleTrigrams());
+        return similarity >= AdvertisementTrigramIndex.MIN_SIMILARITY;
+    }
+}
@@ -0,0 +1,82 @@
+package org.marketplace.search;
+
+import org.marketplace.enums.AdvertisementSortField;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Stable sort order for advertisement search. Every sort is completed with the
+ * advertisement id in the same direction, so the order is total and can be used as a keyset.
+ */
+public class AdvertisementSort {
+    public static final AdvertisementSort DEFAULT = new AdvertisementSort(AdvertisementSortField.ID, Sort.Direction.ASC);
+    public static final AdvertisementSort RELEVANCE = new AdvertisementSort(AdvertisementSortField.RELEVANCE, Sort.Direction.DESC);
+
+    private final AdvertisementSortField field;
+    private final Sort.Direction direction;
+
+    public AdvertisementSort(AdvertisementSortField field, Sort.Direction direction) {
+        this.field = field;
+        this.direction = direction;
+    }
+
+    /**
+     * Parses sort parameter in the form of "field" or "field,direction", e.g. "price,desc".
+     * Relevance is always sorted best match first.
+     * @param value sort parameter, may be null
+     * @return parsed sort or default sort (id ascending) if value is empty
+     * @throws IllegalArgumentException if the field or direction is not supported
+     */
+    public static AdvertisementSort parse(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT;
+        }
+
+        String[] parts = value.split(",");
+        AdvertisementSortField field = AdvertisementSortField.fromAttribute(parts[0].trim());
+        if (field == null || parts.length > 2) {
+            throw new IllegalArgumentException("Invalid sort provided: " + value);
+        }
+        if (field == AdvertisementSortField.RELEVANCE) {
+            return RELEVANCE;
+        }
+
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (parts.length == 2) {
+            direction = Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid sort direction provided: " + value));
+        }
+
+        return new AdvertisementSort(field, direction);
+    }
+
+    /**
+     * @return database sort order; relevance is not a column, so it has no database sort order
+     * @throws IllegalStateException for relevance sort
+     */
+    public Sort toSort() {
+        if (field == AdvertisementSortField.RELEVANCE) {
+            throw new IllegalStateException("Relevance sort cannot be applied to a database query");
+        }
+        if (field == AdvertisementSortField.ID) {
+            return Sort.by(direction, AdvertisementSortField.ID.getAttribute());
+        }
+
+        return Sort.by(direction, field.getAttribute()).and(Sort.by(direction, AdvertisementSortField.ID.getAttribute()));
+    }
+
+    public AdvertisementSortField getField() {
+        return field;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public boolean isRelevance() {
+        return field == AdvertisementSortField.RELEVANCE;
+    }
+
+    public boolean isAscending() {
+        return direction.isAscending();
+    }
+}
@@ -0,0 +1,383 @@
+package org.marketplace.search;
+
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.models.Advertisement;
+import org.marketplace.requests.AdvertisementSuggestion;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Title completions for the search box, kept in an in-memory radix trie (a trie whose single-child
+ * chains are collapsed into one edge). A title is reachable from its beginning and from the start of
+ * each of its next words, so "bike" completes "Mountain bike". Titles shared by many active advertisements
+ * rank first, equally popular titles are ordered by their newest advertisement. Every node remembers the
+ * best title below it, so the top completions are found best-first without visiting the whole subtree.
+ */
+@Component
+public class AdvertisementSuggestionIndex {
+    /**
+     * Number of word starts a title can be completed from, including the title start
+     */
+    static final int MAX_WORD_STARTS = 4;
+    private static final Comparator<Suggestion> BEST_FIRST = Comparator
+            .comparingInt(Suggestion::count).reversed()
+            .thenComparing(Comparator.comparingLong(Suggestion::latest).reversed())
+            .thenComparing(suggestion -> suggestion.key);
+
+    private final Node root = new Node("");
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+    private final Map<Long, String> documentKeys = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds the advertisement title to the trie, replacing its previous version if it was indexed before.
+     * Only active advertisements are suggested, others are removed.
+     * @param advertisement advertisement to index, must have an id
+     */
+    public void index(Advertisement advertisement) {
+        Long id = advertisement.getId();
+        if (id == null) {
+            return;
+        }
+
+        String key = keyOf(advertisement.getTitle());
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            if (key.isEmpty() || advertisement.getStatus() != AdvertisementStatus.ACTIVE) {
+                return;
+            }
+
+            long createdAt = advertisement.getCreatedAt() == null ? 0 : advertisement.getCreatedAt().toEpochSecond(ZoneOffset.UTC);
+            Suggestion suggestion = suggestions.get(key);
+            documentKeys.put(id, key);
+            if (suggestion == null) {
+                suggestion = new Suggestion(key);
+                suggestion.add(id, createdAt, advertisement.getTitle().trim());
+                suggestions.put(key, suggestion);
+                for (String entry : entriesOf(key)) {
+                    insert(entry, suggestion);
+                }
+            } else {
+                suggestion.add(id, createdAt, advertisement.getTitle().trim());
+                refresh(suggestion);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the advertisement from the trie
+     * @param id id of the advertisement
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the whole trie content
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root.children.clear();
+            root.terminals.clear();
+            root.best = null;
+            suggestions.clear();
+            documentKeys.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param prefix typed text, compared ignoring case and diacritics
+     * @param limit maximum number of completions
+     * @return best titles starting with the prefix or with a word starting with it
+     */
+    public List<AdvertisementSuggestion> suggest(String prefix, int limit) {
+        String normalizedPrefix = keyOf(prefix);
+        if (normalizedPrefix.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node start = locate(normalizedPrefix);
+            if (start == null) {
+                return List.of();
+            }
+
+            PriorityQueue<Object> queue = new PriorityQueue<>(Comparator.comparing(AdvertisementSuggestionIndex::weightOf, BEST_FIRST));
+            queue.add(start);
+            Set<Suggestion> found = new LinkedHashSet<>();
+            while (!queue.isEmpty() && found.size() < limit) {
+                Object next = queue.poll();
+                if (next instanceof Node node) {
+                    queue.addAll(node.terminals);
+                    queue.addAll(node.children.values());
+                } else {
+                    found.add((Suggestion) next);
+                }
+            }
+
+            List<AdvertisementSuggestion> result = new ArrayList<>(found.size());
+            for (Suggestion suggestion : found) {
+                result.add(new AdvertisementSuggestion(suggestion.title, suggestion.count()));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return suggestions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeDocument(Long id) {
+        String key = documentKeys.remove(id);
+        if (key == null) {
+            return;
+        }
+
+        Suggestion suggestion = suggestions.get(key);
+        suggestion.remove(id);
+        if (suggestion.count() > 0) {
+            refresh(suggestion);
+            return;
+        }
+
+        suggestions.remove(key);
+        for (String entry : entriesOf(key)) {
+            delete(entry, suggestion);
+        }
+    }
+
+    private void insert(String entry, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int position = 0;
+        while (position < entry.length()) {
+            Node child = node.children.get(entry.charAt(position));
+            if (child == null) {
+                child = new Node(entry.substring(position));
+                node.children.put(child.label.charAt(0), child);
+                position = entry.length();
+            } else {
+                int common = commonPrefixLength(child.label, entry, position);
+                if (common < child.label.length()) {
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.children.put(child.label.charAt(0), child);
+                    middle.best = child.best;
+                    node.children.put(middle.label.charAt(0), middle);
+                    child = middle;
+                }
+                position += common;
+            }
+            path.add(child);
+            node = child;
+        }
+
+        if (!node.terminals.contains(suggestion)) {
+            node.terminals.add(suggestion);
+        }
+        updateBest(path);
+    }
+
+    private void delete(String entry, Suggestion suggestion) {
+        List<Node> path = pathOf(entry);
+        if (path == null) {
+            return;
+        }
+
+        path.get(path.size() - 1).terminals.remove(suggestion);
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (!node.terminals.isEmpty()) {
+                continue;
+            }
+            if (node.children.isEmpty()) {
+                parent.children.remove(node.label.charAt(0));
+            } else if (node.children.size() == 1) {
+                Node child = node.children.values().iterator().next();
+                node.label = node.label + child.label;
+                node.children = child.children;
+                node.terminals = child.terminals;
+                node.best = child.best;
+            }
+        }
+        updateBest(path);
+    }
+
+    /**
+     * Recomputes the best title along all paths of a suggestion whose popularity changed
+     */
+    private void refresh(Suggestion suggestion) {
+        for (String entry : entriesOf(suggestion.key)) {
+            List<Node> path = pathOf(entry);
+            if (path != null) {
+                updateBest(path);
+            }
+        }
+    }
+
+    private static void updateBest(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Suggestion best = null;
+            for (Suggestion terminal : node.terminals) {
+                best = better(best, terminal);
+            }
+            for (Node child : node.children.values()) {
+                best = better(best, child.best);
+            }
+            node.best = best;
+        }
+    }
+
+    private List<Node> pathOf(String entry) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int position = 0;
+        while (position < entry.length()) {
+            Node child = node.children.get(entry.charAt(position));
+            if (child == null || !entry.startsWith(child.label, position)) {
+                return null;
+            }
+            position += child.label.length();
+            path.add(child);
+            node = child;
+        }
+        return path;
+    }
+
+    /**
+     * @return node whose subtree holds all entries starting with the prefix, null if there are none
+     */
+    private Node locate(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(position));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefixLength(child.label, prefix, position);
+            if (position + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            position += common;
+            node = child;
+        }
+        return node;
+    }
+
+    private static int commonPrefixLength(String label, String text, int offset) {
+        int length = 0;
+        while (length < label.length() && offset + length < text.length() && label.charAt(length) == text.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static Suggestion better(Suggestion first, Suggestion second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return BEST_FIRST.compare(first, second) <= 0 ? first : second;
+    }
+
+    private static Suggestion weightOf(Object element) {
+        return element instanceof Node node ? node.best : (Suggestion) element;
+    }
+
+    /**
+     * Normalized title: lowercase, without diacritics and with words separated by single spaces
+     */
+    static String keyOf(String text) {
+        if (text == null) {
+            return "";
+        }
+        return String.join(" ", TextAnalyzer.normalize(text).split("[^\\p{L}\\p{N}]+")).trim();
+    }
+
+    private static List<String> entriesOf(String key) {
+        List<String> entries = new ArrayList<>();
+        entries.add(key);
+        int start = key.indexOf(' ');
+        while (start >= 0 && entries.size() < MAX_WORD_STARTS) {
+            entries.add(key.substring(start + 1));
+            start = key.indexOf(' ', start + 1);
+        }
+        return entries;
+    }
+
+    private static class Node {
+        private String label;
+        private Map<Character, Node> children = new HashMap<>();
+        private List<Suggestion> terminals = new ArrayList<>(1);
+        private Suggestion best;
+
+        private Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static class Suggestion {
+        private final String key;
+        private final Map<Long, Long> createdAt = new HashMap<>();
+        private String title;
+        private long latest;
+
+        private Suggestion(String key) {
+            this.key = key;
+        }
+
+        private void add(Long id, long created, String title) {
+            createdAt.put(id, created);
+            if (created >= latest) {
+                latest = created;
+                this.title = title;
+            }
+        }
+
+        private void remove(Long id) {
+            createdAt.remove(id);
+            latest = createdAt.values().stream().mapToLong(Long::longValue).max().orElse(0);
+        }
+
+        private int count() {
+            return createdAt.size();
+        }
+
+        private long latest() {
+            return latest;
+        }
+    }
+}
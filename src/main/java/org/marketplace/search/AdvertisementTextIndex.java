@@ -0,0 +1,213 @@
+package org.marketplace.search;
+
+import org.marketplace.enums.AdvertisementTextField;
+import org.marketplace.models.Advertisement;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over advertisement title, description and location.
+ * Every term points to the advertisements containing it together with per-field term frequencies,
+ * which is enough to rank matches with BM25 without touching the database.
+ */
+@Component
+public class AdvertisementTextIndex {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final AdvertisementTextField[] FIELDS = AdvertisementTextField.values();
+
+    private final Map<String, Map<Long, int[]>> postings = new HashMap<>();
+    private final Map<Long, int[]> fieldLengths = new HashMap<>();
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+    private final long[] totalFieldLengths = new long[FIELDS.length];
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds the advertisement to the index, replacing its previous version if it was indexed before
+     * @param advertisement advertisement to index, must have an id
+     */
+    public void index(Advertisement advertisement) {
+        Long id = advertisement.getId();
+        if (id == null) {
+            return;
+        }
+
+        Map<String, int[]> frequencies = new HashMap<>();
+        int[] lengths = new int[FIELDS.length];
+        for (AdvertisementTextField field : FIELDS) {
+            List<String> terms = TextAnalyzer.analyze(textOf(advertisement, field));
+            lengths[field.ordinal()] = terms.size();
+            for (String term : terms) {
+                frequencies.computeIfAbsent(term, t -> new int[FIELDS.length])[field.ordinal()]++;
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            for (Map.Entry<String, int[]> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(id, entry.getValue());
+            }
+            fieldLengths.put(id, lengths);
+            documentTerms.put(id, frequencies.keySet());
+            for (int i = 0; i < FIELDS.length; i++) {
+                totalFieldLengths[i] += lengths[i];
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the advertisement from the index
+     * @param id id of the advertisement
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the whole index content
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            fieldLengths.clear();
+            documentTerms.clear();
+            Arrays.fill(totalFieldLengths, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds advertisements matching all clauses and ranks them with BM25
+     * @param clauses clauses that all have to match
+     * @return matching advertisements, best match first
+     */
+    public List<TextSearchHit> search(List<TextQueryClause> clauses) {
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = null;
+            for (TextQueryClause clause : clauses) {
+                if (clause.getTerms().isEmpty()) {
+                    return List.of();
+                }
+                for (String term : clause.getTerms()) {
+                    Set<Long> matching = matchingDocuments(term, clause.getFields());
+                    if (candidates == null) {
+                        candidates = matching;
+                    } else {
+                        candidates.retainAll(matching);
+                    }
+                    if (candidates.isEmpty()) {
+                        return List.of();
+                    }
+                }
+            }
+
+            if (candidates == null) {
+                return List.of();
+            }
+
+            List<TextSearchHit> hits = new ArrayList<>(candidates.size());
+            for (Long id : candidates) {
+                hits.add(new TextSearchHit(id, score(id, clauses)));
+            }
+            hits.sort(TextSearchHit.RANKING);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return fieldLengths.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Long> matchingDocuments(String term, Set<AdvertisementTextField> fields) {
+        Map<Long, int[]> termPostings = postings.get(term);
+        Set<Long> matching = new HashSet<>();
+        if (termPostings == null) {
+            return matching;
+        }
+
+        for (Map.Entry<Long, int[]> posting : termPostings.entrySet()) {
+            for (AdvertisementTextField field : fields) {
+                if (posting.getValue()[field.ordinal()] > 0) {
+                    matching.add(posting.getKey());
+                    break;
+                }
+            }
+        }
+        return matching;
+    }
+
+    private double score(Long id, List<TextQueryClause> clauses) {
+        int documentCount = fieldLengths.size();
+        int[] lengths = fieldLengths.get(id);
+        double score = 0;
+
+        for (TextQueryClause clause : clauses) {
+            for (String term : clause.getTerms()) {
+                Map<Long, int[]> termPostings = postings.get(term);
+                int documentFrequency = termPostings.size();
+                double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                int[] frequencies = termPostings.get(id);
+
+                for (AdvertisementTextField field : clause.getFields()) {
+                    int frequency = frequencies[field.ordinal()];
+                    if (frequency == 0) {
+                        continue;
+                    }
+                    double averageLength = (double) totalFieldLengths[field.ordinal()] / documentCount;
+                    double normalization = K1 * (1 - B + B * lengths[field.ordinal()] / averageLength);
+                    score += field.getWeight() * idf * frequency * (K1 + 1) / (frequency + normalization);
+                }
+            }
+        }
+        return score;
+    }
+
+    private void removeDocument(Long id) {
+        Set<String> terms = documentTerms.remove(id);
+        if (terms == null) {
+            return;
+        }
+
+        for (String term : terms) {
+            Map<Long, int[]> termPostings = postings.get(term);
+            termPostings.remove(id);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+
+        int[] lengths = fieldLengths.remove(id);
+        for (int i = 0; i < FIELDS.length; i++) {
+            totalFieldLengths[i] -= lengths[i];
+        }
+    }
+
+    private static String textOf(Advertisement advertisement, AdvertisementTextField field) {
+        return switch (field) {
+            case TITLE -> advertisement.getTitle();
+            case DESCRIPTION -> advertisement.getDescription();
+            case LOCATION -> advertisement.getLocation();
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package org.marketplace.search;
+
+import org.marketplace.models.Advertisement;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory character trigram index over advertisement titles, used to find titles similar to a
+ * misspelled query ("iphnoe" finds "iPhone"). Similarity is the share of query trigrams found in the title.
+ * Only the rarest query trigrams are used to collect candidates: a title sharing at least the required
+ * number of trigrams has to contain one of them, so frequent trigrams never have to be scanned.
+ */
+@Component
+public class AdvertisementTrigramIndex {
+    public static final double MIN_SIMILARITY = 0.4;
+
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<Long, Set<String>> documentTrigrams = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds the advertisement title to the index, replacing its previous version if it was indexed before
+     * @param advertisement advertisement to index, must have an id
+     */
+    public void index(Advertisement advertisement) {
+        Long id = advertisement.getId();
+        if (id == null) {
+            return;
+        }
+
+        Set<String> trigrams = TextAnalyzer.trigrams(advertisement.getTitle());
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            for (String trigram : trigrams) {
+                postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(id);
+            }
+            documentTrigrams.put(id, trigrams);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the advertisement from the index
+     * @param id id of the advertisement
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the whole index content
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTrigrams.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds titles similar to the query
+     * @param text query text
+     * @return advertisements with similarity of at least {@link #MIN_SIMILARITY}, most similar first
+     */
+    public List<TextSearchHit> search(String text) {
+        Set<String> queryTrigrams = TextAnalyzer.trigrams(text);
+        if (queryTrigrams.isEmpty()) {
+            return List.of();
+        }
+
+        int requiredShared = (int) Math.ceil(MIN_SIMILARITY * queryTrigrams.size());
+        lock.readLock().lock();
+        try {
+            List<Set<Long>> queryPostings = new ArrayList<>();
+            for (String trigram : queryTrigrams) {
+                queryPostings.add(postings.getOrDefault(trigram, Set.of()));
+            }
+            queryPostings.sort(Comparator.comparingInt(Set::size));
+
+            Set<Long> candidates = new HashSet<>();
+            for (Set<Long> posting : queryPostings.subList(0, queryTrigrams.size() - requiredShared + 1)) {
+                candidates.addAll(posting);
+            }
+
+            List<TextSearchHit> hits = new ArrayList<>();
+            for (Long id : candidates) {
+                double similarity = TextAnalyzer.trigramSimilarity(queryTrigrams, documentTrigrams.get(id));
+                if (similarity >= MIN_SIMILARITY) {
+                    hits.add(new TextSearchHit(id, similarity));
+                }
+            }
+            hits.sort(TextSearchHit.RANKING);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTrigrams.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeDocument(Long id) {
+        Set<String> trigrams = documentTrigrams.remove(id);
+        if (trigrams == null) {
+            return;
+        }
+
+        for (String trigram : trigrams) {
+            Set<Long> posting = postings.get(trigram);
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.marketplace.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Offline place name lookup backed by a bundled "name,latitude,longitude" file.
+ * Names are compared after {@link TextAnalyzer#normalize(String)}, so the lookup ignores case and diacritics.
+ */
+@Component
+public class Gazetteer {
+    private final Map<String, GeoPoint> places = new HashMap<>();
+
+    public Gazetteer(@Value("${search.gazetteer.resource:gazetteer.csv}") String resource) {
+        try (InputStream input = new ClassPathResource(resource).getInputStream()) {
+            load(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load gazetteer from " + resource, e);
+        }
+    }
+
+    /**
+     * Resolves a place name, e.g. "Kraków"
+     * @param name place name
+     * @return coordinates of the place or null if the place is unknown
+     */
+    public GeoPoint find(String name) {
+        if (name == null) {
+            return null;
+        }
+        return places.get(TextAnalyzer.normalize(name).trim());
+    }
+
+    /**
+     * Resolves a free-text advertisement location. The whole location is tried first, then every
+     * comma separated part of it, so "Kraków, Podgórze" and "Podgórze, Kraków" both resolve to Kraków.
+     * @param location location of an advertisement
+     * @return coordinates of the first known place or null if no part of the location is known
+     */
+    public GeoPoint resolve(String location) {
+        GeoPoint point = find(location);
+        if (point != null || location == null) {
+            return point;
+        }
+
+        for (String part : location.split("[,;/]")) {
+            point = find(part);
+            if (point != null) {
+                return point;
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return places.size();
+    }
+
+    private void load(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] columns = line.split(",");
+            if (columns.length != 3) {
+                throw new IllegalStateException(String.format("Invalid gazetteer entry in line %d: %s", lineNumber, line));
+            }
+            GeoPoint point = new GeoPoint(Double.parseDouble(columns[1].trim()), Double.parseDouble(columns[2].trim()));
+            places.put(TextAnalyzer.normalize(columns[0]).trim(), point);
+        }
+    }
+}
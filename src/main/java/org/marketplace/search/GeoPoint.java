@@ -0,0 +1,48 @@
+package org.marketplace.search;
+
+/**
+ * Point on the Earth surface in decimal degrees
+ */
+public class GeoPoint {
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final double latitude;
+    private final double longitude;
+
+    public GeoPoint(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException(String.format("Invalid coordinates provided: %s,%s", latitude, longitude));
+        }
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * @param other second point
+     * @return great-circle distance between the points in kilometers (haversine formula)
+     */
+    public double distanceKm(GeoPoint other) {
+        return distanceKm(other.latitude, other.longitude);
+    }
+
+    public double distanceKm(double otherLatitude, double otherLongitude) {
+        double latitudeDelta = Math.toRadians(otherLatitude - latitude);
+        double longitudeDelta = Math.toRadians(otherLongitude - longitude);
+        double a = Math.pow(Math.sin(latitudeDelta / 2), 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(otherLatitude)) * Math.pow(Math.sin(longitudeDelta / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public String toString() {
+        return latitude + "," + longitude;
+    }
+}
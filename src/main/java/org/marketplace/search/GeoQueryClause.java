@@ -0,0 +1,166 @@
+package org.marketplace.search;
+
+import java.util.Map;
+
+/**
+ * Spatial part of an advertisement search: either a circle around a point or a bounding box.
+ * A circle is also described by its bounding box, which the spatial index uses to pick grid cells.
+ */
+public class GeoQueryClause {
+    public static final String NEAR_PARAM = "near";
+    public static final String LATITUDE_PARAM = "lat";
+    public static final String LONGITUDE_PARAM = "lon";
+    public static final String RADIUS_PARAM = "radiusKm";
+    public static final String BOUNDING_BOX_PARAM = "bbox";
+    public static final double DEFAULT_RADIUS_KM = 10;
+    public static final double MAX_RADIUS_KM = 1000;
+    private static final double KM_PER_DEGREE = Math.PI * GeoPoint.EARTH_RADIUS_KM / 180;
+
+    private final GeoPoint center;
+    private final double radiusKm;
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double maxLatitude;
+    private final double maxLongitude;
+
+    private GeoQueryClause(GeoPoint center, double radiusKm, double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        this.center = center;
+        this.radiusKm = radiusKm;
+        this.minLatitude = minLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLatitude = maxLatitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    public static GeoQueryClause withinRadius(GeoPoint center, double radiusKm) {
+        if (radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+            throw new IllegalArgumentException(String.format("Radius must be greater than 0 and at most %s km", MAX_RADIUS_KM));
+        }
+
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        double minLatitude = Math.max(-90, center.getLatitude() - latitudeDelta);
+        double maxLatitude = Math.min(90, center.getLatitude() + latitudeDelta);
+        double widestLatitude = Math.max(Math.abs(minLatitude), Math.abs(maxLatitude));
+        if (widestLatitude >= 89.9) {
+            return new GeoQueryClause(center, radiusKm, minLatitude, -180, maxLatitude, 180);
+        }
+
+        double longitudeDelta = Math.min(180, latitudeDelta / Math.cos(Math.toRadians(widestLatitude)));
+        return new GeoQueryClause(center, radiusKm, minLatitude, Math.max(-180, center.getLongitude() - longitudeDelta),
+                maxLatitude, Math.min(180, center.getLongitude() + longitudeDelta));
+    }
+
+    public static GeoQueryClause withinBoundingBox(GeoPoint southWest, GeoPoint northEast) {
+        if (southWest.getLatitude() > northEast.getLatitude() || southWest.getLongitude() > northEast.getLongitude()) {
+            throw new IllegalArgumentException("Invalid bounding box provided: south-west corner has to come first");
+        }
+        return new GeoQueryClause(null, 0, southWest.getLatitude(), southWest.getLongitude(), northEast.getLatitude(), northEast.getLongitude());
+    }
+
+    /**
+     * Builds the spatial clause from search parameters: "near" (place name) or "lat" and "lon" with optional
+     * "radiusKm" (default 10), or "bbox" as "minLat,minLon,maxLat,maxLon". Recognized parameters are removed
+     * from the map.
+     * @param filters search parameters
+     * @param gazetteer place name lookup
+     * @return spatial clause or null if no spatial parameter was given
+     * @throws IllegalArgumentException if the parameters are invalid or the place is unknown
+     */
+    public static GeoQueryClause fromSearchParams(Map<String, String> filters, Gazetteer gazetteer) {
+        String near = filters.remove(NEAR_PARAM);
+        String latitude = filters.remove(LATITUDE_PARAM);
+        String longitude = filters.remove(LONGITUDE_PARAM);
+        String radius = filters.remove(RADIUS_PARAM);
+        String boundingBox = filters.remove(BOUNDING_BOX_PARAM);
+
+        if (boundingBox != null) {
+            if (near != null || latitude != null || longitude != null || radius != null) {
+                throw new IllegalArgumentException("Bounding box can not be combined with a radius search");
+            }
+            double[] corners = parseNumbers(boundingBox, 4, "Invalid bounding box provided: " + boundingBox);
+            return withinBoundingBox(new GeoPoint(corners[0], corners[1]), new GeoPoint(corners[2], corners[3]));
+        }
+
+        GeoPoint center;
+        if (near != null) {
+            if (latitude != null || longitude != null) {
+                throw new IllegalArgumentException("Place name can not be combined with coordinates");
+            }
+            center = gazetteer.find(near);
+            if (center == null) {
+                throw new IllegalArgumentException("Unknown place: " + near);
+            }
+        } else if (latitude != null || longitude != null) {
+            if (latitude == null || longitude == null) {
+                throw new IllegalArgumentException("Both lat and lon have to be provided");
+            }
+            double[] coordinates = parseNumbers(latitude + "," + longitude, 2, "Invalid coordinates provided: " + latitude + "," + longitude);
+            center = new GeoPoint(coordinates[0], coordinates[1]);
+        } else if (radius != null) {
+            throw new IllegalArgumentException("Radius requires near or lat and lon");
+        } else {
+            return null;
+        }
+
+        double radiusKm = radius == null ? DEFAULT_RADIUS_KM : parseNumbers(radius, 1, "Invalid radius provided: " + radius)[0];
+        return withinRadius(center, radiusKm);
+    }
+
+    /**
+     * @return true if the point lies inside the circle or the bounding box; false for a missing point
+     */
+    public boolean matches(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return false;
+        }
+        if (latitude < minLatitude || latitude > maxLatitude || longitude < minLongitude || longitude > maxLongitude) {
+            return false;
+        }
+        return center == null || center.distanceKm(latitude, longitude) <= radiusKm;
+    }
+
+    public boolean isRadius() {
+        return center != null;
+    }
+
+    public GeoPoint getCenter() {
+        return center;
+    }
+
+    public double getRadiusKm() {
+        return radiusKm;
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    private static double[] parseNumbers(String value, int count, String message) {
+        String[] parts = value.split(",");
+        if (parts.length != count) {
+            throw new IllegalArgumentException(message);
+        }
+
+        double[] numbers = new double[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                numbers[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(message);
+        }
+        return numbers;
+    }
+}
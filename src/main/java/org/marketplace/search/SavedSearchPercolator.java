@@ -0,0 +1,234 @@
+package org.marketplace.search;
+
+import org.marketplace.enums.AdvertisementTextField;
+import org.marketplace.specifications.AdvertisementSpecification;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reverse search: instead of running every saved search against a new advertisement, the saved searches
+ * themselves are indexed by category, status, one of their text terms and the price buckets their price
+ * interval overlaps. A new advertisement only looks up the few index entries for its own category, status,
+ * terms and price, and only the saved searches found there are evaluated in full.
+ * Text of a saved search is matched exactly, without typo tolerance.
+ */
+@Component
+public class SavedSearchPercolator {
+    static final double[] PRICE_BUCKET_BOUNDS = {10, 50, 100, 250, 500, 1000, 2500, 5000, 10_000, 50_000, 100_000};
+    private static final String ANY = "*";
+
+    private final Map<String, List<Set<Long>>> index = new HashMap<>();
+    private final Map<Long, Registration> registrations = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Parses the saved search parameters and indexes the search, replacing its previous version
+     * @param id id of the saved search
+     * @param searchParams search filter parameters, without paging parameters
+     * @param gazetteer place name lookup for the "near" parameter
+     * @throws IllegalArgumentException if the parameters are not a valid search filter
+     */
+    public void register(Long id, Map<String, String> searchParams, Gazetteer gazetteer) {
+        Map<String, String> exactParams = new HashMap<>(searchParams);
+        exactParams.put(AdvertisementSearchFilter.FUZZY_PARAM, "false");
+        AdvertisementSearchFilter filter = AdvertisementSearchFilter.fromSearchParams(exactParams, gazetteer);
+
+        List<String> keys = new ArrayList<>();
+        for (String category : valuesOf(filter, "categoryId")) {
+            for (String status : valuesOf(filter, "status")) {
+                keys.add(category + "|" + status + "|" + indexedTermOf(filter));
+            }
+        }
+        double[] priceInterval = priceIntervalOf(filter);
+        Registration registration = new Registration(filter, keys, bucketOf(priceInterval[0]), bucketOf(priceInterval[1]));
+
+        lock.writeLock().lock();
+        try {
+            removeRegistration(id);
+            for (String key : keys) {
+                List<Set<Long>> buckets = index.computeIfAbsent(key, k -> newBuckets());
+                for (int bucket = registration.fromBucket; bucket <= registration.toBucket; bucket++) {
+                    buckets.get(bucket).add(id);
+                }
+            }
+            registrations.put(id, registration);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the saved search from the index
+     * @param id id of the saved search
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeRegistration(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the whole index content
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            registrations.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param document searchable attributes of an advertisement
+     * @return ids of saved searches the advertisement matches, in id order
+     */
+    public List<Long> match(AdvertisementSearchDocument document) {
+        List<String> categories = List.of(String.valueOf(document.getCategoryId()), ANY);
+        List<String> statuses = List.of(String.valueOf(document.getStatus()), ANY);
+        Set<String> terms = new HashSet<>();
+        for (AdvertisementTextField field : AdvertisementTextField.values()) {
+            terms.addAll(document.getTerms(field));
+        }
+        terms.add(ANY);
+        int bucket = bucketOf(document.getPrice());
+
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = new HashSet<>();
+            for (String category : categories) {
+                for (String status : statuses) {
+                    for (String term : terms) {
+                        List<Set<Long>> buckets = index.get(category + "|" + status + "|" + term);
+                        if (buckets != null) {
+                            candidates.addAll(buckets.get(bucket));
+                        }
+                    }
+                }
+            }
+
+            List<Long> matching = new ArrayList<>();
+            for (Long id : candidates) {
+                if (registrations.get(id).filter.matches(document)) {
+                    matching.add(id);
+                }
+            }
+            Collections.sort(matching);
+            return matching;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return registrations.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeRegistration(Long id) {
+        Registration registration = registrations.remove(id);
+        if (registration == null) {
+            return;
+        }
+
+        for (String key : registration.keys) {
+            List<Set<Long>> buckets = index.get(key);
+            boolean empty = true;
+            for (Set<Long> bucket : buckets) {
+                bucket.remove(id);
+                empty &= bucket.isEmpty();
+            }
+            if (empty) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return values a saved search requires for an equality or "in" attribute, or "*" when the attribute is not restricted to a set of values
+     */
+    private static Set<String> valuesOf(AdvertisementSearchFilter filter, String key) {
+        Set<String> values = filter.getAllowedValues(key);
+        return values == null ? Set.of(ANY) : values;
+    }
+
+    /**
+     * Any term of a text clause is required, the longest one is the most selective guess
+     */
+    private static String indexedTermOf(AdvertisementSearchFilter filter) {
+        String indexedTerm = ANY;
+        for (TextQueryClause clause : filter.getTextClauses()) {
+            for (String term : clause.getTerms()) {
+                if (indexedTerm.equals(ANY) || term.length() > indexedTerm.length()) {
+                    indexedTerm = term;
+                }
+            }
+        }
+        return indexedTerm;
+    }
+
+    private static double[] priceIntervalOf(AdvertisementSearchFilter filter) {
+        double from = 0;
+        double to = Double.MAX_VALUE;
+        for (AdvertisementSpecification specification : filter.getSpecifications()) {
+            if (!specification.getKey().equals("price")) {
+                continue;
+            }
+
+            List<Object> values = specification.getValues();
+            switch (specification.getOperation()) {
+                case AdvertisementSpecification.EQUAL -> {
+                    from = Math.max(from, (Double) values.get(0));
+                    to = Math.min(to, (Double) values.get(0));
+                }
+                case AdvertisementSpecification.LESS_THAN -> to = Math.min(to, (Double) values.get(0));
+                case AdvertisementSpecification.GREATER_THAN -> from = Math.max(from, (Double) values.get(0));
+                case AdvertisementSpecification.BETWEEN -> {
+                    from = Math.max(from, (Double) values.get(0));
+                    to = Math.min(to, (Double) values.get(1));
+                }
+                default -> {
+                }
+            }
+        }
+        return new double[]{from, Math.max(from, to)};
+    }
+
+    private static int bucketOf(double price) {
+        int bucket = Arrays.binarySearch(PRICE_BUCKET_BOUNDS, price);
+        return bucket >= 0 ? bucket + 1 : -bucket - 1;
+    }
+
+    private static List<Set<Long>> newBuckets() {
+        List<Set<Long>> buckets = new ArrayList<>(PRICE_BUCKET_BOUNDS.length + 1);
+        for (int i = 0; i <= PRICE_BUCKET_BOUNDS.length; i++) {
+            buckets.add(new HashSet<>());
+        }
+        return buckets;
+    }
+
+    private static class Registration {
+        private final AdvertisementSearchFilter filter;
+        private final List<String> keys;
+        private final int fromBucket;
+        private final int toBucket;
+
+        private Registration(AdvertisementSearchFilter filter, List<String> keys, int fromBucket, int toBucket) {
+            this.filter = filter;
+            this.keys = keys;
+            this.fromBucket = fromBucket;
+            this.toBucket = toBucket;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.marketplace.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.marketplace.cache.BoundedCache;
+import org.marketplace.requests.AdvertisementPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of advertisement search pages keyed by the normalized search parameters.
+ * When an advertisement changes, only the entries whose filter matches its old or new state are dropped.
+ * Like saved searches in {@link SavedSearchPercolator}, cached searches are indexed by the categories and
+ * statuses their filter allows, so a change only evaluates the filters of searches for its own category
+ * and status, and does so without blocking lookups.
+ */
+@Component
+public class SearchResultCache implements MeterBinder {
+    private static final String ANY = "*";
+
+    private final BoundedCache<Map<String, String>, CachedSearch> cache;
+    private final AtomicLong invalidations = new AtomicLong();
+    // cached searches by "category|status"; entries evicted by the cache are pruned lazily
+    private final Map<String, Map<Map<String, String>, CachedSearch>> index = new HashMap<>();
+    private final Map<Map<String, String>, CachedSearch> indexed = new HashMap<>();
+    private final int maximumSize;
+
+    public SearchResultCache(@Value("${search.cache.max-entries:10000}") int maximumSize,
+                             @Value("${search.cache.ttl-seconds:60}") long timeToLiveSeconds) {
+        this.cache = new BoundedCache<>(maximumSize, timeToLiveSeconds, TimeUnit.SECONDS);
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Normalizes search parameters so that equivalent searches share a cache entry
+     * @param searchParams raw search parameters
+     * @return immutable map of trimmed parameter names and values
+     */
+    public static Map<String, String> normalize(Map<String, String> searchParams) {
+        Map<String, String> normalized = new HashMap<>();
+        for (Map.Entry<String, String> searchParam : searchParams.entrySet()) {
+            String value = searchParam.getValue() == null ? "" : searchParam.getValue().trim();
+            normalized.put(searchParam.getKey().trim(), value);
+        }
+        return Map.copyOf(normalized);
+    }
+
+    public AdvertisementPage get(Map<String, String> key) {
+        CachedSearch cachedSearch = cache.get(key);
+        return cachedSearch == null ? null : cachedSearch.page;
+    }
+
+    /**
+     * @return marker to be passed to {@link #put(Map, AdvertisementSearchFilter, AdvertisementPage, long)}
+     * after the search is computed
+     */
+    public long currentVersion() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches a search page, unless an advertisement changed while it was computed
+     * @param key normalized search parameters
+     * @param filter filter of the search, used for invalidation
+     * @param page search result
+     * @param version value of {@link #currentVersion()} taken before the search was started
+     */
+    public synchronized void put(Map<String, String> key, AdvertisementSearchFilter filter, AdvertisementPage page, long version) {
+        if (invalidations.get() != version) {
+            return;
+        }
+
+        CachedSearch cachedSearch = new CachedSearch(key, filter, page);
+        cache.put(key, cachedSearch);
+        removeFromIndex(key);
+        for (String indexKey : cachedSearch.indexKeys) {
+            index.computeIfAbsent(indexKey, k -> new HashMap<>()).put(key, cachedSearch);
+        }
+        indexed.put(key, cachedSearch);
+        if (indexed.size() > 2 * maximumSize) {
+            pruneIndex();
+        }
+    }
+
+    /**
+     * Drops the cached searches that could contain the advertisement in any of the given states. Each state
+     * is analyzed once, and only searches for its category and status are evaluated, outside the cache lock.
+     * @param states old and/or new state of a changed advertisement; null states are skipped
+     */
+    public void invalidate(AdvertisementSearchDocument... states) {
+        Collection<CachedSearch> candidates;
+        synchronized (this) {
+            // searches started before this point are not cached anymore, later ones see the change
+            invalidations.incrementAndGet();
+            candidates = candidatesOf(states);
+        }
+
+        for (CachedSearch candidate : candidates) {
+            for (AdvertisementSearchDocument state : states) {
+                if (state != null && candidate.filter.matches(state)) {
+                    remove(candidate.key);
+                    break;
+                }
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+        index.clear();
+        indexed.clear();
+    }
+
+    public BoundedCache<Map<String, String>, CachedSearch> getCache() {
+        return cache;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        cache.registerMetrics(registry, "advertisementSearch");
+    }
+
+    private Collection<CachedSearch> candidatesOf(AdvertisementSearchDocument... states) {
+        Map<Map<String, String>, CachedSearch> candidates = new HashMap<>();
+        for (AdvertisementSearchDocument state : states) {
+            if (state == null) {
+                continue;
+            }
+            for (String category : List.of(String.valueOf(state.getCategoryId()), ANY)) {
+                for (String status : List.of(String.valueOf(state.getStatus()), ANY)) {
+                    Map<Map<String, String>, CachedSearch> cachedSearches = index.get(category + "|" + status);
+                    if (cachedSearches != null) {
+                        candidates.putAll(cachedSearches);
+                    }
+                }
+            }
+        }
+        return candidates.values();
+    }
+
+    private synchronized void remove(Map<String, String> key) {
+        cache.invalidate(key);
+        removeFromIndex(key);
+    }
+
+    private void removeFromIndex(Map<String, String> key) {
+        CachedSearch cachedSearch = indexed.remove(key);
+        if (cachedSearch == null) {
+            return;
+        }
+
+        for (String indexKey : cachedSearch.indexKeys) {
+            Map<Map<String, String>, CachedSearch> cachedSearches = index.get(indexKey);
+            cachedSearches.remove(key);
+            if (cachedSearches.isEmpty()) {
+                index.remove(indexKey);
+            }
+        }
+    }
+
+    /**
+     * Removes searches the cache has evicted or expired from the index
+     */
+    private void pruneIndex() {
+        for (Map<String, String> key : List.copyOf(indexed.keySet())) {
+            if (!cache.containsKey(key)) {
+                removeFromIndex(key);
+            }
+        }
+    }
+
+    /**
+     * @return "*" if the filter does not restrict the attribute to a set of values
+     */
+    private static Set<String> valuesOf(AdvertisementSearchFilter filter, String key) {
+        Set<String> values = filter.getAllowedValues(key);
+        return values == null ? Set.of(ANY) : values;
+    }
+
+    public static class CachedSearch {
+        private final Map<String, String> key;
+        private final AdvertisementSearchFilter filter;
+        private final AdvertisementPage page;
+        private final List<String> indexKeys = new ArrayList<>();
+
+        private CachedSearch(Map<String, String> key, AdvertisementSearchFilter filter, AdvertisementPage page) {
+            this.key = key;
+            this.filter = filter;
+            this.page = page;
+            for (String category : valuesOf(filter, "categoryId")) {
+                for (String status : valuesOf(filter, "status")) {
+                    indexKeys.add(category + "|" + status);
+                }
+            }
+        }
+    }
+}
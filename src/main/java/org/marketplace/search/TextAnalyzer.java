@@ -0,0 +1,121 @@
+package org.marketplace.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns free text into index terms: lowercases, strips diacritics, splits on anything
+ * that is not a letter or digit, drops stop words and applies a light suffix stemmer.
+ * The same analyzer has to be used for indexing and for queries.
+ */
+public final class TextAnalyzer {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "to", "with", "i", "w", "z", "na", "do"
+    );
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * @param text text to analyze, may be null
+     * @return terms in order of appearance, duplicates included
+     */
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+
+        for (String token : NON_ALPHANUMERIC.split(normalize(text))) {
+            if (token.isEmpty() || STOP_WORDS.contains(token)) {
+                continue;
+            }
+            terms.add(stem(token));
+        }
+
+        return terms;
+    }
+
+    /**
+     * Lowercases the text and removes diacritics, e.g. "Kraków" becomes "krakow"
+     */
+    public static String normalize(String text) {
+        String lowerCase = text.toLowerCase(Locale.ROOT).replace('ł', 'l');
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lowerCase, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /**
+     * Splits the text into character trigrams of its normalized words. Every word is padded with two
+     * spaces in front and one at the end, so "bike" gives "  b", " bi", "bik", "ike" and "ke ".
+     * Stop words are kept and no stemming is applied, since trigrams are used to compare misspelled words.
+     * @param text text to split, may be null
+     * @return distinct trigrams
+     */
+    public static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        if (text == null || text.isBlank()) {
+            return trigrams;
+        }
+
+        for (String token : NON_ALPHANUMERIC.split(normalize(text))) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + token + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+
+    /**
+     * Share of the query trigrams that also occur in the text, between 0 and 1
+     * @param queryTrigrams trigrams of the query
+     * @param textTrigrams trigrams of the compared text
+     */
+    public static double trigramSimilarity(Set<String> queryTrigrams, Set<String> textTrigrams) {
+        if (queryTrigrams.isEmpty()) {
+            return 0;
+        }
+
+        int shared = 0;
+        for (String trigram : queryTrigrams) {
+            if (textTrigrams.contains(trigram)) {
+                shared++;
+            }
+        }
+        return (double) shared / queryTrigrams.size();
+    }
+
+    static String stem(String token) {
+        if (token.endsWith("ies") && token.length() - 3 >= MIN_STEM_LENGTH - 1) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.endsWith("sses")) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("ing") && token.length() - 3 >= MIN_STEM_LENGTH + 1) {
+            return token.substring(0, token.length() - 3);
+        }
+        if (token.endsWith("ed") && token.length() - 2 >= MIN_STEM_LENGTH + 1) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("es") && (token.endsWith("ches") || token.endsWith("shes") || token.endsWith("xes"))) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us") && token.length() - 1 >= MIN_STEM_LENGTH) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+}
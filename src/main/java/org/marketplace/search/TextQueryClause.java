@@ -0,0 +1,66 @@
+package org.marketplace.search;
+
+import org.marketplace.enums.AdvertisementTextField;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Group of analyzed terms that all have to occur in at least one of the given fields.
+ */
+public class TextQueryClause {
+    private final Set<AdvertisementTextField> fields;
+    private final List<String> terms;
+    private final String text;
+
+    public TextQueryClause(Set<AdvertisementTextField> fields, List<String> terms, String text) {
+        this.fields = fields;
+        this.terms = terms;
+        this.text = text;
+    }
+
+    public static TextQueryClause of(Set<AdvertisementTextField> fields, String text) {
+        return new TextQueryClause(fields, TextAnalyzer.analyze(text), text);
+    }
+
+    /**
+     * @param document searchable attributes of an advertisement
+     * @return true if every term of the clause occurs in one of the clause fields of the advertisement,
+     * false if the clause has no terms
+     */
+    public boolean matches(AdvertisementSearchDocument document) {
+        if (terms.isEmpty()) {
+            return false;
+        }
+        for (String term : terms) {
+            if (!occursIn(term, document)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean occursIn(String term, AdvertisementSearchDocument document) {
+        for (AdvertisementTextField field : fields) {
+            if (document.getTerms(field).contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Set<AdvertisementTextField> getFields() {
+        return fields;
+    }
+
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    /**
+     * @return query text as typed by the user, before analysis
+     */
+    public String getText() {
+        return text;
+    }
+}
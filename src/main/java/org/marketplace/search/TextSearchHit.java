@@ -0,0 +1,28 @@
+package org.marketplace.search;
+
+import java.util.Comparator;
+
+public class TextSearchHit {
+    /**
+     * Best match first; equal scores are ordered by id so the ranking is total and can be paged with a cursor
+     */
+    public static final Comparator<TextSearchHit> RANKING = Comparator
+            .comparingDouble(TextSearchHit::getScore).reversed()
+            .thenComparing(TextSearchHit::getAdvertisementId);
+
+    private final Long advertisementId;
+    private final double score;
+
+    public TextSearchHit(Long advertisementId, double score) {
+        this.advertisementId = advertisementId;
+        this.score = score;
+    }
+
+    public Long getAdvertisementId() {
+        return advertisementId;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
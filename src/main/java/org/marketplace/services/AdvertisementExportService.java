@@ -0,0 +1,51 @@
+package org.marketplace.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.requests.AdvertisementExportRow;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class AdvertisementExportService {
+    private static final byte NEW_LINE = '\n';
+
+    private final AdvertisementManagementRepository advertisementManagementRepository;
+    private final ObjectWriter rowWriter;
+
+    public AdvertisementExportService(AdvertisementManagementRepository advertisementManagementRepository, ObjectMapper objectMapper) {
+        this.advertisementManagementRepository = advertisementManagementRepository;
+        this.rowWriter = objectMapper.writerFor(AdvertisementExportRow.class);
+    }
+
+    /**
+     * Writes all advertisements as newline delimited JSON, one object per line. Rows are read through a
+     * forward-only database stream and written one at a time, so memory use does not depend on the table size.
+     * The output is flushed after every fetched chunk.
+     * @param outputStream stream to write to, left open
+     * @return number of exported advertisements
+     * @throws IOException if writing to the stream fails
+     */
+    @Transactional(readOnly = true)
+    public long exportAdvertisements(OutputStream outputStream) throws IOException {
+        long count = 0;
+        try (Stream<AdvertisementExportRow> rows = advertisementManagementRepository.streamAllForExport()) {
+            Iterator<AdvertisementExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                outputStream.write(rowWriter.writeValueAsBytes(iterator.next()));
+                outputStream.write(NEW_LINE);
+                if (++count % AdvertisementManagementRepository.EXPORT_FETCH_SIZE == 0) {
+                    outputStream.flush();
+                }
+            }
+        }
+        outputStream.flush();
+        return count;
+    }
+}
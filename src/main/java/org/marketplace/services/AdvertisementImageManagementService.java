@@ -2,6 +2,7 @@ package org.marketplace.services;
 
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
+import org.marketplace.cache.ResourceOwnerCache;
 import org.marketplace.models.AdvertisementImage;
 import org.marketplace.repositories.AdvertisementImageManagementRepository;
 import org.marketplace.repositories.AdvertisementManagementRepository;
@@ -16,9 +17,12 @@ public class AdvertisementImageManagementService {
 
     private final AdvertisementManagementRepository advertisementManagementRepository;
 
-    public AdvertisementImageManagementService(AdvertisementImageManagementRepository advertisementImageManagementRepository, AdvertisementManagementRepository advertisementManagementRepository) {
+    private final ResourceOwnerCache resourceOwnerCache;
+
+    public AdvertisementImageManagementService(AdvertisementImageManagementRepository advertisementImageManagementRepository, AdvertisementManagementRepository advertisementManagementRepository, ResourceOwnerCache resourceOwnerCache) {
         this.advertisementImageManagementRepository = advertisementImageManagementRepository;
         this.advertisementManagementRepository = advertisementManagementRepository;
+        this.resourceOwnerCache = resourceOwnerCache;
     }
 
 
@@ -46,7 +50,12 @@ public class AdvertisementImageManagementService {
 
     public AdvertisementImage updateAdvertisementImage(AdvertisementImage advertisementImage) {
         return advertisementImageManagementRepository.findById(advertisementImage.getId())
-                .map(c -> advertisementImageManagementRepository.save(advertisementImage))
+                .map(c -> {
+                    AdvertisementImage saved = advertisementImageManagementRepository.save(advertisementImage);
+                    // the image may be moved to another advertisement
+                    resourceOwnerCache.invalidateImage(advertisementImage.getId());
+                    return saved;
+                })
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Advertisement image with id: %d was not found", advertisementImage.getId())));
     }
 
@@ -56,6 +65,7 @@ public class AdvertisementImageManagementService {
         }
 
         advertisementImageManagementRepository.deleteById(id);
+        resourceOwnerCache.invalidateImage(id);
     }
 
     public List<AdvertisementImage> getAllAdvertisementImages(Long advertisementId) {
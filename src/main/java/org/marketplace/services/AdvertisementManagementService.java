@@ -2,17 +2,30 @@ package org.marketplace.services;
 
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
+import org.marketplace.cache.AdvertisementCache;
+import org.marketplace.cache.ResourceOwnerCache;
 import org.marketplace.enums.AdvertisementStatus;
 import org.marketplace.models.Advertisement;
+import org.marketplace.models.AdvertisementTombstone;
 import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.repositories.AdvertisementObserverRepository;
+import org.marketplace.repositories.AdvertisementTombstoneRepository;
 import org.marketplace.repositories.CategoryManagementRepository;
 import org.marketplace.repositories.UserManagementRepository;
+import org.marketplace.requests.AdvertisementListing;
+import org.marketplace.requests.AdvertisementNotAvailableException;
+import org.marketplace.requests.AdvertisementPage;
+import org.marketplace.requests.AdvertisementSuggestion;
+import org.marketplace.requests.ResourceVersion;
 import org.marketplace.requests.UserNotFoundException;
-import org.marketplace.specifications.AdvertisementSpecification;
+import org.marketplace.search.AdvertisementSearchDocument;
+import org.marketplace.search.Gazetteer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -20,20 +33,37 @@ import java.util.Optional;
 @Service
 public class AdvertisementManagementService {
     private final AdvertisementManagementRepository advertisementManagementRepository;
+    private final AdvertisementObserverRepository advertisementObserverRepository;
     private final UserManagementRepository userManagementRepository;
 
     private final CategoryManagementRepository categoryManagementRepository;
+    private final AdvertisementSearchService advertisementSearchService;
+    private final Gazetteer gazetteer;
+    private final SavedSearchManagementService savedSearchManagementService;
+    private final ObserverNotificationService observerNotificationService;
+    private final ResourceOwnerCache resourceOwnerCache;
+    private final AdvertisementCache advertisementCache;
+    private final AdvertisementTombstoneRepository advertisementTombstoneRepository;
     @Autowired
     EmailService emailService;
 
 
-    public AdvertisementManagementService(AdvertisementManagementRepository advertisementManagementRepository, EmailService emailService, UserManagementRepository userManagementRepository, CategoryManagementRepository categoryManagementRepository) {
+    public AdvertisementManagementService(AdvertisementManagementRepository advertisementManagementRepository, EmailService emailService, UserManagementRepository userManagementRepository, CategoryManagementRepository categoryManagementRepository, AdvertisementSearchService advertisementSearchService, Gazetteer gazetteer, SavedSearchManagementService savedSearchManagementService, AdvertisementObserverRepository advertisementObserverRepository, ObserverNotificationService observerNotificationService, ResourceOwnerCache resourceOwnerCache, AdvertisementCache advertisementCache, AdvertisementTombstoneRepository advertisementTombstoneRepository) {
         this.advertisementManagementRepository = advertisementManagementRepository;
+        this.advertisementObserverRepository = advertisementObserverRepository;
         this.emailService = emailService;
         this.userManagementRepository = userManagementRepository;
         this.categoryManagementRepository = categoryManagementRepository;
+        this.advertisementSearchService = advertisementSearchService;
+        this.gazetteer = gazetteer;
+        this.savedSearchManagementService = savedSearchManagementService;
+        this.observerNotificationService = observerNotificationService;
+        this.resourceOwnerCache = resourceOwnerCache;
+        this.advertisementCache = advertisementCache;
+        this.advertisementTombstoneRepository = advertisementTombstoneRepository;
     }
 
+    @Transactional
     public Advertisement addAdvertisement(Advertisement advertisement) {
         Long advertisementId = advertisement.getId();
         if (advertisement.getUser() == null)
@@ -46,117 +76,229 @@ public class AdvertisementManagementService {
             throw new UserNotFoundException(String.format("User with id: %d not exists!", userId));
         if (!categoryManagementRepository.existsById(categoryId))
             throw new EntityNotFoundException(String.format("Category with id: %d not exists!", categoryId));
-        if (advertisementId == null)
-            return advertisementManagementRepository.save(advertisement);
-        try {
-            getAdvertisementById(advertisementId);
-            throw new EntityExistsException(String.format("Advertisement with id: %d already exists!", advertisementId));
-        } catch (EntityNotFoundException e) {
-            return advertisementManagementRepository.save(advertisement);
+        if (advertisementId != null) {
+            try {
+                loadAdvertisement(advertisementId);
+                throw new EntityExistsException(String.format("Advertisement with id: %d already exists!", advertisementId));
+            } catch (EntityNotFoundException ignored) {
+            }
         }
+
+        Advertisement saved = saveAndIndex(null, advertisement);
+        savedSearchManagementService.notifyMatchingSavedSearches(saved);
+        return saved;
     }
 
+    @Transactional
     public Advertisement updateAdvertisement(Advertisement advertisement) {
         try {
-            Advertisement ad = getAdvertisementById(advertisement.getId());
+            Advertisement ad = loadAdvertisement(advertisement.getId());
+            AdvertisementSearchDocument previous = AdvertisementSearchDocument.of(ad);
             if (ad.getPrice() != advertisement.getPrice()) {
-                emailService.sendEmailToObservers(ad.getObservers(), advertisement.getPrice(), advertisement.getTitle());
+                observerNotificationService.recordPriceChange(ad.getId(), advertisement.getTitle(), advertisement.getPrice());
             }
+            // the request may assign the advertisement to another user
+            resourceOwnerCache.invalidateAdvertisement(ad.getId());
 
-            return advertisementManagementRepository.save(advertisement);
+            return saveAndIndex(previous, advertisement);
         } catch (EntityNotFoundException e) {
             throw new EntityNotFoundException(String.format("Advertisement with id: %d was not found", advertisement.getId()));
         }
     }
 
+    @Transactional
     public void deleteAdvertisement(Long id) {
         if (!advertisementManagementRepository.existsById(id)) {
             throw new EntityNotFoundException(String.format("Advertisement with id: %d was not found", id));
         }
 
-        Advertisement ad = getAdvertisementById(id);
-        emailService.sendEmailToObservers(ad.getObservers(), AdvertisementStatus.DELETED, ad.getTitle());
+        Advertisement ad = loadAdvertisement(id);
+        observerNotificationService.recordStatusChange(id, ad.getTitle(), AdvertisementStatus.DELETED);
+        advertisementObserverRepository.deleteAllByAdvertisementId(id);
         advertisementManagementRepository.deleteById(id);
+        // clients synchronizing changes learn about the deletion from the tombstone
+        advertisementTombstoneRepository.save(new AdvertisementTombstone(id, LocalDateTime.now()));
+        resourceOwnerCache.invalidateAdvertisement(id);
+        advertisementCache.invalidate(id);
+        advertisementSearchService.onAdvertisementDeleted(AdvertisementSearchDocument.of(ad));
     }
 
-    public List<Advertisement> getAllAdvertisements() {
-        return advertisementManagementRepository.findAll();
+    public List<AdvertisementListing> getAllAdvertisements() {
+        return advertisementManagementRepository.findAllListings();
     }
 
+    /**
+     * Reads the advertisement through the advertisement cache, the result is shared and must not be modified
+     * @param id id of the advertisement
+     * @return advertisement
+     * @throws EntityNotFoundException if the advertisement does not exist
+     */
     public Advertisement getAdvertisementById(Long id) {
-        Optional<Advertisement> advertisement = advertisementManagementRepository.findById(id);
-        if (advertisement.isEmpty()) {
-            throw new EntityNotFoundException(String.format("Advertisement with id: %d was not found", id));
-        }
+        return advertisementCache.get(id)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Advertisement with id: %d was not found", id)));
+    }
 
-        return advertisement.get();
+    /**
+     * Reads the version of the advertisement for conditional requests, from the cached advertisement or with
+     * a single-column query, without loading the advertisement. The embedded category and owner are part of
+     * the representation, so the version is the last change of any of the three.
+     * @param id id of the advertisement
+     * @return version of the advertisement
+     * @throws EntityNotFoundException if the advertisement does not exist
+     */
+    public ResourceVersion getAdvertisementVersion(Long id) {
+        Optional<Advertisement> cached = advertisementCache.getIfPresent(id);
+        Optional<LocalDateTime> lastModified = cached != null
+                ? cached.map(AdvertisementManagementService::getLastModified)
+                : advertisementManagementRepository.findLastModifiedById(id);
+        return lastModified.map(ResourceVersion::of)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Advertisement with id: %d was not found", id)));
     }
 
-    public List<Advertisement> getAdvertisementsByUser(Long id) {
-        return advertisementManagementRepository.findByUser_Id(id);
+    public List<AdvertisementListing> getAdvertisementsByUser(Long id) {
+        return advertisementManagementRepository.findListingsByUserId(id);
     }
 
-    public List<Advertisement> getAdvertisementsByCategory(Long id) {
-        return advertisementManagementRepository.findByCategory_Id(id);
+    public List<AdvertisementListing> getAdvertisementsByCategory(Long id) {
+        return advertisementManagementRepository.findListingsByCategoryId(id);
     }
 
+    /**
+     * Buys an active advertisement. The status is checked and changed by a single conditional update, so when many
+     * users buy the same advertisement at once exactly one of them succeeds and the others fail fast without retries.
+     * Only the successful purchase notifies the owner and the observers.
+     * @param id id of the advertisement
+     * @param currentUserId id of the buyer
+     * @return bought advertisement
+     * @throws EntityNotFoundException if the advertisement does not exist
+     * @throws AdvertisementNotAvailableException if the advertisement is not active, e.g. it was bought already
+     */
+    @Transactional
     public Advertisement buyAdvertisement(Long id, Long currentUserId) {
-        Advertisement ad = getAdvertisementById(id);
+        if (advertisementManagementRepository.markBought(id, currentUserId, LocalDateTime.now()) == 0) {
+            if (!advertisementManagementRepository.existsById(id)) {
+                throw new EntityNotFoundException(String.format("Advertisement with id: %d was not found", id));
+            }
+            throw new AdvertisementNotAvailableException(String.format("Advertisement with id: %d is not available for sale", id));
+        }
+
+        advertisementCache.invalidate(id);
+        // loaded after the update, so it is already bought, and only the winner of a contended purchase gets here
+        Advertisement ad = loadAdvertisement(id);
         ad.setStatus(AdvertisementStatus.BOUGHT);
         ad.setBuyerId(currentUserId);
 
         emailService.sendEmailToOwner(ad.getUser(), ad, ad.getUser().getEmail());
-        emailService.sendEmailToObservers(ad.getObservers(), AdvertisementStatus.BOUGHT, ad.getTitle());
+        observerNotificationService.recordStatusChange(id, ad.getTitle(), AdvertisementStatus.BOUGHT);
+        advertisementSearchService.onAdvertisementSaved(AdvertisementSearchDocument.of(ad).withStatus(AdvertisementStatus.ACTIVE), ad);
 
-        return advertisementManagementRepository.save(ad);
+        return ad;
     }
 
-    public Advertisement observeAdvertisement(Long id, String email) {
-        Advertisement ad = getAdvertisementById(id);
-        if (ad.getObservers() == null) {
-            ad.setObservers(List.of());
+    /**
+     * Subscribes the email to changes of the advertisement with a single insert, without loading the advertisement
+     * @param id id of the advertisement
+     * @param email email of the observer
+     * @throws EntityNotFoundException if the advertisement does not exist
+     * @throws EntityExistsException if the email already observes the advertisement
+     */
+    public void observeAdvertisement(Long id, String email) {
+        int inserted;
+        try {
+            inserted = advertisementObserverRepository.insertIfAbsent(id, email);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request inserted the same subscription first
+            inserted = 0;
         }
 
-        List<String> currentObservers = ad.getObservers();
-
-        if (currentObservers.contains(email)) {
+        if (inserted == 0) {
+            if (!advertisementManagementRepository.existsById(id)) {
+                throw new EntityNotFoundException(String.format("Advertisement with id: %d was not found", id));
+            }
             throw new EntityExistsException(String.format("User with email: %s already observes the advertisement with id: %d", email, id));
         }
-
-        ad.getObservers().add(email);
-        return advertisementManagementRepository.save(ad);
     }
 
-    public Advertisement unobserveAdvertisement(Long id, String email) {
-        Advertisement ad = getAdvertisementById(id);
-        List<String> currentObservers = ad.getObservers();
-
-        if (!currentObservers.contains(email)) {
+    /**
+     * Removes the subscription of the email with a single delete, without loading the advertisement
+     * @param id id of the advertisement
+     * @param email email of the observer
+     * @throws EntityNotFoundException if the email does not observe the advertisement
+     */
+    public void unobserveAdvertisement(Long id, String email) {
+        if (advertisementObserverRepository.deleteByAdvertisementIdAndEmail(id, email) == 0) {
             throw new EntityNotFoundException(String.format("User with email: %s does not observe the advertisement with id: %d", email, id));
         }
-
-        ad.getObservers().remove(email);
-        return advertisementManagementRepository.save(ad);
     }
 
+    @Transactional
     public Advertisement changeAdvertisementStatus(Long id, String status) {
         if (status.isEmpty() || (!status.equals("ACTIVE") && !status.equals("INACTIVE") && !status.equals("BOUGHT") && !status.equals("DELETED"))) {
             throw new IllegalArgumentException("Invalid status provided");
         }
 
-        Advertisement ad = getAdvertisementById(id);
+        Advertisement ad = loadAdvertisement(id);
+        AdvertisementSearchDocument previous = AdvertisementSearchDocument.of(ad);
         ad.setStatus(AdvertisementStatus.valueOf(status));
-        emailService.sendEmailToObservers(ad.getObservers(), AdvertisementStatus.valueOf(status), ad.getTitle());
-        return advertisementManagementRepository.save(ad);
+        observerNotificationService.recordStatusChange(id, ad.getTitle(), AdvertisementStatus.valueOf(status));
+        return saveAndIndex(previous, ad);
     }
 
-    public List<Advertisement> searchAdvertisements(Map<String, String> searchParams) {
-        Specification<Advertisement> specification = Specification.where(null);
+    /**
+     * Search advertisements one page at a time
+     * @param searchParams filter parameters together with optional "size", "sort" and "cursor" paging parameters
+     * @return page of matching advertisements
+     * @see AdvertisementSearchService#search(Map)
+     */
+    public AdvertisementPage searchAdvertisements(Map<String, String> searchParams) {
+        return advertisementSearchService.search(searchParams);
+    }
 
-        for (Map.Entry<String, String> searchEntry : searchParams.entrySet()) {
-            specification = specification.and(new AdvertisementSpecification(searchEntry.getKey(), ":", searchEntry.getValue()));
-        }
+    /**
+     * Complete an advertisement title
+     * @param prefix typed text
+     * @param limit maximum number of completions, null for the default
+     * @return title completions, most popular first
+     * @see AdvertisementSearchService#suggest(String, Integer)
+     */
+    public List<AdvertisementSuggestion> suggestTitles(String prefix, Integer limit) {
+        return advertisementSearchService.suggest(prefix, limit);
+    }
 
-        return advertisementManagementRepository.findAll(specification);
+    /**
+     * Reads the advertisement from the repository, bypassing the advertisement cache, for changing it
+     * @throws EntityNotFoundException if the advertisement does not exist
+     */
+    private Advertisement loadAdvertisement(Long id) {
+        return advertisementManagementRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Advertisement with id: %d was not found", id)));
+    }
+
+    /**
+     * Resolves coordinates of the advertisement location, saves the advertisement and refreshes
+     * search indexes, cached searches that may contain it and the cached advertisement
+     * @param previous searchable state before the change, null for a new advertisement
+     * @param advertisement advertisement to save
+     * @return saved advertisement
+     */
+    private Advertisement saveAndIndex(AdvertisementSearchDocument previous, Advertisement advertisement) {
+        advertisement.setCoordinates(gazetteer.resolve(advertisement.getLocation()));
+        Advertisement saved = advertisementManagementRepository.save(advertisement);
+        advertisementCache.invalidate(saved.getId());
+        advertisementSearchService.onAdvertisementSaved(previous, saved);
+        return saved;
+    }
+
+    private static LocalDateTime getLastModified(Advertisement advertisement) {
+        LocalDateTime lastModified = advertisement.getUpdatedAt();
+        LocalDateTime categoryUpdatedAt = advertisement.getCategory() == null ? null : advertisement.getCategory().getUpdatedAt();
+        LocalDateTime userUpdatedAt = advertisement.getUser() == null ? null : advertisement.getUser().getUpdatedAt();
+        if (categoryUpdatedAt != null && categoryUpdatedAt.isAfter(lastModified)) {
+            lastModified = categoryUpdatedAt;
+        }
+        if (userUpdatedAt != null && userUpdatedAt.isAfter(lastModified)) {
+            lastModified = userUpdatedAt;
+        }
+        return lastModified;
     }
 }
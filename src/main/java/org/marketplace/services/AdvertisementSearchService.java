@@ -0,0 +1,363 @@
+package org.marketplace.services;
+
+import org.marketplace.enums.FuzzySearchMode;
+import org.marketplace.models.Advertisement;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.requests.AdvertisementFacets;
+import org.marketplace.requests.AdvertisementListing;
+import org.marketplace.requests.AdvertisementPage;
+import org.marketplace.requests.AdvertisementSuggestion;
+import org.marketplace.search.*;
+import org.marketplace.specifications.AdvertisementKeysetSpecification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+@Service
+public class AdvertisementSearchService {
+    public static final String SIZE_PARAM = "size";
+    public static final String CURSOR_PARAM = "cursor";
+    public static final String SORT_PARAM = "sort";
+    public static final String FACETS_PARAM = "facets";
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    /**
+     * Upper bound of full-text and spatial index matches passed to the database when results are sorted by a column,
+     * and of the ids counted by one facet query
+     */
+    public static final int MAX_INDEX_CANDIDATES = 10_000;
+    public static final int DEFAULT_SUGGESTION_LIMIT = 10;
+    public static final int MAX_SUGGESTION_LIMIT = 20;
+    private static final int RELEVANCE_BATCH_SIZE = 200;
+    private static final Set<String> CONTROL_PARAMS = Set.of(SIZE_PARAM, CURSOR_PARAM, SORT_PARAM, FACETS_PARAM);
+    private static final Logger logger = LoggerFactory.getLogger(AdvertisementSearchService.class);
+
+    private final AdvertisementManagementRepository advertisementManagementRepository;
+    private final AdvertisementTextIndex advertisementTextIndex;
+    private final AdvertisementTrigramIndex advertisementTrigramIndex;
+    private final AdvertisementGeoIndex advertisementGeoIndex;
+    private final AdvertisementSuggestionIndex advertisementSuggestionIndex;
+    private final Gazetteer gazetteer;
+    private final SearchResultCache searchResultCache;
+
+    public AdvertisementSearchService(AdvertisementManagementRepository advertisementManagementRepository, AdvertisementTextIndex advertisementTextIndex, AdvertisementTrigramIndex advertisementTrigramIndex, AdvertisementGeoIndex advertisementGeoIndex, AdvertisementSuggestionIndex advertisementSuggestionIndex, Gazetteer gazetteer, SearchResultCache searchResultCache) {
+        this.advertisementManagementRepository = advertisementManagementRepository;
+        this.advertisementTextIndex = advertisementTextIndex;
+        this.advertisementTrigramIndex = advertisementTrigramIndex;
+        this.advertisementGeoIndex = advertisementGeoIndex;
+        this.advertisementSuggestionIndex = advertisementSuggestionIndex;
+        this.gazetteer = gazetteer;
+        this.searchResultCache = searchResultCache;
+    }
+
+    /**
+     * Searches advertisements page by page. Pages are addressed by an opaque cursor instead of an offset,
+     * so fetching a deep page costs the same as fetching the first one. Pages are cached until an
+     * advertisement that could appear in them changes.
+     * Text parameters ("q" for all text fields, "title", "description", "location") are answered by the
+     * full-text index; when they find nothing, or when "fuzzy=true" is given, the query is matched against
+     * titles by trigram similarity instead, which tolerates typos ("fuzzy=false" disables this). Spatial
+     * parameters ("near=Kraków" or "lat=50.06&lon=19.94", with optional "radiusKm", default 10, or
+     * "bbox=minLat,minLon,maxLat,maxLon") by the spatial index, all remaining filters by the database.
+     * Structured filters accept an operation suffix, e.g. "price.lt=500", "price.between=100,500",
+     * "createdAt.gt=2024-05-01", "status.in=ACTIVE,INACTIVE".
+     * @param searchParams filter parameters, optionally with "size" (page size, default 20, max 100),
+     *                     "sort" (price, createdAt, id or relevance, optionally followed by ",asc" or ",desc")
+     *                     "cursor" (value of nextCursor from the previous page) and "facets" (true to count
+     *                     matches per category, status and price range)
+     * @return page of advertisements with the cursor of the next page, if there is one, and requested facets
+     * @throws IllegalArgumentException if the paging parameters are invalid
+     */
+    public AdvertisementPage search(Map<String, String> searchParams) {
+        Map<String, String> cacheKey = SearchResultCache.normalize(searchParams);
+        AdvertisementPage cachedPage = searchResultCache.get(cacheKey);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        long cacheVersion = searchResultCache.currentVersion();
+        Map<String, String> filters = new HashMap<>(cacheKey);
+        filters.keySet().removeAll(CONTROL_PARAMS);
+        AdvertisementSearchFilter filter = AdvertisementSearchFilter.fromSearchParams(filters, gazetteer);
+        AdvertisementPage page = search(filter, cacheKey);
+        searchResultCache.put(cacheKey, filter, page, cacheVersion);
+        return page;
+    }
+
+    /**
+     * Completes a typed title prefix from memory, without querying the database
+     * @param prefix typed text
+     * @param limit maximum number of completions, default 10, at most 20
+     * @return most popular titles of active advertisements starting with the prefix or having a word starting with it
+     * @throws IllegalArgumentException if the limit is invalid
+     */
+    public List<AdvertisementSuggestion> suggest(String prefix, Integer limit) {
+        int suggestionLimit = limit == null ? DEFAULT_SUGGESTION_LIMIT : limit;
+        if (suggestionLimit < 1 || suggestionLimit > MAX_SUGGESTION_LIMIT) {
+            throw new IllegalArgumentException(String.format("Suggestion limit must be between 1 and %d", MAX_SUGGESTION_LIMIT));
+        }
+        return advertisementSuggestionIndex.suggest(prefix, suggestionLimit);
+    }
+
+    /**
+     * Keeps search indexes and cached searches up to date after an advertisement was created or modified.
+     * Inside a transaction the update is applied once it commits, so searches neither see nor cache
+     * uncommitted or rolled back state.
+     * @param previous searchable state of the advertisement before the change, null for a new advertisement
+     * @param advertisement saved advertisement
+     */
+    public void onAdvertisementSaved(AdvertisementSearchDocument previous, Advertisement advertisement) {
+        afterCommit(() -> {
+            advertisementTextIndex.index(advertisement);
+            advertisementTrigramIndex.index(advertisement);
+            advertisementGeoIndex.index(advertisement);
+            advertisementSuggestionIndex.index(advertisement);
+            searchResultCache.invalidate(previous, AdvertisementSearchDocument.of(advertisement));
+        });
+    }
+
+    /**
+     * Keeps search indexes and cached searches up to date after an advertisement was deleted,
+     * once the transaction commits if there is one
+     * @param deleted searchable state of the deleted advertisement
+     */
+    public void onAdvertisementDeleted(AdvertisementSearchDocument deleted) {
+        afterCommit(() -> {
+            advertisementTextIndex.remove(deleted.getId());
+            advertisementTrigramIndex.remove(deleted.getId());
+            advertisementGeoIndex.remove(deleted.getId());
+            advertisementSuggestionIndex.remove(deleted.getId());
+            searchResultCache.invalidate(deleted);
+        });
+    }
+
+    /**
+     * Runs the update after the current transaction commits, right away if there is no transaction. Searches
+     * started before the cache is invalidated cannot cache their pages, see {@link SearchResultCache#put}.
+     */
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    /**
+     * Rebuilds search indexes from the repository, reading advertisements in id order and in fixed size chunks
+     */
+    public void rebuildIndexes() {
+        advertisementTextIndex.clear();
+        advertisementTrigramIndex.clear();
+        advertisementGeoIndex.clear();
+        advertisementSuggestionIndex.clear();
+        searchResultCache.invalidateAll();
+
+        long lastId = 0L;
+        List<Advertisement> chunk = advertisementManagementRepository.findTop500ByIdGreaterThanOrderByIdAsc(lastId);
+        while (!chunk.isEmpty()) {
+            for (Advertisement advertisement : chunk) {
+                advertisementTextIndex.index(advertisement);
+                advertisementTrigramIndex.index(advertisement);
+                advertisementGeoIndex.index(advertisement);
+                advertisementSuggestionIndex.index(advertisement);
+            }
+            lastId = chunk.get(chunk.size() - 1).getId();
+            chunk = advertisementManagementRepository.findTop500ByIdGreaterThanOrderByIdAsc(lastId);
+        }
+
+        logger.info("Search indexes rebuilt, indexed advertisements: " + advertisementTextIndex.size()
+                + ", with coordinates: " + advertisementGeoIndex.size());
+    }
+
+    private AdvertisementPage search(AdvertisementSearchFilter filter, Map<String, String> searchParams) {
+        int size = parsePageSize(searchParams.get(SIZE_PARAM));
+        AdvertisementSort sort = searchParams.get(SORT_PARAM) == null && filter.hasText()
+                ? AdvertisementSort.RELEVANCE
+                : AdvertisementSort.parse(searchParams.get(SORT_PARAM));
+        if (sort.isRelevance() && !filter.hasText()) {
+            throw new IllegalArgumentException("Relevance sort requires a text query");
+        }
+
+        AdvertisementSearchCursor cursor = null;
+        String encodedCursor = searchParams.get(CURSOR_PARAM);
+        if (encodedCursor != null && !encodedCursor.isBlank()) {
+            cursor = AdvertisementSearchCursor.decode(encodedCursor);
+            if (!cursor.matches(sort)) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+        }
+
+        boolean facetsRequested = Boolean.parseBoolean(searchParams.get(FACETS_PARAM));
+        Specification<Advertisement> specification = filter.toSpecification();
+        if (!filter.hasText() && !filter.hasGeo()) {
+            AdvertisementPage page = searchByKeyset(specification, sort, cursor, size);
+            return withFacets(page, specification, facetsRequested);
+        }
+
+        List<Long> nearby = filter.hasGeo() ? advertisementGeoIndex.search(filter.getGeoClause()) : null;
+        List<TextSearchHit> hits = null;
+        List<Long> ids = nearby;
+        boolean fuzzy = false;
+        if (filter.hasText()) {
+            if (filter.matchesNothing()) {
+                hits = List.of();
+            } else {
+                hits = filter.getFuzzyMode() == FuzzySearchMode.ON ? List.of() : advertisementTextIndex.search(filter.getTextClauses());
+                if (hits.isEmpty() && filter.getFuzzyMode() != FuzzySearchMode.OFF) {
+                    hits = advertisementTrigramIndex.search(filter.getTextQuery());
+                    fuzzy = true;
+                }
+            }
+            if (nearby != null) {
+                Set<Long> nearbyIds = new HashSet<>(nearby);
+                hits = hits.stream().filter(hit -> nearbyIds.contains(hit.getAdvertisementId())).toList();
+            }
+            ids = hits.stream().map(TextSearchHit::getAdvertisementId).toList();
+        }
+
+        if (ids.isEmpty()) {
+            AdvertisementPage page = new AdvertisementPage(List.of(), 0, null);
+            page.setFacets(facetsRequested ? new AdvertisementFacets() : null);
+            page.setFuzzy(fuzzy);
+            return page;
+        }
+
+        AdvertisementPage page;
+        if (sort.isRelevance()) {
+            page = searchByRelevance(specification, hits, cursor, size);
+        } else {
+            // candidates are ordered best match or nearest first, so the cap drops the weakest ones
+            page = searchByKeyset(specification.and(idIn(ids.subList(0, Math.min(ids.size(), MAX_INDEX_CANDIDATES)))), sort, cursor, size);
+            page.setTruncated(ids.size() > MAX_INDEX_CANDIDATES);
+        }
+        page.setFuzzy(fuzzy);
+        return withFacets(page, specification, ids, facetsRequested);
+    }
+
+    /**
+     * Facets are counted over the whole filter, not just the current page, in one aggregate query
+     */
+    private AdvertisementPage withFacets(AdvertisementPage page, Specification<Advertisement> filter, boolean facetsRequested) {
+        if (facetsRequested) {
+            page.setFacets(advertisementManagementRepository.countFacets(filter));
+        }
+        return page;
+    }
+
+    /**
+     * Facets of an index search are counted over all index matches, not only those the page was sorted from,
+     * one aggregate query per {@link #MAX_INDEX_CANDIDATES} ids
+     */
+    private AdvertisementPage withFacets(AdvertisementPage page, Specification<Advertisement> filter, List<Long> ids, boolean facetsRequested) {
+        if (!facetsRequested) {
+            return page;
+        }
+
+        AdvertisementFacets facets = new AdvertisementFacets();
+        for (int from = 0; from < ids.size(); from += MAX_INDEX_CANDIDATES) {
+            List<Long> batch = ids.subList(from, Math.min(from + MAX_INDEX_CANDIDATES, ids.size()));
+            facets.addAll(advertisementManagementRepository.countFacets(filter.and(idIn(batch))));
+        }
+        page.setFacets(facets);
+        return page;
+    }
+
+    private AdvertisementPage searchByKeyset(Specification<Advertisement> specification, AdvertisementSort sort, AdvertisementSearchCursor cursor, int size) {
+        if (cursor != null) {
+            specification = specification.and(new AdvertisementKeysetSpecification(cursor));
+        }
+
+        List<AdvertisementListing> ads = advertisementManagementRepository.findListings(specification, sort.toSort(), size + 1);
+
+        if (ads.size() <= size) {
+            return new AdvertisementPage(ads, ads.size(), null);
+        }
+
+        List<AdvertisementListing> content = new ArrayList<>(ads.subList(0, size));
+        String nextCursor = AdvertisementSearchCursor.after(content.get(size - 1), sort).encode();
+        return new AdvertisementPage(content, size, nextCursor);
+    }
+
+    /**
+     * Walks the ranked full-text hits from the cursor position and lets the database check the structured
+     * filters for one bounded batch of ids at a time, until the page is full.
+     */
+    private AdvertisementPage searchByRelevance(Specification<Advertisement> specification, List<TextSearchHit> hits, AdvertisementSearchCursor cursor, int size) {
+        int from = cursor == null ? 0 : firstHitAfter(hits, cursor);
+        List<AdvertisementListing> content = new ArrayList<>();
+        TextSearchHit lastHit = null;
+        boolean hasNext = false;
+
+        while (from < hits.size() && !hasNext) {
+            List<TextSearchHit> batch = hits.subList(from, Math.min(from + RELEVANCE_BATCH_SIZE, hits.size()));
+            List<Long> ids = batch.stream().map(TextSearchHit::getAdvertisementId).toList();
+            Map<Long, AdvertisementListing> matching = new HashMap<>();
+            for (AdvertisementListing listing : advertisementManagementRepository.findListings(specification.and(idIn(ids)), Sort.unsorted(), ids.size())) {
+                matching.put(listing.getId(), listing);
+            }
+
+            for (TextSearchHit hit : batch) {
+                AdvertisementListing advertisement = matching.get(hit.getAdvertisementId());
+                if (advertisement == null) {
+                    continue;
+                }
+                if (content.size() == size) {
+                    hasNext = true;
+                    break;
+                }
+                content.add(advertisement);
+                lastHit = hit;
+            }
+            from += batch.size();
+        }
+
+        String nextCursor = hasNext ? AdvertisementSearchCursor.after(lastHit).encode() : null;
+        return new AdvertisementPage(content, content.size(), nextCursor);
+    }
+
+    private static int firstHitAfter(List<TextSearchHit> hits, AdvertisementSearchCursor cursor) {
+        int low = 0;
+        int high = hits.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cursor.isBefore(hits.get(middle))) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static Specification<Advertisement> idIn(Collection<Long> ids) {
+        return (root, query, criteriaBuilder) -> root.get("id").in(ids);
+    }
+
+    private static int parsePageSize(String value) {
+        if (value == null || value.isBlank()) {
+            return DEFAULT_PAGE_SIZE;
+        }
+
+        try {
+            int size = Integer.parseInt(value.trim());
+            if (size < 1 || size > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException(String.format("Page size must be between 1 and %d", MAX_PAGE_SIZE));
+            }
+            return size;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page size provided: " + value);
+        }
+    }
+}
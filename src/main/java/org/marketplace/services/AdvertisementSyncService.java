@@ -0,0 +1,177 @@
+package org.marketplace.services;
+
+import org.marketplace.models.AdvertisementTombstone;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.repositories.AdvertisementTombstoneRepository;
+import org.marketplace.requests.AdvertisementChange;
+import org.marketplace.requests.AdvertisementChanges;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Changes of advertisements since a cursor, for clients keeping a local copy of the advertisement list, one page
+ * at a time. A client without a cursor first pages through all current advertisements by id, and then through the
+ * advertisements changed and deleted since the copy was started, ordered by the time of the change and the id.
+ * <p>
+ * The time of a change is stamped when its transaction writes it, not when it commits, so the changes of the last
+ * moments (advertisement.changes.settle-ms) are held back until the transactions that may still be writing them
+ * have committed. A change whose transaction commits more than the settle time after writing it is missed by
+ * clients whose cursor already moved past it, so the settle time has to exceed the longest transaction
+ * changing advertisements.
+ */
+@Service
+public class AdvertisementSyncService {
+    private static final LocalDateTime CURSOR_EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    Logger logger = LoggerFactory.getLogger(AdvertisementSyncService.class);
+
+    private final AdvertisementManagementRepository advertisementManagementRepository;
+    private final AdvertisementTombstoneRepository advertisementTombstoneRepository;
+    private final Duration settleTime;
+    private final Duration tombstoneRetention;
+    private final int pageSize;
+
+    public AdvertisementSyncService(AdvertisementManagementRepository advertisementManagementRepository, AdvertisementTombstoneRepository advertisementTombstoneRepository,
+                                    @Value("${advertisement.changes.settle-ms:2000}") long settleMillis,
+                                    @Value("${advertisement.changes.tombstone-retention-days:30}") long tombstoneRetentionDays,
+                                    @Value("${advertisement.changes.page-size:500}") int pageSize) {
+        this.advertisementManagementRepository = advertisementManagementRepository;
+        this.advertisementTombstoneRepository = advertisementTombstoneRepository;
+        this.settleTime = Duration.ofMillis(settleMillis);
+        this.tombstoneRetention = Duration.ofDays(tombstoneRetentionDays);
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @param cursor cursor returned by the previous call, null to start a copy of all current advertisements
+     * @return at most a page of advertisements changed and ids of advertisements deleted after the cursor, with the next cursor
+     * @throws IllegalArgumentException if the cursor is malformed or older than the retained deletions,
+     * in which case the client has to download all advertisements again
+     */
+    @Transactional(readOnly = true)
+    public AdvertisementChanges getChangesSince(String cursor) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.minus(settleTime).truncatedTo(ChronoUnit.MICROS);
+        if (cursor == null || cursor.isBlank()) {
+            return getSnapshot(until, 0L);
+        }
+
+        SyncCursor position = SyncCursor.decode(cursor);
+        if (position.snapshot) {
+            return getSnapshot(position.time, position.lastId);
+        }
+        if (position.time.isBefore(now.minus(tombstoneRetention))) {
+            throw new IllegalArgumentException("Cursor is older than the retained deletions, download all advertisements again");
+        }
+        if (!position.time.isBefore(until)) {
+            return new AdvertisementChanges(List.of(), List.of(), cursor, false);
+        }
+        return getChangesBetween(position, until);
+    }
+
+    /**
+     * Removes records of deletions older than the retention, cursors from before then are rejected
+     */
+    @Scheduled(fixedDelayString = "${advertisement.changes.purge-interval-ms:3600000}")
+    public void purgeTombstones() {
+        int removed = advertisementTombstoneRepository.deleteDeletedBefore(LocalDateTime.now().minus(tombstoneRetention));
+        if (removed > 0) {
+            logger.debug("Removed {} advertisement tombstones", removed);
+        }
+    }
+
+    /**
+     * Pages through all current advertisements by id; changes made after the copy was started follow once it is complete
+     */
+    private AdvertisementChanges getSnapshot(LocalDateTime startedAt, Long lastId) {
+        List<AdvertisementChange> advertisements = advertisementManagementRepository.findChangesAfterId(lastId, PageRequest.of(0, pageSize + 1));
+        if (advertisements.size() > pageSize) {
+            List<AdvertisementChange> content = advertisements.subList(0, pageSize);
+            String nextCursor = new SyncCursor(true, startedAt, content.get(pageSize - 1).getId()).encode();
+            return new AdvertisementChanges(content, List.of(), nextCursor, true);
+        }
+        return new AdvertisementChanges(advertisements, List.of(), new SyncCursor(false, startedAt, 0L).encode(), true);
+    }
+
+    /**
+     * Changes and deletions are both ordered by (time, id), so the page is the first page size entries of their merge
+     * and the cursor is the position of its last entry
+     */
+    private AdvertisementChanges getChangesBetween(SyncCursor position, LocalDateTime until) {
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<AdvertisementChange> changes = advertisementManagementRepository.findChangesBetween(position.time, position.lastId, until, limit);
+        List<AdvertisementTombstone> tombstones = advertisementTombstoneRepository.findDeletedBetween(position.time, position.lastId, until, limit);
+
+        List<AdvertisementChange> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        SyncCursor last = position;
+        int change = 0;
+        int tombstone = 0;
+        while (change + tombstone < pageSize && (change < changes.size() || tombstone < tombstones.size())) {
+            // on a tie the deletion goes first, the change of a deleted advertisement can be skipped
+            if (tombstone == tombstones.size() || (change < changes.size() && isBefore(changes.get(change), tombstones.get(tombstone)))) {
+                AdvertisementChange advertisement = changes.get(change++);
+                changed.add(advertisement);
+                last = new SyncCursor(false, advertisement.getUpdatedAt(), advertisement.getId());
+            } else {
+                AdvertisementTombstone deletion = tombstones.get(tombstone++);
+                deleted.add(deletion.getAdvertisementId());
+                last = new SyncCursor(false, deletion.getDeletedAt(), deletion.getAdvertisementId());
+            }
+        }
+
+        boolean hasMore = change < changes.size() || tombstone < tombstones.size();
+        SyncCursor next = hasMore ? last : new SyncCursor(false, until, 0L);
+        return new AdvertisementChanges(changed, deleted, next.encode(), hasMore);
+    }
+
+    private static boolean isBefore(AdvertisementChange change, AdvertisementTombstone tombstone) {
+        int byTime = change.getUpdatedAt().compareTo(tombstone.getDeletedAt());
+        return byTime < 0 || (byTime == 0 && change.getId() < tombstone.getAdvertisementId());
+    }
+
+    /**
+     * Position in the copy of all advertisements (by id) or in the changes (by time of change and id)
+     */
+    static class SyncCursor {
+        private static final String SEPARATOR = "|";
+
+        private final boolean snapshot;
+        private final LocalDateTime time;
+        private final Long lastId;
+
+        SyncCursor(boolean snapshot, LocalDateTime time, Long lastId) {
+            this.snapshot = snapshot;
+            this.time = time;
+            this.lastId = lastId;
+        }
+
+        static SyncCursor decode(String encoded) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+                String[] parts = decoded.split("\\" + SEPARATOR, 3);
+                return new SyncCursor(Boolean.parseBoolean(parts[0]), CURSOR_EPOCH.plus(Long.parseLong(parts[1]), ChronoUnit.MICROS), Long.valueOf(parts[2]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + encoded);
+            }
+        }
+
+        String encode() {
+            String raw = snapshot + SEPARATOR + ChronoUnit.MICROS.between(CURSOR_EPOCH, time) + SEPARATOR + lastId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package org.marketplace.services;
 
 import jakarta.persistence.EntityNotFoundException;
+import org.marketplace.cache.AdvertisementCache;
 import org.marketplace.models.Category;
 import org.marketplace.repositories.CategoryManagementRepository;
+import org.marketplace.requests.ResourceVersion;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -10,9 +12,11 @@ import java.util.List;
 @Service
 public class CategoryManagementService {
     private final CategoryManagementRepository categoryManagementRepository;
+    private final AdvertisementCache advertisementCache;
 
-    public CategoryManagementService(CategoryManagementRepository categoryManagementRepository) {
+    public CategoryManagementService(CategoryManagementRepository categoryManagementRepository, AdvertisementCache advertisementCache) {
         this.categoryManagementRepository = categoryManagementRepository;
+        this.advertisementCache = advertisementCache;
     }
 
     public Category addCategory(Category category) {
@@ -23,15 +27,24 @@ public class CategoryManagementService {
         return categoryManagementRepository.findAll();
     }
 
+    /**
+     * @return version of the category list for conditional requests, read without loading the categories
+     */
+    public ResourceVersion getAllCategoriesVersion() {
+        return categoryManagementRepository.findVersion();
+    }
+
     public Category getCategoryById(Long id) {
         return categoryManagementRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Category with id: %d was not found", id)));
     }
 
     public Category updateCategory(Category category) {
-        return categoryManagementRepository.findById(category.getId())
+        Category updated = categoryManagementRepository.findById(category.getId())
                 .map(c -> categoryManagementRepository.save(category))
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Category with id: %d was not found", category.getId())));
+        advertisementCache.invalidateCategory(updated.getId());
+        return updated;
     }
 
     public void deleteCategory(Long id) {
@@ -0,0 +1,210 @@
+package org.marketplace.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.marketplace.enums.EmailOutboxStatus;
+import org.marketplace.models.Email;
+import org.marketplace.models.EmailOutboxMessage;
+import org.marketplace.repositories.EmailOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains the email outbox in the background. Due messages are read in id order, one bounded batch at a time,
+ * split between a fixed number of sender threads and sent by each thread as one batch over a pooled connection.
+ * A failed message is retried with exponential backoff until it runs out of attempts.
+ * <p>
+ * Every batch is claimed with a conditional update before it is sent, so with several dispatching instances,
+ * or overlapping runs, each message is sent by only one of them. A claim expires after the claim timeout
+ * (email.outbox.claim-timeout-ms), after which a message left unsent by a stopped dispatcher is sent again;
+ * the timeout has to exceed the time it takes to send a batch.
+ */
+@Service
+public class EmailOutboxDispatcher implements MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final int batchSize;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration claimTimeout;
+    private final ExecutorService senders;
+    private final AtomicLong pendingCount = new AtomicLong();
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder retriedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository, EmailService emailService,
+                                 @Value("${email.outbox.batch-size:100}") int batchSize,
+                                 @Value("${email.outbox.concurrency:4}") int concurrency,
+                                 @Value("${email.outbox.max-attempts:5}") int maxAttempts,
+                                 @Value("${email.outbox.initial-backoff-ms:30000}") long initialBackoffMillis,
+                                 @Value("${email.outbox.max-backoff-ms:3600000}") long maxBackoffMillis,
+                                 @Value("${email.outbox.claim-timeout-ms:300000}") long claimTimeoutMillis) {
+        if (batchSize < 1 || concurrency < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Email outbox batch size, concurrency and max attempts must be positive");
+        }
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sends all due messages, batch after batch, then refreshes the queue depth
+     */
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval-ms:1000}")
+    public void dispatchPending() {
+        int dispatched;
+        do {
+            dispatched = dispatchBatch();
+        } while (dispatched == batchSize && !Thread.currentThread().isInterrupted());
+        pendingCount.set(emailOutboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+    }
+
+    /**
+     * Claims one batch of due messages, sends the claimed ones and stores the outcome of every message
+     * @return number of due messages found, including those claimed by another dispatcher meanwhile
+     */
+    public int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> dueIds = emailOutboxRepository.findDueIds(now, PageRequest.of(0, batchSize));
+        if (dueIds.isEmpty()) {
+            return 0;
+        }
+
+        String claimToken = UUID.randomUUID().toString();
+        if (emailOutboxRepository.claim(dueIds, claimToken, now, now.plus(claimTimeout)) == 0) {
+            return dueIds.size();
+        }
+        List<EmailOutboxMessage> batch = emailOutboxRepository.findByClaimTokenOrderByIdAsc(claimToken);
+
+        // every sender thread gets one chunk and sends it as a single batch over one pooled connection
+        List<List<EmailOutboxMessage>> chunks = partition(batch, concurrency);
+        List<List<Email>> chunkEmails = new ArrayList<>(chunks.size());
+        List<Future<Map<Email, Exception>>> deliveries = new ArrayList<>(chunks.size());
+        for (List<EmailOutboxMessage> chunk : chunks) {
+            List<Email> emails = chunk.stream().map(EmailOutboxMessage::toEmail).toList();
+            chunkEmails.add(emails);
+            deliveries.add(senders.submit(() -> emailService.deliverAll(emails)));
+        }
+
+        List<EmailOutboxMessage> processed = new ArrayList<>(batch.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            List<EmailOutboxMessage> chunk = chunks.get(i);
+            Map<Email, Exception> failures;
+            try {
+                failures = deliveries.get(i).get();
+            } catch (ExecutionException e) {
+                chunk.forEach(message -> handleFailure(message, e.getCause()));
+                processed.addAll(chunk);
+                continue;
+            } catch (InterruptedException e) {
+                // messages without an outcome stay claimed and are sent again once the claim expires
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            for (int j = 0; j < chunk.size(); j++) {
+                EmailOutboxMessage message = chunk.get(j);
+                Exception failure = failures.get(chunkEmails.get(i).get(j));
+                if (failure == null) {
+                    message.markSent(LocalDateTime.now());
+                    sentCount.increment();
+                } else {
+                    handleFailure(message, failure);
+                }
+            }
+            processed.addAll(chunk);
+        }
+
+        emailOutboxRepository.saveAll(processed);
+        return dueIds.size();
+    }
+
+    /**
+     * @param attempts number of failed attempts so far, at least 1
+     * @return delay before the next attempt, doubled after every failure and capped at the maximum backoff
+     */
+    public Duration backoff(int attempts) {
+        int exponent = Math.min(attempts - 1, 30);
+        Duration delay = initialBackoff.multipliedBy(1L << exponent);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("email.outbox.pending", pendingCount, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(registry);
+        FunctionCounter.builder("email.outbox.sent", sentCount, LongAdder::sum).register(registry);
+        FunctionCounter.builder("email.outbox.retried", retriedCount, LongAdder::sum).register(registry);
+        FunctionCounter.builder("email.outbox.failed", failedCount, LongAdder::sum).register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, int parts) {
+        int chunkSize = (items.size() + parts - 1) / parts;
+        List<List<T>> chunks = new ArrayList<>(parts);
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            chunks.add(items.subList(from, Math.min(from + chunkSize, items.size())));
+        }
+        return chunks;
+    }
+
+    private void handleFailure(EmailOutboxMessage message, Throwable cause) {
+        String error = cause == null ? "Unknown error" : cause.getMessage();
+        if (message.getAttempts() + 1 >= maxAttempts) {
+            message.markFailed(error, null);
+            failedCount.increment();
+            logger.warn("Giving up on email " + message.getId() + " after " + maxAttempts + " attempts: " + error);
+            return;
+        }
+
+        message.markFailed(error, LocalDateTime.now().plus(backoff(message.getAttempts() + 1)));
+        retriedCount.increment();
+    }
+}
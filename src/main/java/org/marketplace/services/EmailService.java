@@ -2,33 +2,67 @@ package org.marketplace.services;
 
 import org.marketplace.builders.EmailBuilder;
 import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.mail.EmailTemplates;
+import org.marketplace.mail.PreparedEmail;
 import org.marketplace.models.Advertisement;
 import org.marketplace.models.Email;
+import org.marketplace.models.EmailOutboxMessage;
+import org.marketplace.models.ObserverNotification;
 import org.marketplace.models.User;
+import org.marketplace.repositories.EmailOutboxRepository;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailAuthenticationException;
 import org.springframework.mail.MailSendException;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service("emailService")
 public class EmailService {
+    /**
+     * Changes listed in a digest, the remaining ones are only counted so the email stays readable
+     */
+    static final int MAX_DIGEST_LINES = 50;
+
     private final JavaMailSender javaMailSender;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailTemplates emailTemplates;
 
     @Autowired
-    public EmailService(JavaMailSender javaMailSender) {
+    public EmailService(JavaMailSender javaMailSender, EmailOutboxRepository emailOutboxRepository, EmailTemplates emailTemplates) {
         this.javaMailSender = javaMailSender;
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailTemplates = emailTemplates;
     }
 
     Logger logger = LoggerFactory.getLogger(EmailService.class);
 
+    /**
+     * Sends an email in the background. Has to be called through the Spring proxy, i.e. from another bean;
+     * notifications about advertisement changes go through the outbox instead, see {@link EmailOutboxDispatcher}
+     * @param email email to send
+     */
     @Async
     public void sendEmail(Email email){
+        deliver(email);
+    }
+
+    /**
+     * Sends an email in the calling thread
+     * @param email email to send
+     * @throws MailSendException if the mail server rejects the email
+     */
+    public void deliver(Email email){
         logger.info("Sending email to: " + Arrays.toString(email.getTo()));
 
         try {
@@ -46,105 +80,158 @@ public class EmailService {
     }
 
     /**
-     * Sends an email to all observers of an advertisement when the price changes
-     * @param observers list of emails to send the email to (observers of the advertisement)
-     * @param price new price of the advertisement
-     * @param adTitle title of the advertisement we refer to
+     * Sends the emails in the calling thread, as one batch over a single mail server connection where possible
+     * @param emails emails to send
+     * @return emails that could not be sent with the cause of each failure, empty if all were sent
+     * @throws MailAuthenticationException if the mail server rejects the credentials
      */
-    public void sendEmailToObservers(List<String> observers, Double price, String adTitle){
-        for(String observer: observers){
-            sendPriceChangeEmail(observer, adTitle, price);
+    public Map<Email, Exception> deliverAll(List<Email> emails){
+        logger.info("Sending " + emails.size() + " emails");
+
+        try {
+            javaMailSender.send(emails.toArray(new Email[0]));
+            return Map.of();
+        } catch(MailAuthenticationException e){
+            throw e;
+        } catch(MailSendException e){
+            // looked up by equality, so of two equal emails both are reported if one of them failed
+            Map<Email, Exception> failed = new IdentityHashMap<>();
+            for(Email email: emails){
+                Exception cause = e.getFailedMessages().get(email);
+                if(cause != null){
+                    failed.put(email, cause);
+                }
+            }
+            return failed.isEmpty() ? allFailed(emails, e) : failed;
+        } catch(Exception e){
+            return allFailed(emails, e);
         }
     }
 
     /**
-     * Sends an email to all observers of an advertisement
-     * @param observers list of emails to send the email to (observers of the advertisement)
-     * @param status status of the advertisement (ACTIVE, INACTIVE, BOUGHT, DELETED)
-     * @param adTitle title of the advertisement we refer to
+     * Queues one email per observer describing all buffered changes of the advertisements it observes.
+     * A single change gets its own email, several changes are listed in a digest. The text shared by all
+     * observers of a change is rendered once per call, only the recipient is filled in per observer.
+     * @param digests buffered changes per observer email
+     * @see ObserverNotificationService
      */
-    public void sendEmailToObservers(List<String> observers, AdvertisementStatus status, String adTitle){
-        for(String observer: observers){
-            switch(status){
-                case ACTIVE:
-                    sendActiveEmail(observer, adTitle);
-                    break;
-                case INACTIVE:
-                    sendInactiveEmail(observer, adTitle);
-                    break;
-                case BOUGHT:
-                    sendBoughtEmail(observer, adTitle);
-                    break;
-                case DELETED:
-                    sendDeletedEmail(observer, adTitle);
-                    break;
+    public void sendObserverDigests(Map<String, List<ObserverNotification>> digests){
+        Map<Change, PreparedEmail> singleChangeEmails = new HashMap<>();
+        Map<Change, String> digestLines = new HashMap<>();
+        List<Email> emails = new ArrayList<>(digests.size());
+        for(Map.Entry<String, List<ObserverNotification>> digest: digests.entrySet()){
+            String observer = digest.getKey();
+            List<ObserverNotification> notifications = digest.getValue();
+            if(notifications.size() == 1){
+                Change change = Change.of(notifications.get(0));
+                emails.add(singleChangeEmails.computeIfAbsent(change, this::singleChangeEmail).to(observer));
+            } else {
+                emails.add(digestEmail(observer, notifications, digestLines));
             }
         }
+        enqueue(emails);
     }
 
     /**
-     * Sends an email to the owner of an advertisement when it is bought
+     * Queues an email to the owner of an advertisement when it is bought
      * @param user owner of the advertisement
      * @param ad advertisement that has been bought
      * @param buyer email of the buyer
      */
     public void sendEmailToOwner(User user, Advertisement ad, String buyer){
-        Email ownerMailMessage = new EmailBuilder()
-                .setTo(user.getEmail())
-                .setSubject("Your advertisement has been bought!")
-                .setContent("Hello " + user.getLogin() + ",\n\nYour advertisement with title: " + ad.getTitle() + " has been bought by user: " + buyer)
-                .build();
+        Email ownerMailMessage = emailTemplates
+                .prepare("owner.bought", Map.of("login", user.getLogin(), "title", ad.getTitle(), "buyer", buyer))
+                .to(user.getEmail());
 
-        sendEmail(ownerMailMessage);
+        enqueue(List.of(ownerMailMessage));
     }
 
-    private void sendInactiveEmail(String email, String adTitle){
-        Email mailMessage = new EmailBuilder()
-                .setTo(email)
-                .setSubject("Advertisement" + adTitle + " is now inactive!")
-                .setContent("Hello " + email + ",\n\nThe advertisement you are observing is now inactive and no longer available for purchase.")
-                .build();
+    /**
+     * Queues an email to the owner of a saved search when a new advertisement matches it
+     * @param email email of the saved search owner
+     * @param searchName name of the saved search
+     * @param ad new advertisement matching the saved search
+     */
+    public void sendSavedSearchMatchEmail(String email, String searchName, Advertisement ad){
+        Email mailMessage = emailTemplates
+                .prepare("saved-search.match", Map.of("search", searchName, "title", ad.getTitle(), "price", ad.getPrice()))
+                .to(email);
 
-        sendEmail(mailMessage);
+        enqueue(List.of(mailMessage));
     }
 
-    private void sendBoughtEmail(String email, String adTitle){
-        Email mailMessage = new EmailBuilder()
-                .setTo(email)
-                .setSubject("Advertisement " + adTitle + "has been bought!")
-                .setContent("Hello " + email + ",\n\nThe advertisement you are observing has been bought and is no longer available.")
-                .build();
-
-        sendEmail(mailMessage);
+    private static Map<Email, Exception> allFailed(List<Email> emails, Exception cause){
+        Map<Email, Exception> failed = new IdentityHashMap<>();
+        for(Email email: emails){
+            failed.put(email, cause);
+        }
+        return failed;
     }
 
-    private void sendDeletedEmail(String email, String adTitle){
-        Email mailMessage = new EmailBuilder()
-                .setTo(email)
-                .setSubject("Advertisement " + adTitle + "has been deleted!")
-                .setContent("Hello " + email + ",\n\nThe advertisement you are observing has been deleted and is no longer available.")
-                .build();
+    /**
+     * Writes the emails to the outbox, one message per recipient. Called inside the transaction of the change
+     * the emails notify about, so they are sent if and only if the change is committed.
+     */
+    private void enqueue(List<Email> emails){
+        List<EmailOutboxMessage> messages = new ArrayList<>(emails.size());
+        for(Email email: emails){
+            for(String recipient: email.getTo()){
+                messages.add(new EmailOutboxMessage(recipient, email.getSubject(), email.getContent()));
+            }
+        }
+        if(!messages.isEmpty()){
+            emailOutboxRepository.saveAll(messages);
+        }
+    }
 
-        sendEmail(mailMessage);
+    private PreparedEmail singleChangeEmail(Change change){
+        AdvertisementStatus status = change.status();
+        if(status == null){
+            return emailTemplates.prepare("observer.price", Map.of("title", change.title(), "price", change.price()));
+        }
+        if(change.price() == null && status != AdvertisementStatus.EDITED){
+            return emailTemplates.prepare("observer." + status.name().toLowerCase(Locale.ROOT), Map.of("title", change.title()));
+        }
+        return new PreparedEmail(
+                emailTemplates.get("observer.changed.subject").bind(Map.of("title", change.title())),
+                emailTemplates.get("observer.digest.content").bind(Map.of("changes", digestLine(change))));
     }
 
-    private void sendPriceChangeEmail(String email, String adTitle, double price){
-        Email mailMessage = new EmailBuilder()
+    private Email digestEmail(String email, List<ObserverNotification> notifications, Map<Change, String> digestLines){
+        StringBuilder changes = new StringBuilder();
+        for(ObserverNotification notification: notifications.subList(0, Math.min(notifications.size(), MAX_DIGEST_LINES))){
+            changes.append(digestLines.computeIfAbsent(Change.of(notification), this::digestLine));
+        }
+        if(notifications.size() > MAX_DIGEST_LINES){
+            changes.append(emailTemplates.get("observer.digest.more").render("count", String.valueOf(notifications.size() - MAX_DIGEST_LINES)));
+        }
+
+        return new EmailBuilder()
                 .setTo(email)
-                .setSubject("Price change for advertisement " + adTitle)
-                .setContent("Hello " + email + ",\n\nThe price for the advertisement " + adTitle + " has been changed to " + price)
+                .setSubject(emailTemplates.get("observer.digest.subject").render("count", String.valueOf(notifications.size())))
+                .setContent(emailTemplates.get("observer.digest.content").render(Map.of(PreparedEmail.RECIPIENT, email, "changes", changes)))
                 .build();
-
-        sendEmail(mailMessage);
     }
 
-    private void sendActiveEmail(String email, String adTitle){
-        Email mailMessage = new EmailBuilder()
-                .setTo(email)
-                .setSubject("Advertisement " + adTitle + "is now active!")
-                .setContent("Hello " + email + ",\n\nThe advertisement you are observing is now active and available for purchase.")
-                .build();
+    private String digestLine(Change change){
+        List<String> changes = new ArrayList<>(2);
+        AdvertisementStatus status = change.status();
+        if(status != null){
+            changes.add(emailTemplates.get("observer.change." + status.name().toLowerCase(Locale.ROOT)).toString());
+        }
+        // the price of an advertisement that is gone does not matter anymore
+        if(change.price() != null && status != AdvertisementStatus.BOUGHT && status != AdvertisementStatus.DELETED){
+            changes.add(emailTemplates.get("observer.change.price").render("price", String.valueOf(change.price())));
+        }
+        return emailTemplates.get("observer.digest.line").render(Map.of("title", change.title(), "changes", String.join(", ", changes)));
+    }
 
-        sendEmail(mailMessage);
+    /**
+     * Buffered change of an advertisement, the same for all of its observers
+     */
+    private record Change(Long advertisementId, String title, Double price, AdvertisementStatus status){
+        private static Change of(ObserverNotification notification){
+            return new Change(notification.getAdvertisementId(), notification.getAdvertisementTitle(), notification.getPrice(), notification.getStatus());
+        }
     }
 }
@@ -0,0 +1,167 @@
+package org.marketplace.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.models.ObserverNotification;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.repositories.ObserverNotificationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces notifications for observers of advertisements. Changes are buffered per observer and advertisement,
+ * a later change supersedes an earlier one of the same kind, and once the oldest buffered change of an observer
+ * is older than the digest window, the observer gets a single email describing all of them.
+ * <p>
+ * Changes are recorded in the transaction of the change of the advertisement. Changes of the same advertisement
+ * are recorded one transaction at a time, under the lock of the advertisement row, so concurrent changes never
+ * insert the same buffered change twice.
+ */
+@Service
+public class ObserverNotificationService implements MeterBinder {
+    Logger logger = LoggerFactory.getLogger(ObserverNotificationService.class);
+
+    private final ObserverNotificationRepository observerNotificationRepository;
+    private final AdvertisementManagementRepository advertisementManagementRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration window;
+    private final int batchSize;
+    private final LongAdder recordedCount = new LongAdder();
+    private final LongAdder digestCount = new LongAdder();
+
+    public ObserverNotificationService(ObserverNotificationRepository observerNotificationRepository, AdvertisementManagementRepository advertisementManagementRepository,
+                                       EmailService emailService, TransactionTemplate transactionTemplate,
+                                       @Value("${notification.digest.window-seconds:300}") long windowSeconds,
+                                       @Value("${notification.digest.batch-size:500}") int batchSize) {
+        this.observerNotificationRepository = observerNotificationRepository;
+        this.advertisementManagementRepository = advertisementManagementRepository;
+        this.emailService = emailService;
+        this.transactionTemplate = transactionTemplate;
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Buffers a price change for every observer of the advertisement, replacing a buffered price change.
+     * Has to run in the transaction changing the advertisement.
+     * @param advertisementId id of the advertisement
+     * @param title current title of the advertisement
+     * @param price new price
+     */
+    public void recordPriceChange(Long advertisementId, String title, double price) {
+        advertisementManagementRepository.findAndLockById(advertisementId);
+        int updated = observerNotificationRepository.updatePendingPrice(advertisementId, title, price);
+        int inserted = observerNotificationRepository.insertPendingPrice(advertisementId, title, price);
+        recordedCount.add(updated + inserted);
+    }
+
+    /**
+     * Buffers a status change for every observer of the advertisement, replacing a buffered status change.
+     * Has to run in the transaction changing the advertisement.
+     * @param advertisementId id of the advertisement
+     * @param title current title of the advertisement
+     * @param status new status
+     */
+    public void recordStatusChange(Long advertisementId, String title, AdvertisementStatus status) {
+        advertisementManagementRepository.findAndLockById(advertisementId);
+        int updated = observerNotificationRepository.updatePendingStatus(advertisementId, title, status);
+        int inserted = observerNotificationRepository.insertPendingStatus(advertisementId, title, status);
+        recordedCount.add(updated + inserted);
+    }
+
+    /**
+     * Queues one digest email for every observer whose window has elapsed, batch of observers after batch.
+     * If the digests of a batch cannot be queued together, they are queued one observer at a time, so an observer
+     * whose digest keeps failing, or whose observed advertisement changed meanwhile, does not hold back the others.
+     */
+    @Scheduled(fixedDelayString = "${notification.digest.poll-interval-ms:10000}")
+    public void sendDueDigests() {
+        List<String> recipients = observerNotificationRepository.findRecipientsDue(LocalDateTime.now().minus(window), PageRequest.of(0, batchSize));
+        while (!recipients.isEmpty()) {
+            List<String> batch = recipients;
+            int sent;
+            try {
+                Integer queued = transactionTemplate.execute(status -> sendDigests(batch));
+                sent = queued == null ? 0 : queued;
+            } catch (RuntimeException e) {
+                sent = sendDigestsOneByOne(batch);
+            }
+            digestCount.add(sent);
+            // the failed observers stay due, without progress the next batch would be the same one
+            if (recipients.size() < batchSize || sent == 0) {
+                return;
+            }
+            recipients = observerNotificationRepository.findRecipientsDue(LocalDateTime.now().minus(window), PageRequest.of(0, batchSize));
+        }
+    }
+
+    /**
+     * @return number of buffered changes, including the superseded ones
+     */
+    public long getRecordedCount() {
+        return recordedCount.sum();
+    }
+
+    /**
+     * @return number of digest emails queued
+     */
+    public long getDigestCount() {
+        return digestCount.sum();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("notification.digest.recorded", recordedCount, LongAdder::sum).register(registry);
+        FunctionCounter.builder("notification.digest.sent", digestCount, LongAdder::sum).register(registry);
+    }
+
+    private int sendDigestsOneByOne(List<String> recipients) {
+        int sent = 0;
+        for (String recipient : recipients) {
+            try {
+                Integer queued = transactionTemplate.execute(status -> sendDigests(List.of(recipient)));
+                sent += queued == null ? 0 : queued;
+            } catch (OptimisticLockingFailureException e) {
+                // an observed advertisement changed meanwhile, the digest is built again on the next run
+                logger.debug("Digest for " + recipient + " postponed, a change was recorded concurrently");
+            } catch (RuntimeException e) {
+                logger.error("Failed to queue the digest for " + recipient, e);
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Moves the buffered changes of the recipients to the outbox, has to run in a transaction. A change recorded
+     * concurrently bumps the version of its row, so deleting the stale row fails and the transaction is rolled back.
+     * @return number of digests queued
+     */
+    private int sendDigests(List<String> recipients) {
+        List<ObserverNotification> notifications = observerNotificationRepository.findByRecipientInOrderByIdAsc(recipients);
+        Map<String, List<ObserverNotification>> digests = new LinkedHashMap<>();
+        for (ObserverNotification notification : notifications) {
+            digests.computeIfAbsent(notification.getRecipient(), recipient -> new ArrayList<>()).add(notification);
+        }
+        emailService.sendObserverDigests(digests);
+        observerNotificationRepository.deleteAll(notifications);
+        return digests.size();
+    }
+}
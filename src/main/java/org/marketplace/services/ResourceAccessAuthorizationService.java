@@ -1,12 +1,13 @@
 package org.marketplace.services;
 
+import org.marketplace.cache.ResourceOwnerCache;
+import org.marketplace.configuration.AuthenticatedUser;
 import org.marketplace.enums.AccessStatus;
 import org.marketplace.enums.ResourceType;
-import org.marketplace.models.Advertisement;
-import org.marketplace.models.AdvertisementImage;
 import org.marketplace.models.User;
 import org.marketplace.repositories.AdvertisementImageManagementRepository;
 import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.repositories.SavedSearchManagementRepository;
 import org.marketplace.repositories.UserManagementRepository;
 import org.marketplace.requests.UserNotFoundException;
 import org.slf4j.Logger;
@@ -26,14 +27,19 @@ public class ResourceAccessAuthorizationService {
     private AdvertisementManagementRepository advertisementManagementRepository;
     @Autowired
     private AdvertisementImageManagementRepository advertisementImageManagementRepository;
+    @Autowired
+    private SavedSearchManagementRepository savedSearchManagementRepository;
+    private final ResourceOwnerCache resourceOwnerCache;
     private static final Logger logger = LoggerFactory.getLogger(ResourceAccessAuthorizationService.class);
 
 
     @Autowired
-    public ResourceAccessAuthorizationService(UserManagementRepository userManagementRepository, AdvertisementManagementRepository advertisementManagementRepository, AdvertisementImageManagementRepository advertisementImageManagementRepository) {
+    public ResourceAccessAuthorizationService(UserManagementRepository userManagementRepository, AdvertisementManagementRepository advertisementManagementRepository, AdvertisementImageManagementRepository advertisementImageManagementRepository, SavedSearchManagementRepository savedSearchManagementRepository, ResourceOwnerCache resourceOwnerCache) {
         this.userManagementRepository = userManagementRepository;
         this.advertisementManagementRepository = advertisementManagementRepository;
         this.advertisementImageManagementRepository = advertisementImageManagementRepository;
+        this.savedSearchManagementRepository = savedSearchManagementRepository;
+        this.resourceOwnerCache = resourceOwnerCache;
     }
 
     /**
@@ -41,10 +47,10 @@ public class ResourceAccessAuthorizationService {
      * modify the resources, with intention to prevent unauthorized access to the resources.
      * If the user does not have access to the resource, the method throws a UserNotFoundException.
      * @param resource type of the resource
-     *                 (USER, ADVERTISEMENT, ADVERTISEMENT_IMAGE)
+     *                 (USER, ADVERTISEMENT, ADVERTISEMENT_IMAGE, SAVED_SEARCH)
      *                 that is being accessed
      * @param resourceId id of the resource that is being accessed
-     *                   (user id, advertisement id, advertisement image id)
+     *                   (user id, advertisement id, advertisement image id, saved search id)
      *                   for which access is being authorized
      *
      * @throws UserNotFoundException if the user does not have access to the resource
@@ -59,7 +65,7 @@ public class ResourceAccessAuthorizationService {
             throw new UserNotFoundException("User not found for resource id: " + resourceId + " and resource type: " + resource);
         }
 
-        User currentUser = extractCurrentUserFromAuth();
+        AuthenticatedUser currentUser = extractCurrentPrincipal();
 
         if(Objects.equals(resourceOwnerId, currentUser.getId()) || currentUser.isAdmin()){
             logger.info("User has access to the resource, access granted. Proceeding with the request to " + resource + " service.");
@@ -89,37 +95,65 @@ public class ResourceAccessAuthorizationService {
         }
     }
 
+    /**
+     * Loads the current user from the database, use {@link #extractCurrentUserId()} or
+     * {@link #extractCurrentUserEmail()} when the id or email is enough
+     * @return the authenticated user
+     */
     public User extractCurrentUserFromAuth(){
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
         return userManagementRepository.findByEmail(username);
     }
 
+    /**
+     * @return id of the authenticated user, taken from its token
+     */
+    public Long extractCurrentUserId(){
+        return extractCurrentPrincipal().getId();
+    }
+
+    /**
+     * @return email of the authenticated user, taken from its token
+     */
+    public String extractCurrentUserEmail(){
+        return extractCurrentPrincipal().getEmail();
+    }
+
+    /**
+     * @return the authenticated user as described by its token, loaded from the database only
+     * if the request was not authenticated with a token
+     */
+    private AuthenticatedUser extractCurrentPrincipal(){
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if(auth.getPrincipal() instanceof AuthenticatedUser authenticatedUser){
+            return authenticatedUser;
+        }
+
+        User user = userManagementRepository.findByEmail(auth.getName());
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole());
+    }
+
+    /**
+     * Reads only the owner id, advertisement and image owners are served from {@link ResourceOwnerCache}
+     */
     private Long fetchOwnerId(ResourceType resource, Long resourceId) {
+        if(resourceId == null){
+            return null;
+        }
+
         switch (resource) {
             case USER:
                 return resourceId;
             case ADVERTISEMENT:
-                return getOwnerIdFromAdvertisement(resourceId);
+                return resourceOwnerCache.getAdvertisementOwnerId(resourceId);
             case ADVERTISEMENT_IMAGE:
-                AdvertisementImage image = advertisementImageManagementRepository.findById(resourceId).orElse(null);
-
-                if(image == null){
-                    return null;
-                }
-
-                return getOwnerIdFromAdvertisement(image.getAdvertisement().getId());
+                Long advertisementId = resourceOwnerCache.getImageAdvertisementId(resourceId);
+                return advertisementId != null ? resourceOwnerCache.getAdvertisementOwnerId(advertisementId) : null;
+            case SAVED_SEARCH:
+                return savedSearchManagementRepository.findOwnerIdById(resourceId).orElse(null);
             default:
                 return null;
         }
     }
-
-    private Long getOwnerIdFromAdvertisement(Long advertisementId) {
-        if(advertisementId == null){
-            return null;
-        }
-
-        Advertisement ad = advertisementManagementRepository.findById(advertisementId).orElse(null);
-        return ad != null ? ad.getOwner().getId() : null;
-    }
 }
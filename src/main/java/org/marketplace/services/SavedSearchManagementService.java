@@ -0,0 +1,127 @@
+package org.marketplace.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.SavedSearch;
+import org.marketplace.repositories.SavedSearchManagementRepository;
+import org.marketplace.repositories.UserManagementRepository;
+import org.marketplace.requests.UserNotFoundException;
+import org.marketplace.search.AdvertisementSearchDocument;
+import org.marketplace.search.AdvertisementSearchFilter;
+import org.marketplace.search.Gazetteer;
+import org.marketplace.search.SavedSearchPercolator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Service
+public class SavedSearchManagementService {
+    private static final List<String> PAGING_PARAMS = List.of(AdvertisementSearchService.SIZE_PARAM, AdvertisementSearchService.CURSOR_PARAM,
+            AdvertisementSearchService.SORT_PARAM, AdvertisementSearchService.FACETS_PARAM);
+    private static final Logger logger = LoggerFactory.getLogger(SavedSearchManagementService.class);
+
+    private final SavedSearchManagementRepository savedSearchManagementRepository;
+    private final UserManagementRepository userManagementRepository;
+    private final SavedSearchPercolator savedSearchPercolator;
+    private final Gazetteer gazetteer;
+    private final EmailService emailService;
+
+    public SavedSearchManagementService(SavedSearchManagementRepository savedSearchManagementRepository, UserManagementRepository userManagementRepository, SavedSearchPercolator savedSearchPercolator, Gazetteer gazetteer, EmailService emailService) {
+        this.savedSearchManagementRepository = savedSearchManagementRepository;
+        this.userManagementRepository = userManagementRepository;
+        this.savedSearchPercolator = savedSearchPercolator;
+        this.gazetteer = gazetteer;
+        this.emailService = emailService;
+    }
+
+    /**
+     * Saves a search, so its owner is notified about new advertisements matching it
+     * @param savedSearch search to save; paging parameters are dropped
+     * @return saved search
+     * @throws IllegalArgumentException if the search parameters are invalid
+     */
+    public SavedSearch addSavedSearch(SavedSearch savedSearch) {
+        if (savedSearch.getUser() == null)
+            throw new UserNotFoundException("User can not be null");
+        Long userId = savedSearch.getUser().getId();
+        if (!userManagementRepository.existsById(userId))
+            throw new UserNotFoundException(String.format("User with id: %d not exists!", userId));
+
+        Map<String, String> params = new HashMap<>(savedSearch.getParams() == null ? Map.of() : savedSearch.getParams());
+        params.keySet().removeAll(PAGING_PARAMS);
+        if (params.isEmpty()) {
+            throw new IllegalArgumentException("Saved search requires at least one filter");
+        }
+        AdvertisementSearchFilter.fromSearchParams(params, gazetteer);
+        savedSearch.setParams(params);
+
+        SavedSearch saved = savedSearchManagementRepository.save(savedSearch);
+        savedSearchPercolator.register(saved.getId(), saved.getParams(), gazetteer);
+        return saved;
+    }
+
+    public SavedSearch getSavedSearchById(Long id) {
+        return savedSearchManagementRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Saved search with id: %d was not found", id)));
+    }
+
+    public List<SavedSearch> getSavedSearchesByUser(Long id) {
+        return savedSearchManagementRepository.findByUser_Id(id);
+    }
+
+    public void deleteSavedSearch(Long id) {
+        if (!savedSearchManagementRepository.existsById(id)) {
+            throw new EntityNotFoundException(String.format("Saved search with id: %d was not found", id));
+        }
+
+        savedSearchManagementRepository.deleteById(id);
+        savedSearchPercolator.remove(id);
+    }
+
+    /**
+     * Notifies owners of saved searches matching a new advertisement, except the advertisement owner
+     * @param advertisement new advertisement
+     */
+    public void notifyMatchingSavedSearches(Advertisement advertisement) {
+        List<Long> matching = savedSearchPercolator.match(AdvertisementSearchDocument.of(advertisement));
+        if (matching.isEmpty()) {
+            return;
+        }
+
+        Long ownerId = advertisement.getUser() == null ? null : advertisement.getUser().getId();
+        for (SavedSearch savedSearch : savedSearchManagementRepository.findAllById(matching)) {
+            if (savedSearch.getUser() == null || Objects.equals(savedSearch.getUser().getId(), ownerId)) {
+                continue;
+            }
+            emailService.sendSavedSearchMatchEmail(savedSearch.getUser().getEmail(), savedSearch.getName(), advertisement);
+        }
+    }
+
+    /**
+     * Rebuilds the saved search index from the repository, reading saved searches in id order and in fixed size chunks
+     */
+    public void rebuildPercolator() {
+        savedSearchPercolator.clear();
+
+        long lastId = 0L;
+        List<SavedSearch> chunk = savedSearchManagementRepository.findTop500ByIdGreaterThanOrderByIdAsc(lastId);
+        while (!chunk.isEmpty()) {
+            for (SavedSearch savedSearch : chunk) {
+                try {
+                    savedSearchPercolator.register(savedSearch.getId(), savedSearch.getParams(), gazetteer);
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Skipping saved search with id: " + savedSearch.getId() + ": " + e.getMessage());
+                }
+            }
+            lastId = chunk.get(chunk.size() - 1).getId();
+            chunk = savedSearchManagementRepository.findTop500ByIdGreaterThanOrderByIdAsc(lastId);
+        }
+
+        logger.info("Saved search index rebuilt, indexed saved searches: " + savedSearchPercolator.size());
+    }
+}
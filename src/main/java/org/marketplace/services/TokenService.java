@@ -3,72 +3,144 @@ package org.marketplace.services;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.marketplace.cache.BoundedCache;
 import org.marketplace.cache.TokenCache;
+import org.marketplace.cache.TokenVersionCache;
+import org.marketplace.enums.UserRole;
+import org.marketplace.models.User;
+import org.marketplace.models.VerifiedToken;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
 @Service
-public class TokenService {
+public class TokenService implements MeterBinder {
+    private static final int VERIFIED_TOKEN_CACHE_SIZE = 10_000;
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLE_CLAIM = "role";
+    private static final String TOKEN_VERSION_CLAIM = "ver";
+
     @Autowired
     private TokenCache tokenCache;
 
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
     private String SECRET_KEY = "secret";
 
+    // tokens are verified on every authenticated request, every entry is kept until its token expires
+    private final BoundedCache<String, VerifiedToken> verifiedTokens = new BoundedCache<>(VERIFIED_TOKEN_CACHE_SIZE, 0, TimeUnit.NANOSECONDS);
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).getUsername();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return Date.from(verify(token).getExpiration());
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
+    /**
+     * Parses the token and verifies its signature, once per token: recently verified tokens are served from a cache
+     * @param token the token
+     * @return verified token, possibly expired
+     * @throws BadCredentialsException if the token is malformed or its signature does not match
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken verifiedToken = verifiedTokens.get(token);
+        if (verifiedToken != null) {
+            return verifiedToken;
+        }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody();
+        Claims claims;
+        try {
+            claims = Jwts.parser().setSigningKey(SECRET_KEY).parseClaimsJws(token).getBody();
+        } catch (RuntimeException e) {
+            throw new BadCredentialsException("Submitted token is not valid.");
+        }
+        Date expiration = claims.getExpiration();
+        verifiedToken = new VerifiedToken(token, claims.getSubject(), expiration == null ? null : expiration.toInstant(),
+                longClaim(claims, USER_ID_CLAIM), roleClaim(claims), intClaim(claims, TOKEN_VERSION_CLAIM));
+        if (!verifiedToken.isExpired()) {
+            verifiedTokens.put(token, verifiedToken, Duration.between(Instant.now(), verifiedToken.getExpiration()));
+        }
+        return verifiedToken;
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Map<String, Object> claims, String subject, Date expiration) {
         Map<String, Object> mutableClaims = new HashMap<>(claims);
         return Jwts.builder().setClaims(mutableClaims).setSubject(subject).setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
+                .setExpiration(expiration)
                 .signWith(SignatureAlgorithm.HS256, SECRET_KEY).compact();
     }
 
     /**
-     * Generate a token for the given username or return an existing one if it is not expired
-     * @param username
+     * Generate a token for the given user or return an existing one if it is not expired. The token carries
+     * the id, role and token version of the user, so requests are authenticated without loading the user.
+     * @param user authenticated user
      * @return token
      */
-    public String generateToken(String username){
+    public String generateToken(User user){
+        String username = user.getEmail();
+        // the cache drops tokens when they expire or are revoked
         String token = tokenCache.getToken(username);
-        boolean isTokenExpired = token != null && isTokenExpired(token);
-
-        if(token != null && !isTokenExpired){
+        if(token != null){
             return token;
         }
 
-        if(token != null){
-            tokenCache.removeToken(username);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getId());
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+        Date expiration = new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10);
+        token = createToken(claims, username, expiration);
+        tokenCache.saveToken(username, token, expiration.toInstant());
+        tokenVersionCache.update(user.getId(), user.getTokenVersion());
+        return token;
+    }
+
+    /**
+     * Checks that the token is not expired, carries the user claims and has not been revoked since it was issued.
+     * Does not query the database unless the token version of the user is not cached.
+     * @param verifiedToken token to check
+     * @return true if the request can be authenticated with the claims of the token
+     */
+    public boolean isAuthenticationValid(VerifiedToken verifiedToken){
+        if(verifiedToken.isExpired() || verifiedToken.getUsername() == null || verifiedToken.getUserId() == null
+                || verifiedToken.getRole() == null || verifiedToken.getTokenVersion() == null){
+            return false;
         }
+        return verifiedToken.getTokenVersion().equals(tokenVersionCache.getVersion(verifiedToken.getUserId()));
+    }
 
-        token = createToken(new HashMap<>(), username);
-        tokenCache.saveToken(username, token);
-        return token;
+    /**
+     * Revokes all tokens of the user after its token version has been incremented and saved
+     * @param user user with the new token version
+     */
+    public void revokeTokens(User user){
+        tokenCache.removeToken(user.getEmail());
+        tokenVersionCache.update(user.getId(), user.getTokenVersion());
+    }
+
+    /**
+     * Revokes all tokens of a deleted user, so a user registered later with the same email is not handed
+     * the token of the deleted one
+     * @param user the deleted user
+     */
+    public void revokeTokensOfDeletedUser(User user){
+        tokenCache.removeToken(user.getEmail());
+        verifiedTokens.invalidateIf((token, verifiedToken) -> user.getId().equals(verifiedToken.getUserId()));
+        tokenVersionCache.remove(user.getId());
     }
 
     /**
@@ -78,8 +150,21 @@ public class TokenService {
      * @return true if the token is valid, false otherwise
      */
     public Boolean validateToken(String token, UserDetails userDetails){
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        try {
+            return validateToken(verify(token), userDetails);
+        } catch (BadCredentialsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Validate an already verified token for the given user
+     * @param verifiedToken token to validate
+     * @param userDetails user details to validate against
+     * @return true if the token is valid, false otherwise
+     */
+    public boolean validateToken(VerifiedToken verifiedToken, UserDetails userDetails){
+        return verifiedToken.getUsername().equals(userDetails.getUsername()) && !verifiedToken.isExpired();
     }
 
     /**
@@ -88,7 +173,16 @@ public class TokenService {
      * @throws BadCredentialsException if the token is invalid
      */
     public void invalidateToken(String token) {
-        String username = extractUsername(token);
+        invalidateToken(verify(token));
+    }
+
+    /**
+     * Invalidate an already verified token for the given user
+     * @param verifiedToken
+     * @throws BadCredentialsException if the token has no subject or the user is not logged in
+     */
+    public void invalidateToken(VerifiedToken verifiedToken) {
+        String username = verifiedToken.getUsername();
 
         if (username == null) {
             throw new BadCredentialsException("Invalid token provided.");
@@ -96,10 +190,36 @@ public class TokenService {
 
         String cachedToken = tokenCache.getToken(username);
 
-        if (cachedToken == null || isTokenExpired(cachedToken)) {
+        // expired tokens are dropped from the cache
+        if (cachedToken == null) {
             throw new BadCredentialsException("User with the username " + username + " is not logged in or has an expired token.");
         }
 
         tokenCache.removeToken(username);
+        verifiedTokens.invalidate(verifiedToken.getToken());
+    }
+
+    private static Long longClaim(Claims claims, String name) {
+        Object value = claims.get(name);
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static Integer intClaim(Claims claims, String name) {
+        Object value = claims.get(name);
+        return value instanceof Number number ? number.intValue() : null;
+    }
+
+    private static UserRole roleClaim(Claims claims) {
+        Object value = claims.get(ROLE_CLAIM);
+        try {
+            return value == null ? null : UserRole.valueOf(value.toString());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        verifiedTokens.registerMetrics(registry, "verifiedTokens");
     }
 }
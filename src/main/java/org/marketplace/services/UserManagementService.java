@@ -3,6 +3,7 @@ package org.marketplace.services;
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
 import org.marketplace.builders.EmailBuilder;
+import org.marketplace.cache.AdvertisementCache;
 import org.marketplace.models.Email;
 import org.marketplace.models.RegistrationToken;
 import org.marketplace.models.User;
@@ -34,8 +35,11 @@ public class UserManagementService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserManagementService.class);
 
-    public UserManagementService(UserManagementRepository userManagementRepository, PasswordEncoder passwordEncoder, TokenService tokenService, EmailService emailService, RegistrationTokenManagementRepository registrationTokenManagementRepository) {
+    private final AdvertisementCache advertisementCache;
+
+    public UserManagementService(UserManagementRepository userManagementRepository, PasswordEncoder passwordEncoder, TokenService tokenService, EmailService emailService, RegistrationTokenManagementRepository registrationTokenManagementRepository, AdvertisementCache advertisementCache) {
         this.userManagementRepository = userManagementRepository;
+        this.advertisementCache = advertisementCache;
         this.passwordEncoder = passwordEncoder;
         this.tokenService = tokenService;
         this.registrationTokenManagementRepository = registrationTokenManagementRepository;
@@ -101,11 +105,21 @@ public class UserManagementService {
 
     public User updateUserAccount(User user) {
         User previousUser = userManagementRepository.findByEmail(user.getEmail());
+        boolean passwordChanged = !passwordEncoder.matches(user.getPassword(), previousUser.getPassword());
         previousUser.setPassword(passwordEncoder.encode(user.getPassword()));
         previousUser.setLogin(user.getLogin());
         previousUser.setEmail(user.getEmail());
         previousUser.setPhoneNumber(user.getPhoneNumber());
-        return updateUser(previousUser);
+        if (passwordChanged) {
+            previousUser.revokeTokens();
+        }
+
+        User updatedUser = updateUser(previousUser);
+        advertisementCache.invalidateUser(updatedUser.getId());
+        if (passwordChanged) {
+            tokenService.revokeTokens(updatedUser);
+        }
+        return updatedUser;
     }
 
     private User updateUser(User user) {
@@ -120,6 +134,8 @@ public class UserManagementService {
     }
 
     public void deleteUserById(Long id) {
+        User user = getUserById(id);
         userManagementRepository.deleteById(id);
+        tokenService.revokeTokensOfDeletedUser(user);
     }
 }
@@ -0,0 +1,48 @@
+package org.marketplace.specifications;
+
+import org.marketplace.models.Advertisement;
+import org.marketplace.search.AdvertisementSearchCursor;
+import org.springframework.data.jpa.domain.Specification;
+
+import jakarta.persistence.criteria.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Restricts a sorted advertisement query to rows that come after the cursor position,
+ * i.e. (sortKey, id) strictly greater (or lower, for descending order) than the cursor.
+ */
+public class AdvertisementKeysetSpecification implements Specification<Advertisement> {
+
+    private final AdvertisementSearchCursor cursor;
+
+    public AdvertisementKeysetSpecification(AdvertisementSearchCursor cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    public Predicate toPredicate(Root<Advertisement> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        Path<Long> id = root.get("id");
+        Long lastId = cursor.getLastId();
+
+        return switch (cursor.getField()) {
+            case ID -> after(criteriaBuilder, id, lastId);
+            case PRICE -> after(criteriaBuilder, root.<Double>get("price"), (Double) cursor.getTypedValue(), id, lastId);
+            case CREATED_AT -> after(criteriaBuilder, root.<LocalDateTime>get("createdAt"), (LocalDateTime) cursor.getTypedValue(), id, lastId);
+            case RELEVANCE -> throw new IllegalArgumentException("Relevance cursor cannot be applied to a database query");
+        };
+    }
+
+    private <Y extends Comparable<? super Y>> Predicate after(CriteriaBuilder criteriaBuilder, Path<Y> path, Y value) {
+        return cursor.getDirection().isAscending()
+                ? criteriaBuilder.greaterThan(path, value)
+                : criteriaBuilder.lessThan(path, value);
+    }
+
+    private <Y extends Comparable<? super Y>> Predicate after(CriteriaBuilder criteriaBuilder, Path<Y> path, Y value, Path<Long> id, Long lastId) {
+        return criteriaBuilder.or(
+                after(criteriaBuilder, path, value),
+                criteriaBuilder.and(criteriaBuilder.equal(path, value), after(criteriaBuilder, id, lastId))
+        );
+    }
+}
@@ -1,33 +1,212 @@
 package org.marketplace.specifications;
 
+import org.marketplace.enums.AdvertisementStatus;
 import org.marketplace.models.Advertisement;
+import org.marketplace.search.AdvertisementSearchDocument;
 import org.springframework.data.jpa.domain.Specification;
 
 import jakarta.persistence.criteria.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
 public class AdvertisementSpecification implements Specification<Advertisement> {
+    public static final String EQUAL = ":";
+    public static final String LESS_THAN = "<";
+    public static final String GREATER_THAN = ">";
+    public static final String BETWEEN = "between";
+    public static final String IN = "in";
+
+    private static final Map<String, String> OPERATION_SUFFIXES = Map.of(
+            "lt", LESS_THAN,
+            "gt", GREATER_THAN,
+            "between", BETWEEN,
+            "in", IN
+    );
+    private static final Set<String> COMPARABLE_KEYS = Set.of("price", "createdAt", "categoryId");
+    private static final Set<String> TEXT_KEYS = Set.of("title", "description", "location");
 
     private final String key;
     private final String operation;
     private final Object value;
+    private final List<Object> values;
 
+    /**
+     * @param key advertisement attribute: categoryId, price, createdAt, status, title, description or location
+     * @param operation one of ":", "<", ">", "between" or "in"; text attributes support only ":",
+     *                  status supports ":" and "in"
+     * @param value value to compare with; for "between" and "in" a comma separated string or a collection
+     * @throws IllegalArgumentException if the operation is not supported for the attribute or the value cannot be converted
+     */
     public AdvertisementSpecification(String key, String operation, Object value) {
-        this.key = key;
+        this.key = canonicalKey(key);
         this.operation = operation;
         this.value = value;
+        this.values = convertValues();
+    }
+
+    /**
+     * Creates a specification from a search parameter. The operation is given as a suffix of the parameter name,
+     * e.g. "price.lt=500", "price.gt=100", "price.between=100,500", "status.in=ACTIVE,INACTIVE";
+     * a parameter without a suffix is an equality (or, for text attributes, a substring) match.
+     * @param param search parameter name
+     * @param value search parameter value
+     * @return specification for the parameter
+     * @throws IllegalArgumentException if the operation is unknown or not supported for the attribute
+     */
+    public static AdvertisementSpecification fromSearchParam(String param, String value) {
+        int separator = param.lastIndexOf('.');
+        if (separator < 0) {
+            return new AdvertisementSpecification(param, EQUAL, value);
+        }
+
+        String operation = OPERATION_SUFFIXES.get(param.substring(separator + 1));
+        if (operation == null) {
+            throw new IllegalArgumentException("Unsupported search operation: " + param);
+        }
+        return new AdvertisementSpecification(param.substring(0, separator), operation, value);
     }
 
     @Override
     public Predicate toPredicate(Root<Advertisement> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-        if (operation.equalsIgnoreCase(":")) {
-            if (key.equalsIgnoreCase("categoryId")) {
-                return criteriaBuilder.equal(root.get("category").get("id"), value);
-            } else if (key.equalsIgnoreCase("title") || key.equalsIgnoreCase("location")) {
-                return criteriaBuilder.like(root.get(key), "%" + value + "%");
-            } else if (key.equalsIgnoreCase("price") || key.equalsIgnoreCase("status")) {
-                return criteriaBuilder.equal(root.get(key), value);
+        return switch (key) {
+            case "categoryId" -> compare(criteriaBuilder, root.get("category").<Long>get("id"), this.<Long>typedValues());
+            case "price" -> compare(criteriaBuilder, root.<Double>get("price"), this.<Double>typedValues());
+            case "createdAt" -> compare(criteriaBuilder, root.<LocalDateTime>get("createdAt"), this.<LocalDateTime>typedValues());
+            case "status" -> compare(criteriaBuilder, root.<AdvertisementStatus>get("status"), this.<AdvertisementStatus>typedValues());
+            case "title", "description", "location" -> criteriaBuilder.like(root.get(key), "%" + value + "%");
+            default -> null;
+        };
+    }
+
+    /**
+     * Evaluates the specification in memory, the same way the database would
+     * @param document searchable attributes of an advertisement
+     * @return true if the advertisement satisfies the specification; attributes unknown to the
+     * specification are not filtered on, so they always match
+     */
+    public boolean matches(AdvertisementSearchDocument document) {
+        Object actual = switch (key) {
+            case "categoryId" -> document.getCategoryId();
+            case "price" -> document.getPrice();
+            case "createdAt" -> document.getCreatedAt();
+            case "status" -> document.getStatus();
+            case "title" -> document.getTitle();
+            case "description" -> document.getDescription();
+            case "location" -> document.getLocation();
+            default -> null;
+        };
+        if (!COMPARABLE_KEYS.contains(key) && !key.equals("status") && !TEXT_KEYS.contains(key)) {
+            return true;
+        }
+        if (actual == null) {
+            return false;
+        }
+        if (TEXT_KEYS.contains(key)) {
+            return actual.toString().toLowerCase(Locale.ROOT).contains(String.valueOf(value).toLowerCase(Locale.ROOT));
+        }
+
+        @SuppressWarnings("unchecked")
+        Comparable<Object> comparable = (Comparable<Object>) actual;
+        return switch (operation) {
+            case EQUAL -> comparable.compareTo(values.get(0)) == 0;
+            case LESS_THAN -> comparable.compareTo(values.get(0)) < 0;
+            case GREATER_THAN -> comparable.compareTo(values.get(0)) > 0;
+            case BETWEEN -> comparable.compareTo(values.get(0)) >= 0 && comparable.compareTo(values.get(1)) <= 0;
+            case IN -> values.contains(actual);
+            default -> true;
+        };
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+
+    private <Y extends Comparable<? super Y>> Predicate compare(CriteriaBuilder criteriaBuilder, Expression<Y> expression, List<Y> operands) {
+        return switch (operation) {
+            case EQUAL -> criteriaBuilder.equal(expression, operands.get(0));
+            case LESS_THAN -> criteriaBuilder.lessThan(expression, operands.get(0));
+            case GREATER_THAN -> criteriaBuilder.greaterThan(expression, operands.get(0));
+            case BETWEEN -> criteriaBuilder.between(expression, operands.get(0), operands.get(1));
+            case IN -> expression.in(operands);
+            default -> null;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private <Y> List<Y> typedValues() {
+        return (List<Y>) values;
+    }
+
+    private List<Object> convertValues() {
+        boolean supported = switch (operation) {
+            case EQUAL -> true;
+            case IN -> COMPARABLE_KEYS.contains(key) || key.equals("status");
+            case LESS_THAN, GREATER_THAN, BETWEEN -> COMPARABLE_KEYS.contains(key);
+            default -> false;
+        };
+        if (!supported) {
+            throw new IllegalArgumentException(String.format("Unsupported search operation: %s %s", key, operation));
+        }
+
+        List<String> rawValues = rawValues();
+        if ((operation.equals(BETWEEN) && rawValues.size() != 2) || rawValues.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Invalid number of values for %s %s: %s", key, operation, value));
+        }
+
+        List<Object> converted = new ArrayList<>(rawValues.size());
+        for (String rawValue : rawValues) {
+            converted.add(convert(rawValue));
+        }
+        return converted;
+    }
+
+    private List<String> rawValues() {
+        if (value instanceof Collection<?> collection) {
+            List<String> rawValues = new ArrayList<>(collection.size());
+            for (Object element : collection) {
+                rawValues.add(String.valueOf(element));
+            }
+            return rawValues;
+        }
+
+        String stringValue = String.valueOf(value);
+        if (operation.equals(BETWEEN) || operation.equals(IN)) {
+            return Arrays.asList(stringValue.split(","));
+        }
+        return List.of(stringValue);
+    }
+
+    private Object convert(String rawValue) {
+        String trimmed = rawValue.trim();
+        try {
+            return switch (key) {
+                case "categoryId" -> Long.valueOf(trimmed);
+                case "price" -> Double.valueOf(trimmed);
+                case "createdAt" -> trimmed.length() == 10 ? LocalDate.parse(trimmed).atStartOfDay() : LocalDateTime.parse(trimmed);
+                case "status" -> AdvertisementStatus.valueOf(trimmed.toUpperCase(Locale.ROOT));
+                default -> rawValue;
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(String.format("Invalid value for %s: %s", key, rawValue));
+        }
+    }
+
+    private static String canonicalKey(String key) {
+        for (String knownKey : List.of("categoryId", "price", "createdAt", "status", "title", "description", "location")) {
+            if (knownKey.equalsIgnoreCase(key)) {
+                return knownKey;
             }
         }
-        return null;
+        return key;
     }
-}
\ No newline at end of file
+}
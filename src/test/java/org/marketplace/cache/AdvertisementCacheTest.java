@@ -0,0 +1,168 @@
+package org.marketplace.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class AdvertisementCacheTest {
+
+    @Mock
+    private AdvertisementManagementRepository advertisementManagementRepository;
+
+    private AdvertisementCache advertisementCache;
+    private Advertisement advertisement;
+
+    @BeforeEach
+    public void setUp() {
+        advertisementCache = new AdvertisementCache(advertisementManagementRepository, 100, 60, 5);
+        advertisement = new Advertisement(1L, "Title", "Description", null, null, 100.0, "Location");
+    }
+
+    @Test
+    public void testAdvertisementIsReadOnce() {
+        // given
+        given(advertisementManagementRepository.findById(1L)).willReturn(Optional.of(advertisement));
+
+        // when
+        Optional<Advertisement> first = advertisementCache.get(1L);
+        Optional<Advertisement> second = advertisementCache.get(1L);
+
+        // then
+        assertThat(first).containsSame(advertisement);
+        assertThat(second).containsSame(advertisement);
+        verify(advertisementManagementRepository, times(1)).findById(1L);
+        assertThat(advertisementCache.getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void testMissingAdvertisementIsCached() {
+        // given
+        given(advertisementManagementRepository.findById(2L)).willReturn(Optional.empty());
+
+        // when
+        advertisementCache.get(2L);
+        Optional<Advertisement> second = advertisementCache.get(2L);
+
+        // then
+        assertThat(second).isEmpty();
+        verify(advertisementManagementRepository, times(1)).findById(2L);
+    }
+
+    @Test
+    public void testInvalidatedAdvertisementIsReadAgain() {
+        // given
+        Advertisement changed = new Advertisement(1L, "Changed title", "Description", null, null, 90.0, "Location");
+        given(advertisementManagementRepository.findById(1L)).willReturn(Optional.of(advertisement), Optional.of(changed));
+        advertisementCache.get(1L);
+
+        // when
+        advertisementCache.invalidate(1L);
+
+        // then
+        assertThat(advertisementCache.get(1L)).containsSame(changed);
+    }
+
+    @Test
+    public void testAdvertisementEmbeddingChangedCategoryIsReadAgain() {
+        // given
+        Advertisement other = new Advertisement(2L, "Other title", "Description", new Category(2L, "Other"), null, 90.0, "Location");
+        advertisement.setCategory(new Category(1L, "Bikes"));
+        given(advertisementManagementRepository.findById(1L)).willReturn(Optional.of(advertisement));
+        given(advertisementManagementRepository.findById(2L)).willReturn(Optional.of(other));
+        advertisementCache.get(1L);
+        advertisementCache.get(2L);
+
+        // when
+        advertisementCache.invalidateCategory(1L);
+
+        // then
+        assertThat(advertisementCache.getIfPresent(1L)).isNull();
+        assertThat(advertisementCache.getIfPresent(2L)).containsSame(other);
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        // given
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(advertisementManagementRepository.findById(1L)).willAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(advertisement);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        List<Future<Optional<Advertisement>>> results = new ArrayList<>();
+        results.add(executor.submit(() -> advertisementCache.get(1L)));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 7; i++) {
+            results.add(executor.submit(() -> advertisementCache.get(1L)));
+        }
+        while (advertisementCache.getCoalescedCount() < 7) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // then
+        for (Future<Optional<Advertisement>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).containsSame(advertisement);
+        }
+        executor.shutdown();
+        verify(advertisementManagementRepository, times(1)).findById(1L);
+        assertThat(advertisementCache.getLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidationDiscardsOnlyLoadOfSameId() throws Exception {
+        // given
+        Advertisement other = new Advertisement(2L, "Other title", "Description", null, null, 90.0, "Location");
+        CountDownLatch loading = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        given(advertisementManagementRepository.findById(1L)).willAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(advertisement);
+        });
+        given(advertisementManagementRepository.findById(2L)).willAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(other);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // when
+        Future<Optional<Advertisement>> first = executor.submit(() -> advertisementCache.get(1L));
+        Future<Optional<Advertisement>> second = executor.submit(() -> advertisementCache.get(2L));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        advertisementCache.invalidate(2L);
+        release.countDown();
+
+        // then
+        assertThat(first.get(5, TimeUnit.SECONDS)).containsSame(advertisement);
+        assertThat(second.get(5, TimeUnit.SECONDS)).containsSame(other);
+        executor.shutdown();
+        assertThat(advertisementCache.getIfPresent(1L)).containsSame(advertisement);
+        assertThat(advertisementCache.getIfPresent(2L)).isNull();
+    }
+}
@@ -0,0 +1,126 @@
+package org.marketplace.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedCacheTest {
+
+    private AtomicLong time;
+    private BoundedCache<String, String> cache;
+
+    @BeforeEach
+    public void setUp() {
+        time = new AtomicLong();
+        cache = new BoundedCache<>(2, 10, TimeUnit.SECONDS, time::get);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedEntry() {
+        // given
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+
+        // when
+        cache.put("c", "3");
+
+        // then
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo("3");
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExpiresEntriesAfterTimeToLive() {
+        // given
+        cache.put("a", "1");
+
+        // when
+        time.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // then
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidateIf() {
+        // given
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        // when
+        int removed = cache.invalidateIf((key, value) -> value.equals("2"));
+
+        // then
+        assertThat(removed).isEqualTo(1);
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testPerEntryTimeToLive() {
+        // given
+        cache.put("a", "1", Duration.ofSeconds(30));
+        cache.put("b", "2", Duration.ofSeconds(5));
+
+        // when
+        time.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // then
+        assertThat(cache.get("a")).isEqualTo("1");
+        assertThat(cache.get("b")).isNull();
+    }
+
+    @Test
+    public void testCleanUpRemovesOnlyExpiredEntries() {
+        // given
+        BoundedCache<String, String> largeCache = new BoundedCache<>(10, 10, TimeUnit.SECONDS, time::get);
+        largeCache.put("a", "1");
+        largeCache.put("b", "2", Duration.ofSeconds(2));
+        time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        largeCache.put("c", "3");
+        largeCache.put("a", "4");
+
+        // when
+        time.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        int removed = largeCache.cleanUp();
+
+        // then
+        assertThat(removed).isEqualTo(1);
+        assertThat(largeCache.size()).isEqualTo(2);
+        assertThat(largeCache.get("a")).isEqualTo("4");
+        assertThat(largeCache.get("c")).isEqualTo("3");
+        assertThat(largeCache.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCleanUpRemovesEntriesWithOwnTimeToLiveInOrderOfExpiry() {
+        // given
+        BoundedCache<String, String> largeCache = new BoundedCache<>(1000, 10, TimeUnit.SECONDS, time::get);
+        for (int i = 1000; i > 0; i--) {
+            largeCache.put("token" + i, "value", Duration.ofSeconds(i));
+        }
+        largeCache.put("fixed", "value");
+
+        // when
+        time.addAndGet(TimeUnit.SECONDS.toNanos(100));
+        int removed = largeCache.cleanUp();
+
+        // then
+        assertThat(removed).isEqualTo(101);
+        assertThat(largeCache.size()).isEqualTo(899);
+        assertThat(largeCache.get("fixed")).isNull();
+        assertThat(largeCache.get("token101")).isEqualTo("value");
+    }
+}
@@ -0,0 +1,89 @@
+package org.marketplace.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.repositories.AdvertisementImageManagementRepository;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class ResourceOwnerCacheTest {
+
+    @Mock
+    private AdvertisementManagementRepository advertisementManagementRepository;
+
+    @Mock
+    private AdvertisementImageManagementRepository advertisementImageManagementRepository;
+
+    private ResourceOwnerCache resourceOwnerCache;
+
+    @BeforeEach
+    public void setUp() {
+        resourceOwnerCache = new ResourceOwnerCache(advertisementManagementRepository, advertisementImageManagementRepository, 100, 600);
+    }
+
+    @Test
+    public void testOwnerIsReadOnce() {
+        // given
+        given(advertisementManagementRepository.findOwnerIdById(1L)).willReturn(Optional.of(7L));
+
+        // when
+        Long first = resourceOwnerCache.getAdvertisementOwnerId(1L);
+        Long second = resourceOwnerCache.getAdvertisementOwnerId(1L);
+
+        // then
+        assertThat(first).isEqualTo(7L);
+        assertThat(second).isEqualTo(7L);
+        verify(advertisementManagementRepository, times(1)).findOwnerIdById(1L);
+    }
+
+    @Test
+    public void testInvalidatedOwnerIsReadAgain() {
+        // given
+        given(advertisementManagementRepository.findOwnerIdById(1L)).willReturn(Optional.of(7L), Optional.of(8L));
+        resourceOwnerCache.getAdvertisementOwnerId(1L);
+
+        // when
+        resourceOwnerCache.invalidateAdvertisement(1L);
+
+        // then
+        assertThat(resourceOwnerCache.getAdvertisementOwnerId(1L)).isEqualTo(8L);
+    }
+
+    @Test
+    public void testMissingAdvertisementIsNotCached() {
+        // given
+        given(advertisementManagementRepository.findOwnerIdById(1L)).willReturn(Optional.empty());
+
+        // when
+        resourceOwnerCache.getAdvertisementOwnerId(1L);
+        Long ownerId = resourceOwnerCache.getAdvertisementOwnerId(1L);
+
+        // then
+        assertThat(ownerId).isNull();
+        verify(advertisementManagementRepository, times(2)).findOwnerIdById(1L);
+    }
+
+    @Test
+    public void testImageAdvertisementIsCached() {
+        // given
+        given(advertisementImageManagementRepository.findAdvertisementIdById(3L)).willReturn(Optional.of(1L));
+
+        // when
+        resourceOwnerCache.getImageAdvertisementId(3L);
+        Long advertisementId = resourceOwnerCache.getImageAdvertisementId(3L);
+
+        // then
+        assertThat(advertisementId).isEqualTo(1L);
+        verify(advertisementImageManagementRepository, times(1)).findAdvertisementIdById(3L);
+    }
+}
@@ -0,0 +1,56 @@
+package org.marketplace.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TokenCacheTest {
+
+    @Test
+    public void testTokenIsKeptUntilItsExpiry() {
+        // given
+        TokenCache tokenCache = new TokenCache(10);
+
+        // when
+        tokenCache.saveToken("john", "token", Instant.now().plus(1, ChronoUnit.HOURS));
+
+        // then
+        assertThat(tokenCache.getToken("john")).isEqualTo("token");
+        assertThat(tokenCache.getCache().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExpiredTokenIsNotCached() {
+        // given
+        TokenCache tokenCache = new TokenCache(10);
+        tokenCache.saveToken("john", "old", Instant.now().plus(1, ChronoUnit.HOURS));
+
+        // when
+        tokenCache.saveToken("john", "expired", Instant.now().minusSeconds(1));
+
+        // then
+        assertThat(tokenCache.getToken("john")).isNull();
+        assertThat(tokenCache.getCache().size()).isZero();
+    }
+
+    @Test
+    public void testLeastRecentlyActiveUserIsDroppedWhenFull() {
+        // given
+        TokenCache tokenCache = new TokenCache(2);
+        Instant expiry = Instant.now().plus(1, ChronoUnit.HOURS);
+        tokenCache.saveToken("john", "first", expiry);
+        tokenCache.saveToken("jane", "second", expiry);
+        tokenCache.getToken("john");
+
+        // when
+        tokenCache.saveToken("jack", "third", expiry);
+
+        // then
+        assertThat(tokenCache.getToken("jane")).isNull();
+        assertThat(tokenCache.getToken("john")).isEqualTo("first");
+        assertThat(tokenCache.getCache().getEvictionCount()).isEqualTo(1);
+    }
+}
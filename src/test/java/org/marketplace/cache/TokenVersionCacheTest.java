@@ -0,0 +1,111 @@
+package org.marketplace.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.repositories.UserManagementRepository;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class TokenVersionCacheTest {
+
+    @Mock
+    private UserManagementRepository userManagementRepository;
+
+    private TokenVersionCache tokenVersionCache;
+
+    @BeforeEach
+    public void setUp() {
+        tokenVersionCache = new TokenVersionCache(userManagementRepository, 100, 300);
+    }
+
+    @Test
+    public void testVersionIsReadOnce() {
+        // given
+        given(userManagementRepository.findTokenVersionById(1L)).willReturn(3);
+
+        // when
+        Integer first = tokenVersionCache.getVersion(1L);
+        Integer second = tokenVersionCache.getVersion(1L);
+
+        // then
+        assertThat(first).isEqualTo(3);
+        assertThat(second).isEqualTo(3);
+        verify(userManagementRepository, times(1)).findTokenVersionById(1L);
+    }
+
+    @Test
+    public void testMissingUserIsCached() {
+        // given
+        given(userManagementRepository.findTokenVersionById(1L)).willReturn(null);
+
+        // when
+        tokenVersionCache.getVersion(1L);
+        Integer version = tokenVersionCache.getVersion(1L);
+
+        // then
+        assertThat(version).isNull();
+        verify(userManagementRepository, times(1)).findTokenVersionById(1L);
+    }
+
+    @Test
+    public void testUpdateDuringReadIsNotOverwritten() throws Exception {
+        // given
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(userManagementRepository.findTokenVersionById(1L)).willAnswer(invocation -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 3;
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when
+        Future<Integer> staleRead = executor.submit(() -> tokenVersionCache.getVersion(1L));
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+        tokenVersionCache.update(1L, 4);
+        release.countDown();
+
+        // then
+        assertThat(staleRead.get(5, TimeUnit.SECONDS)).isEqualTo(3);
+        executor.shutdown();
+        assertThat(tokenVersionCache.getVersion(1L)).isEqualTo(4);
+        verify(userManagementRepository, times(1)).findTokenVersionById(1L);
+    }
+
+    @Test
+    public void testRemoveDuringReadIsNotOverwritten() throws Exception {
+        // given
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(userManagementRepository.findTokenVersionById(1L)).willAnswer(invocation -> {
+            reading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 3;
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when
+        Future<Integer> staleRead = executor.submit(() -> tokenVersionCache.getVersion(1L));
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+        tokenVersionCache.remove(1L);
+        release.countDown();
+
+        // then
+        staleRead.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertThat(tokenVersionCache.getVersion(1L)).isNull();
+    }
+}
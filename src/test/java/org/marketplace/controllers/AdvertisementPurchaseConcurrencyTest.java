@@ -0,0 +1,131 @@
+package org.marketplace.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.marketplace.configuration.DataLoader;
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.models.User;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.repositories.CategoryManagementRepository;
+import org.marketplace.repositories.UserManagementRepository;
+import org.marketplace.services.ResourceAccessAuthorizationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Buys the same advertisement from many threads at once, the purchases are not rolled back so the buyers
+ * really compete for the row in the database.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles(value = "test")
+public class AdvertisementPurchaseConcurrencyTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AdvertisementManagementRepository advertisementManagementRepository;
+    @Autowired
+    private UserManagementRepository userManagementRepository;
+    @Autowired
+    private CategoryManagementRepository categoryManagementRepository;
+    @MockBean
+    private ResourceAccessAuthorizationService resourceAccessAuthorizationService;
+    @MockBean
+    private JavaMailSender javaMailSender;
+    @MockBean
+    private DataLoader dataLoader;
+
+    private User owner;
+    private Category category;
+    private Advertisement advertisement;
+
+    @BeforeEach
+    public void setUp() {
+        String login = "seller" + System.nanoTime();
+        owner = userManagementRepository.save(new User(login, "password", login + "@example.com", "123456789"));
+        category = categoryManagementRepository.save(new Category(null, "Flash sale " + login));
+        advertisement = advertisementManagementRepository.save(new Advertisement("Limited sneakers", "Only one pair", category, owner, 199.0, "Warsaw"));
+        given(resourceAccessAuthorizationService.extractCurrentUserId()).willReturn(owner.getId() + 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        advertisementManagementRepository.deleteById(advertisement.getId());
+        categoryManagementRepository.deleteById(category.getId());
+        userManagementRepository.deleteById(owner.getId());
+    }
+
+    @Test
+    public void testConcurrentPurchasesHaveSingleWinner() throws InterruptedException {
+        // when
+        Map<Integer, AtomicInteger> statuses = buyConcurrently(200, 16);
+
+        // then
+        assertThat(statuses.get(200)).hasValue(1);
+        assertThat(statuses.get(409)).hasValue(199);
+        assertThat(statuses).containsOnlyKeys(200, 409);
+        Advertisement bought = advertisementManagementRepository.findById(advertisement.getId()).orElseThrow();
+        assertThat(bought.getStatus()).isEqualTo(AdvertisementStatus.BOUGHT);
+        assertThat(bought.getBuyerId()).isEqualTo(owner.getId() + 1);
+    }
+
+    /**
+     * Fires thousands of purchases of a single advertisement, losers are answered without retries.
+     * Run with "gradle benchmark".
+     */
+    @Test
+    @Tag("benchmark")
+    public void benchmarkFlashSale() throws InterruptedException {
+        int calls = 5000;
+        long start = System.nanoTime();
+
+        Map<Integer, AtomicInteger> statuses = buyConcurrently(calls, 32);
+
+        double throughput = calls / ((System.nanoTime() - start) / 1e9);
+        System.out.printf("Purchases of a single advertisement, requests/s: %.0f, responses by status: %s%n", throughput, statuses);
+        assertThat(statuses.get(200)).hasValue(1);
+        assertThat(statuses.get(409)).hasValue(calls - 1);
+    }
+
+    private Map<Integer, AtomicInteger> buyConcurrently(int calls, int threads) throws InterruptedException {
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < calls; i++) {
+            executor.execute(() -> {
+                try {
+                    startSignal.await();
+                    int status = mockMvc.perform(put("/api/advertisement/buy/" + advertisement.getId())).andReturn().getResponse().getStatus();
+                    statuses.computeIfAbsent(status, key -> new AtomicInteger()).incrementAndGet();
+                } catch (Exception e) {
+                    statuses.computeIfAbsent(-1, key -> new AtomicInteger()).incrementAndGet();
+                }
+            });
+        }
+        startSignal.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        return statuses;
+    }
+}
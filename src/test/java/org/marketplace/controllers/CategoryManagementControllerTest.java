@@ -29,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -87,6 +88,34 @@ public class CategoryManagementControllerTest {
                 .andExpect(content().contentType(APPLICATION_JSON));
     }
 
+    @Test
+    public void getAllCategories_notModified() throws Exception {
+        mockMvc.perform(post("/api/categories/add")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"name\":\"SampleCategory\"}"))
+                .andExpect(status().isCreated());
+
+        String eTag = mockMvc.perform(get("/api/categories/all"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // an unchanged list is not sent again
+        mockMvc.perform(get("/api/categories/all").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // a new category changes the version
+        mockMvc.perform(post("/api/categories/add")
+                        .contentType(APPLICATION_JSON)
+                        .content("{\"name\":\"OtherCategory\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/api/categories/all").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(APPLICATION_JSON));
+    }
+
     @Test
     public void getCategoryById_negative() throws Exception {
         // Fetch a category that does not exist
@@ -0,0 +1,108 @@
+package org.marketplace.controllers;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.marketplace.configuration.DataLoader;
+import org.marketplace.models.Category;
+import org.marketplace.models.User;
+import org.marketplace.repositories.CategoryManagementRepository;
+import org.marketplace.repositories.UserManagementRepository;
+import org.marketplace.services.CategoryManagementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the statements Hibernate prepares for reads of cached reference data. Not transactional,
+ * every read runs in its own session, so only the second-level cache can answer it.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles(value = "test")
+public class SecondLevelCacheTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private CategoryManagementRepository categoryManagementRepository;
+    @Autowired
+    private UserManagementRepository userManagementRepository;
+    @Autowired
+    private CategoryManagementService categoryManagementService;
+    @MockBean
+    private JavaMailSender javaMailSender;
+    @MockBean
+    private DataLoader dataLoader;
+
+    private Statistics statistics;
+    private Category category;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String login = "cached" + System.nanoTime();
+        category = categoryManagementRepository.save(new Category(null, "Cached"));
+        user = userManagementRepository.save(new User(login, "password", login + "@example.com", "123456789"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        categoryManagementRepository.deleteById(category.getId());
+        userManagementRepository.deleteById(user.getId());
+    }
+
+    @Test
+    public void testCategoryRequestIsAnsweredFromCache() throws Exception {
+        // given
+        mockMvc.perform(get("/api/categories/" + category.getId())).andExpect(status().isOk());
+        statistics.clear();
+
+        // when
+        mockMvc.perform(get("/api/categories/" + category.getId())).andExpect(status().isOk());
+
+        // then
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUserIsFoundByEmailFromCache() {
+        // given
+        userManagementRepository.findByEmail(user.getEmail());
+        statistics.clear();
+
+        // when
+        User found = userManagementRepository.findByEmail(user.getEmail());
+
+        // then
+        assertThat(found.getId()).isEqualTo(user.getId());
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUpdatedCategoryIsNotServedStale() {
+        // given
+        categoryManagementService.getCategoryById(category.getId());
+
+        // when
+        categoryManagementService.updateCategory(new Category(category.getId(), "Renamed"));
+
+        // then
+        assertThat(categoryManagementService.getCategoryById(category.getId()).getName()).isEqualTo("Renamed");
+    }
+}
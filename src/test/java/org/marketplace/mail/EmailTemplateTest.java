@@ -0,0 +1,80 @@
+package org.marketplace.mail;
+
+import org.junit.jupiter.api.Test;
+import org.marketplace.models.Email;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EmailTemplateTest {
+
+    @Test
+    public void testRenderFillsInPlaceholders() {
+        // given
+        EmailTemplate template = EmailTemplate.compile("Hello {recipient}, {title} costs {price}");
+
+        // when
+        String text = template.render(Map.of("recipient", "john@example.com", "title", "Bike", "price", 80.0));
+
+        // then
+        assertThat(text).isEqualTo("Hello john@example.com, Bike costs 80.0");
+    }
+
+    @Test
+    public void testBindLeavesOnlyUnboundPlaceholders() {
+        // given
+        EmailTemplate template = EmailTemplate.compile("Hello {recipient}, {title} costs {price}");
+
+        // when
+        EmailTemplate bound = template.bind(Map.of("title", "Bike", "price", 80.0));
+
+        // then
+        assertThat(bound.getPlaceholders()).containsExactly("recipient");
+        assertThat(bound.render("recipient", "john@example.com")).isEqualTo("Hello john@example.com, Bike costs 80.0");
+    }
+
+    @Test
+    public void testMissingValueKeepsPlaceholder() {
+        // given
+        EmailTemplate template = EmailTemplate.compile("{greeting} {recipient}");
+
+        // when
+        String text = template.render("recipient", "john@example.com");
+
+        // then
+        assertThat(text).isEqualTo("{greeting} john@example.com");
+    }
+
+    @Test
+    public void testUnclosedPlaceholderIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("Hello {recipient"));
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.compile("Hello {}"));
+    }
+
+    @Test
+    public void testTemplatesAreLocalized() {
+        // given
+        EmailTemplates emailTemplates = new EmailTemplates("email/localized", "en,pl", "en");
+
+        // when
+        Email english = emailTemplates.prepare("observer.bought", Map.of("title", "Bike")).to("john@example.com");
+        Email polish = emailTemplates.prepare("observer.bought", Map.of("title", "Bike"), Locale.forLanguageTag("pl")).to("john@example.com");
+        Email fallback = emailTemplates.prepare("observer.bought", Map.of("title", "Bike"), Locale.GERMAN).to("john@example.com");
+
+        // then
+        assertThat(english.getSubject()).isEqualTo("Advertisement Bike has been bought!");
+        assertThat(polish.getSubject()).isEqualTo("Ogłoszenie Bike zostało kupione!");
+        assertThat(polish.getTo()).containsExactly("john@example.com");
+        assertThat(fallback.getSubject()).isEqualTo(english.getSubject());
+    }
+
+    @Test
+    public void testUnknownTemplateIsRejected() {
+        EmailTemplates emailTemplates = new EmailTemplates("email/templates", "en", "en");
+
+        assertThrows(IllegalArgumentException.class, () -> emailTemplates.get("observer.unknown.subject"));
+    }
+}
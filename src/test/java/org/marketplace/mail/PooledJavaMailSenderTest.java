@@ -0,0 +1,156 @@
+package org.marketplace.mail;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.marketplace.builders.EmailBuilder;
+import org.marketplace.models.Email;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PooledJavaMailSenderTest {
+
+    @RegisterExtension
+    static GreenMailExtension smtpServer = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private PooledJavaMailSender mailSender;
+
+    @AfterEach
+    public void tearDown() {
+        if (mailSender != null) {
+            mailSender.destroy();
+        }
+    }
+
+    @Test
+    public void testConnectionIsReusedAcrossSends() {
+        // given
+        mailSender = pooledSender(2, 100, Duration.ofMinutes(1));
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            mailSender.send(email(i));
+        }
+
+        // then
+        assertThat(smtpServer.getReceivedMessages()).hasSize(5);
+        assertThat(mailSender.getOpenedConnectionCount()).isEqualTo(1);
+        assertThat(mailSender.getIdleConnectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testConnectionIsReplacedAfterMessageLimit() {
+        // given
+        mailSender = pooledSender(2, 2, Duration.ofMinutes(1));
+
+        // when
+        mailSender.send(email(0), email(1), email(2), email(3), email(4));
+
+        // then
+        assertThat(smtpServer.getReceivedMessages()).hasSize(5);
+        assertThat(mailSender.getOpenedConnectionCount()).isEqualTo(3);
+        assertThat(mailSender.getIdleConnectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testIdleConnectionsAreEvicted() throws InterruptedException {
+        // given
+        mailSender = pooledSender(2, 100, Duration.ofMillis(1));
+        mailSender.send(email(0));
+
+        // when
+        Thread.sleep(10);
+        mailSender.evictIdleConnections();
+        mailSender.send(email(1));
+
+        // then
+        assertThat(mailSender.getOpenedConnectionCount()).isEqualTo(2);
+        assertThat(smtpServer.getReceivedMessages()).hasSize(2);
+    }
+
+    @Test
+    public void testUnreachableServerFailsAllMessages() {
+        // given
+        mailSender = pooledSender(2, 100, Duration.ofMinutes(1));
+        mailSender.setPort(ServerSetupTest.SMTP.getPort() + 1);
+
+        // when
+        MailSendException thrown = assertThrows(MailSendException.class, () -> mailSender.send(email(0), email(1)));
+
+        // then
+        assertThat(thrown.getFailedMessages()).hasSize(2);
+        assertThat(mailSender.getIdleConnectionCount()).isZero();
+    }
+
+    /**
+     * Compares sending one message per call over a new connection each time with pooled connections.
+     * Run with "gradle benchmark".
+     */
+    @Test
+    @Tag("benchmark")
+    public void benchmarkThroughput() throws InterruptedException {
+        int messages = 2000;
+        int threads = 4;
+        JavaMailSenderImpl plainSender = new JavaMailSenderImpl();
+        plainSender.setHost("localhost");
+        plainSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailSender = pooledSender(threads, 100, Duration.ofMinutes(1));
+
+        double plain = throughput(messages, threads, i -> plainSender.send(email(i)));
+        double pooled = throughput(messages, threads, i -> mailSender.send(email(i)));
+        double pooledBatches = throughput(messages / 50, threads, i -> {
+            Email[] batch = new Email[50];
+            for (int j = 0; j < batch.length; j++) {
+                batch[j] = email(i * 50 + j);
+            }
+            mailSender.send(batch);
+        }) * 50;
+
+        System.out.printf("SMTP throughput, messages/s: connection per message %.0f, pooled %.0f, pooled batches of 50 %.0f, connections opened %d%n",
+                plain, pooled, pooledBatches, mailSender.getOpenedConnectionCount());
+        assertThat(smtpServer.getReceivedMessages()).hasSize(messages * 3);
+    }
+
+    private double throughput(int calls, int threads, SendCall sendCall) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            int call = i;
+            executor.execute(() -> sendCall.send(call));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+        return calls / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static PooledJavaMailSender pooledSender(int maxConnections, int maxMessagesPerConnection, Duration idleTimeout) {
+        PooledJavaMailSender sender = new PooledJavaMailSender(maxConnections, maxMessagesPerConnection, idleTimeout);
+        sender.setHost("localhost");
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        return sender;
+    }
+
+    private static Email email(int number) {
+        return new EmailBuilder()
+                .setFrom("marketplace@example.com")
+                .setTo("observer" + number + "@example.com")
+                .setSubject("Price change for advertisement " + number)
+                .setContent("The price has been changed")
+                .build();
+    }
+
+    private interface SendCall {
+        void send(int call);
+    }
+}
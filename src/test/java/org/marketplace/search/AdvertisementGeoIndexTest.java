@@ -0,0 +1,93 @@
+package org.marketplace.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.models.User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AdvertisementGeoIndexTest {
+
+    private static final GeoPoint KRAKOW = new GeoPoint(50.0647, 19.9450);
+
+    private AdvertisementGeoIndex advertisementGeoIndex;
+    private Gazetteer gazetteer;
+
+    @BeforeEach
+    public void setUp() {
+        advertisementGeoIndex = new AdvertisementGeoIndex();
+        gazetteer = new Gazetteer("gazetteer.csv");
+        index(1L, "Kraków");
+        index(2L, "Skawina");
+        index(3L, "Wieliczka, Małopolska");
+        index(4L, "Myślenice");
+        index(5L, "Katowice");
+        index(6L, "Somewhere");
+    }
+
+    @Test
+    public void testGazetteerResolvesLocationIgnoringDiacritics() {
+        assertThat(gazetteer.resolve("krakow").getLatitude()).isEqualTo(KRAKOW.getLatitude());
+        assertThat(gazetteer.resolve("Podgórze, Kraków").getLongitude()).isEqualTo(KRAKOW.getLongitude());
+        assertThat(gazetteer.resolve("Somewhere")).isNull();
+    }
+
+    @Test
+    public void testSearchWithinRadiusReturnsNearestFirst() {
+        // when
+        List<Long> ids = advertisementGeoIndex.search(GeoQueryClause.withinRadius(KRAKOW, 20));
+
+        // then
+        assertThat(ids).containsExactly(1L, 3L, 2L);
+    }
+
+    @Test
+    public void testSearchWithinBoundingBox() {
+        // when
+        List<Long> ids = advertisementGeoIndex.search(GeoQueryClause.withinBoundingBox(new GeoPoint(49.8, 19.0), new GeoPoint(50.0, 20.1)));
+
+        // then
+        assertThat(ids).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    public void testRemovedAndMovedAdvertisementsAreNotFound() {
+        // given
+        advertisementGeoIndex.remove(1L);
+        index(2L, "Gdańsk");
+
+        // when
+        List<Long> ids = advertisementGeoIndex.search(GeoQueryClause.withinRadius(KRAKOW, 20));
+
+        // then
+        assertThat(ids).containsExactly(3L);
+        assertThat(advertisementGeoIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void testFromSearchParams() {
+        // when
+        GeoQueryClause clause = GeoQueryClause.fromSearchParams(new HashMap<>(Map.of("near", "Krakow", "radiusKm", "30")), gazetteer);
+
+        // then
+        assertThat(clause.isRadius()).isTrue();
+        assertThat(clause.getRadiusKm()).isEqualTo(30);
+        assertThat(advertisementGeoIndex.search(clause)).containsExactly(1L, 3L, 2L, 4L);
+        assertThrows(IllegalArgumentException.class, () -> GeoQueryClause.fromSearchParams(new HashMap<>(Map.of("near", "Krakow", "bbox", "1,2,3,4")), gazetteer));
+        assertThrows(IllegalArgumentException.class, () -> GeoQueryClause.fromSearchParams(new HashMap<>(Map.of("lat", "50.06")), gazetteer));
+        assertThrows(IllegalArgumentException.class, () -> GeoQueryClause.fromSearchParams(new HashMap<>(Map.of("lat", "95", "lon", "19")), gazetteer));
+    }
+
+    private void index(Long id, String location) {
+        Advertisement advertisement = new Advertisement(id, "Title " + id, "Description", new Category(1L, "Bikes"), new User(1L), 100.0, location);
+        advertisement.setCoordinates(gazetteer.resolve(location));
+        advertisementGeoIndex.index(advertisement);
+    }
+}
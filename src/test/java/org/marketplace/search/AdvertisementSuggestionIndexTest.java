@@ -0,0 +1,67 @@
+package org.marketplace.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.models.User;
+import org.marketplace.requests.AdvertisementSuggestion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdvertisementSuggestionIndexTest {
+
+    private AdvertisementSuggestionIndex advertisementSuggestionIndex;
+
+    @BeforeEach
+    public void setUp() {
+        advertisementSuggestionIndex = new AdvertisementSuggestionIndex();
+        index(1L, "Mountain bike");
+        index(2L, "Mountain bike");
+        index(3L, "Mountain boots");
+        index(4L, "Road bike");
+        index(5L, "Monitor 27 inch");
+    }
+
+    @Test
+    public void testSuggestMostPopularFirst() {
+        assertThat(advertisementSuggestionIndex.suggest("mo", 10))
+                .extracting(AdvertisementSuggestion::getTitle)
+                .containsExactly("Mountain bike", "Monitor 27 inch", "Mountain boots");
+        assertThat(advertisementSuggestionIndex.suggest("Mountain B", 1))
+                .extracting(AdvertisementSuggestion::getCount)
+                .containsExactly(2);
+    }
+
+    @Test
+    public void testSuggestFromWordStart() {
+        assertThat(advertisementSuggestionIndex.suggest("bik", 10))
+                .extracting(AdvertisementSuggestion::getTitle)
+                .containsExactly("Mountain bike", "Road bike");
+        assertThat(advertisementSuggestionIndex.suggest("untain", 10)).isEmpty();
+    }
+
+    @Test
+    public void testSuggestionsFollowAdvertisementChanges() {
+        // given
+        advertisementSuggestionIndex.remove(1L);
+        advertisementSuggestionIndex.remove(2L);
+        Advertisement bought = new Advertisement(3L, "Mountain boots", "Description", new Category(1L), new User(1L), 100.0, "Kraków");
+        bought.setStatus(AdvertisementStatus.BOUGHT);
+        advertisementSuggestionIndex.index(bought);
+
+        // when & then
+        assertThat(advertisementSuggestionIndex.suggest("mo", 10))
+                .extracting(AdvertisementSuggestion::getTitle)
+                .containsExactly("Monitor 27 inch");
+        assertThat(advertisementSuggestionIndex.suggest("bike", 10))
+                .extracting(AdvertisementSuggestion::getTitle)
+                .containsExactly("Road bike");
+        assertThat(advertisementSuggestionIndex.size()).isEqualTo(2);
+    }
+
+    private void index(Long id, String title) {
+        advertisementSuggestionIndex.index(new Advertisement(id, title, "Description", new Category(1L), new User(1L), 100.0, "Kraków"));
+    }
+}
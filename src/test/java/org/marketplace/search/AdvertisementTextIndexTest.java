@@ -0,0 +1,67 @@
+package org.marketplace.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.marketplace.enums.AdvertisementTextField;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.models.User;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdvertisementTextIndexTest {
+
+    private AdvertisementTextIndex advertisementTextIndex;
+    private Category category;
+    private User user;
+
+    @BeforeEach
+    public void setUp() {
+        advertisementTextIndex = new AdvertisementTextIndex();
+        category = new Category(1L, "Bikes");
+        user = new User(1L);
+        advertisementTextIndex.index(new Advertisement(1L, "Road bike", "Lightweight road bike, barely used", category, user, 1500.0, "Kraków"));
+        advertisementTextIndex.index(new Advertisement(2L, "Mountain bikes", "Two mountain bikes for kids", category, user, 800.0, "Warszawa"));
+        advertisementTextIndex.index(new Advertisement(3L, "Bike helmet", "Helmet for road cycling", category, user, 100.0, "Krakow"));
+    }
+
+    @Test
+    public void testAnalyzerNormalizesTerms() {
+        assertThat(TextAnalyzer.analyze("The Mountain BIKES in Kraków")).containsExactly("mountain", "bike", "krakow");
+    }
+
+    @Test
+    public void testSearchAllFieldsRanksBestMatchFirst() {
+        // when
+        List<TextSearchHit> hits = advertisementTextIndex.search(List.of(TextQueryClause.of(EnumSet.allOf(AdvertisementTextField.class), "road bike")));
+
+        // then
+        assertThat(hits).extracting(TextSearchHit::getAdvertisementId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    public void testSearchSingleField() {
+        // when
+        List<TextSearchHit> hits = advertisementTextIndex.search(List.of(TextQueryClause.of(EnumSet.of(AdvertisementTextField.LOCATION), "krakow")));
+
+        // then
+        assertThat(hits).extracting(TextSearchHit::getAdvertisementId).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    public void testReindexAndRemove() {
+        // when
+        advertisementTextIndex.index(new Advertisement(2L, "City scooter", "Electric scooter", category, user, 800.0, "Warszawa"));
+        advertisementTextIndex.remove(1L);
+
+        // then
+        assertThat(advertisementTextIndex.search(List.of(TextQueryClause.of(EnumSet.of(AdvertisementTextField.TITLE), "bike"))))
+                .extracting(TextSearchHit::getAdvertisementId).containsExactly(3L);
+        assertThat(advertisementTextIndex.search(List.of(TextQueryClause.of(EnumSet.of(AdvertisementTextField.TITLE), "scooter"))))
+                .extracting(TextSearchHit::getAdvertisementId).containsExactly(2L);
+        assertThat(advertisementTextIndex.size()).isEqualTo(2);
+    }
+}
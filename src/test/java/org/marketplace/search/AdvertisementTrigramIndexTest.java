@@ -0,0 +1,64 @@
+package org.marketplace.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.models.User;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdvertisementTrigramIndexTest {
+
+    private AdvertisementTrigramIndex advertisementTrigramIndex;
+
+    @BeforeEach
+    public void setUp() {
+        advertisementTrigramIndex = new AdvertisementTrigramIndex();
+        Category category = new Category(1L, "Phones");
+        User user = new User(1L);
+        advertisementTrigramIndex.index(new Advertisement(1L, "iPhone 12 Pro", "Used phone in good condition", category, user, 2000.0, "Kraków"));
+        advertisementTrigramIndex.index(new Advertisement(2L, "Samsung Galaxy S21", "Phone with charger", category, user, 1500.0, "Kraków"));
+        advertisementTrigramIndex.index(new Advertisement(3L, "Mountain bike", "Bike for kids", category, user, 800.0, "Warszawa"));
+    }
+
+    @Test
+    public void testTrigrams() {
+        assertThat(TextAnalyzer.trigrams("Bike")).containsExactlyInAnyOrder("  b", " bi", "bik", "ike", "ke ");
+    }
+
+    @Test
+    public void testSearchToleratesTypos() {
+        // when
+        List<TextSearchHit> hits = advertisementTrigramIndex.search("iphnoe");
+
+        // then
+        assertThat(hits).extracting(TextSearchHit::getAdvertisementId).containsExactly(1L);
+        assertThat(advertisementTrigramIndex.search("samsng galxy")).extracting(TextSearchHit::getAdvertisementId).containsExactly(2L);
+        assertThat(advertisementTrigramIndex.search("scooter")).isEmpty();
+    }
+
+    @Test
+    public void testSearchRanksMostSimilarFirst() {
+        // given
+        advertisementTrigramIndex.index(new Advertisement(4L, "iPhone case", "Leather case", new Category(1L), new User(1L), 50.0, "Kraków"));
+
+        // when
+        List<TextSearchHit> hits = advertisementTrigramIndex.search("iphone pro");
+
+        // then
+        assertThat(hits).extracting(TextSearchHit::getAdvertisementId).containsExactly(1L, 4L);
+    }
+
+    @Test
+    public void testRemovedAdvertisementIsNotFound() {
+        // when
+        advertisementTrigramIndex.remove(1L);
+
+        // then
+        assertThat(advertisementTrigramIndex.search("iphnoe")).isEmpty();
+        assertThat(advertisementTrigramIndex.size()).isEqualTo(2);
+    }
+}
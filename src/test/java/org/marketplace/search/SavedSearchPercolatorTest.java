@@ -0,0 +1,64 @@
+package org.marketplace.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.models.User;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SavedSearchPercolatorTest {
+
+    private SavedSearchPercolator savedSearchPercolator;
+    private Gazetteer gazetteer;
+
+    @BeforeEach
+    public void setUp() {
+        savedSearchPercolator = new SavedSearchPercolator();
+        gazetteer = new Gazetteer("gazetteer.csv");
+        savedSearchPercolator.register(1L, Map.of("categoryId", "1", "price.lt", "1000"), gazetteer);
+        savedSearchPercolator.register(2L, Map.of("q", "road bike", "price.between", "500,2000"), gazetteer);
+        savedSearchPercolator.register(3L, Map.of("categoryId.in", "2,3", "status", "ACTIVE"), gazetteer);
+        savedSearchPercolator.register(4L, Map.of("title", "helmet", "near", "Kraków", "radiusKm", "20"), gazetteer);
+        savedSearchPercolator.register(5L, Map.of("categoryId", "1", "categoryId.in", "2,3"), gazetteer);
+    }
+
+    @Test
+    public void testMatchByCategoryAndPrice() {
+        assertThat(savedSearchPercolator.match(document(1L, "Mountain bike", 1L, 800.0, "Warszawa"))).containsExactly(1L);
+        assertThat(savedSearchPercolator.match(document(2L, "Mountain bike", 1L, 1000.0, "Warszawa"))).isEmpty();
+        assertThat(savedSearchPercolator.match(document(3L, "Mountain bike", 3L, 50.0, "Warszawa"))).containsExactly(3L);
+    }
+
+    @Test
+    public void testMatchByTextTermsAndLocation() {
+        assertThat(savedSearchPercolator.match(document(1L, "Road bikes", 1L, 900.0, "Gdańsk"))).containsExactly(1L, 2L);
+        assertThat(savedSearchPercolator.match(document(2L, "Road helmet", 2L, 100.0, "Wieliczka"))).containsExactly(3L, 4L);
+        assertThat(savedSearchPercolator.match(document(3L, "Road helmet", 4L, 100.0, "Gdańsk"))).isEmpty();
+    }
+
+    @Test
+    public void testRemovedSearchDoesNotMatch() {
+        // when
+        savedSearchPercolator.remove(1L);
+
+        // then
+        assertThat(savedSearchPercolator.match(document(1L, "Mountain bike", 1L, 800.0, "Warszawa"))).isEmpty();
+        assertThat(savedSearchPercolator.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void testRegisterInvalidSearch() {
+        assertThrows(IllegalArgumentException.class, () -> savedSearchPercolator.register(6L, Map.of("price.lt", "cheap"), gazetteer));
+    }
+
+    private AdvertisementSearchDocument document(Long id, String title, Long categoryId, double price, String location) {
+        Advertisement advertisement = new Advertisement(id, title, "Description", new Category(categoryId), new User(1L), price, location);
+        advertisement.setCoordinates(gazetteer.resolve(location));
+        return AdvertisementSearchDocument.of(advertisement);
+    }
+}
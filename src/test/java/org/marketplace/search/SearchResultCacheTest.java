@@ -0,0 +1,95 @@
+package org.marketplace.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.requests.AdvertisementPage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchResultCacheTest {
+
+    private SearchResultCache searchResultCache;
+
+    @BeforeEach
+    public void setUp() {
+        searchResultCache = new SearchResultCache(2, 60);
+        cache(Map.of("categoryId", "1"));
+        cache(Map.of("status", "BOUGHT", "q", "bike"));
+    }
+
+    @Test
+    public void testChangeInvalidatesOnlySearchesForItsCategoryAndStatus() {
+        // when
+        searchResultCache.invalidate(document(2L, AdvertisementStatus.ACTIVE, "Road bike"));
+
+        // then
+        assertThat(searchResultCache.get(Map.of("categoryId", "1"))).isNotNull();
+        assertThat(searchResultCache.get(Map.of("status", "BOUGHT", "q", "bike"))).isNotNull();
+
+        // when
+        searchResultCache.invalidate(document(1L, AdvertisementStatus.ACTIVE, "Helmet"), document(2L, AdvertisementStatus.BOUGHT, "Road bike"));
+
+        // then
+        assertThat(searchResultCache.get(Map.of("categoryId", "1"))).isNull();
+        assertThat(searchResultCache.get(Map.of("status", "BOUGHT", "q", "bike"))).isNull();
+    }
+
+    @Test
+    public void testCandidateIsEvaluatedInFull() {
+        // when
+        searchResultCache.invalidate(document(3L, AdvertisementStatus.BOUGHT, "Helmet"));
+
+        // then
+        assertThat(searchResultCache.get(Map.of("status", "BOUGHT", "q", "bike"))).isNotNull();
+    }
+
+    @Test
+    public void testSearchStartedBeforeInvalidationIsNotCached() {
+        // given
+        long version = searchResultCache.currentVersion();
+        searchResultCache.invalidate(document(1L, AdvertisementStatus.ACTIVE, "Helmet"));
+
+        // when
+        searchResultCache.put(Map.of("categoryId", "1"), filter(Map.of("categoryId", "1")), page(), version);
+
+        // then
+        assertThat(searchResultCache.get(Map.of("categoryId", "1"))).isNull();
+    }
+
+    @Test
+    public void testEvictedSearchesAreRecachedAndInvalidated() {
+        // given
+        for (int i = 0; i < 10; i++) {
+            cache(Map.of("categoryId", "1", "price.lt", String.valueOf(100 + i)));
+        }
+        cache(Map.of("categoryId", "1"));
+
+        // when
+        searchResultCache.invalidate(document(1L, AdvertisementStatus.ACTIVE, "Helmet"));
+
+        // then
+        assertThat(searchResultCache.get(Map.of("categoryId", "1"))).isNull();
+        assertThat(searchResultCache.getCache().size()).isEqualTo(1);
+    }
+
+    private void cache(Map<String, String> searchParams) {
+        searchResultCache.put(searchParams, filter(searchParams), page(), searchResultCache.currentVersion());
+    }
+
+    private static AdvertisementSearchFilter filter(Map<String, String> searchParams) {
+        return AdvertisementSearchFilter.fromSearchParams(searchParams, null);
+    }
+
+    private static AdvertisementPage page() {
+        return new AdvertisementPage(List.of(), 10, null);
+    }
+
+    private static AdvertisementSearchDocument document(Long categoryId, AdvertisementStatus status, String title) {
+        return new AdvertisementSearchDocument(1L, categoryId, 500.0, LocalDateTime.now(), status, title, "Description", "Warszawa", null, null);
+    }
+}
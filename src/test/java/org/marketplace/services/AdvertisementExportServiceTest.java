@@ -0,0 +1,63 @@
+package org.marketplace.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.requests.AdvertisementExportRow;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class AdvertisementExportServiceTest {
+
+    @Mock
+    private AdvertisementManagementRepository advertisementManagementRepository;
+
+    private AdvertisementExportService advertisementExportService;
+
+    @BeforeEach
+    public void setUp() {
+        advertisementExportService = new AdvertisementExportService(advertisementManagementRepository, new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    public void testExportWritesOneJsonObjectPerLineAndClosesStream() throws Exception {
+        // given
+        AtomicBoolean closed = new AtomicBoolean();
+        given(advertisementManagementRepository.streamAllForExport()).willReturn(Stream.of(row(1L, "Road bike"), row(2L, "Helmet"))
+                .onClose(() -> closed.set(true)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // when
+        long count = advertisementExportService.exportAdvertisements(output);
+
+        // then
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(count).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        JsonNode second = new ObjectMapper().readTree(lines[1]);
+        assertThat(second.get("id").asLong()).isEqualTo(2L);
+        assertThat(second.get("title").asText()).isEqualTo("Helmet");
+        assertThat(second.get("sellerLogin").asText()).isEqualTo("user2");
+        assertThat(closed).isTrue();
+    }
+
+    private AdvertisementExportRow row(Long id, String title) {
+        return new AdvertisementExportRow(id, title, "Description", 100.0, "Kraków", 50.0647, 19.9450, AdvertisementStatus.ACTIVE,
+                LocalDateTime.of(2024, 5, 1, 12, 0), LocalDateTime.of(2024, 5, 1, 12, 0), 1L, "Bikes", 2L, "user2");
+    }
+}
@@ -5,10 +5,12 @@ import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.cache.ResourceOwnerCache;
 import org.marketplace.models.Advertisement;
 import org.marketplace.models.AdvertisementImage;
 import org.marketplace.repositories.AdvertisementImageManagementRepository;
 import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -31,6 +33,9 @@ class AdvertisementImageManagementServiceTest {
     @Mock
     private AdvertisementManagementRepository advertisementManagementRepository;
 
+    @Mock
+    private ResourceOwnerCache resourceOwnerCache;
+
     @InjectMocks
     private AdvertisementImageManagementService advertisementImageManagementService;
 
@@ -107,7 +112,9 @@ class AdvertisementImageManagementServiceTest {
         // then
         assertThat(updatedImage).isNotNull();
         assertThat(updatedImage.getFilepath()).isEqualTo("updatedFilePath");
-        verify(advertisementImageManagementRepository, times(1)).save(advertisementImage);
+        InOrder inOrder = inOrder(advertisementImageManagementRepository, resourceOwnerCache);
+        inOrder.verify(advertisementImageManagementRepository, times(1)).save(advertisementImage);
+        inOrder.verify(resourceOwnerCache, times(1)).invalidateImage(advertisementImage.getId());
     }
 
     @Test
@@ -129,6 +136,7 @@ class AdvertisementImageManagementServiceTest {
 
         // then
         verify(advertisementImageManagementRepository, times(1)).deleteById(advertisementImage.getId());
+        verify(resourceOwnerCache, times(1)).invalidateImage(advertisementImage.getId());
     }
 
     @Test
@@ -5,18 +5,29 @@ import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.cache.AdvertisementCache;
+import org.marketplace.cache.ResourceOwnerCache;
 import org.marketplace.enums.AdvertisementStatus;
 import org.marketplace.enums.UserRole;
 import org.marketplace.models.Advertisement;
 import org.marketplace.models.Category;
 import org.marketplace.models.User;
 import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.repositories.AdvertisementObserverRepository;
+import org.marketplace.repositories.AdvertisementTombstoneRepository;
 import org.marketplace.repositories.CategoryManagementRepository;
 import org.marketplace.repositories.UserManagementRepository;
+import org.marketplace.requests.AdvertisementListing;
+import org.marketplace.requests.AdvertisementNotAvailableException;
+import org.marketplace.requests.ResourceVersion;
+import org.marketplace.search.Gazetteer;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
 
@@ -40,6 +51,30 @@ public class AdvertisementManagementServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private AdvertisementSearchService advertisementSearchService;
+
+    @Mock
+    private Gazetteer gazetteer;
+
+    @Mock
+    private SavedSearchManagementService savedSearchManagementService;
+
+    @Mock
+    private AdvertisementObserverRepository advertisementObserverRepository;
+
+    @Mock
+    private ObserverNotificationService observerNotificationService;
+
+    @Mock
+    private ResourceOwnerCache resourceOwnerCache;
+
+    @Mock
+    private AdvertisementCache advertisementCache;
+
+    @Mock
+    private AdvertisementTombstoneRepository advertisementTombstoneRepository;
+
     @InjectMocks
     private AdvertisementManagementService advertisementManagementService;
 
@@ -69,6 +104,7 @@ public class AdvertisementManagementServiceTest {
         assertThat(savedAd).isNotNull();
         assertThat(savedAd.getId()).isEqualTo(1L);
         verify(advertisementManagementRepository, times(1)).save(advertisement);
+        verify(savedSearchManagementService, times(1)).notifyMatchingSavedSearches(advertisement);
     }
 
     @Test
@@ -102,6 +138,7 @@ public class AdvertisementManagementServiceTest {
         assertThat(updatedAd.getId()).isEqualTo(1L);
         assertThat(updatedAd.getPrice()).isEqualTo(150);
         verify(advertisementManagementRepository, times(1)).save(advertisement);
+        verify(advertisementCache).invalidate(advertisement.getId());
     }
 
     @Test
@@ -130,6 +167,9 @@ public class AdvertisementManagementServiceTest {
 
         // then
         verify(advertisementManagementRepository, times(1)).deleteById(advertisement.getId());
+        verify(resourceOwnerCache, times(1)).invalidateAdvertisement(advertisement.getId());
+        verify(advertisementCache, times(1)).invalidate(advertisement.getId());
+        verify(advertisementTombstoneRepository).save(argThat(tombstone -> tombstone.getAdvertisementId().equals(advertisement.getId())));
     }
 
     @Test
@@ -150,20 +190,22 @@ public class AdvertisementManagementServiceTest {
     @Test
     public void testGetAllAdvertisements() {
         // given
-        given(advertisementManagementRepository.findAll()).willReturn(List.of(advertisement));
+        AdvertisementListing listing = AdvertisementListing.of(advertisement);
+        given(advertisementManagementRepository.findAllListings()).willReturn(List.of(listing));
 
         // when
-        List<Advertisement> advertisements = advertisementManagementService.getAllAdvertisements();
+        List<AdvertisementListing> advertisements = advertisementManagementService.getAllAdvertisements();
 
         // then
         assertThat(advertisements).isNotEmpty();
-        assertThat(advertisements).contains(advertisement);
+        assertThat(advertisements).contains(listing);
+        verify(advertisementManagementRepository, never()).findAll();
     }
 
     @Test
     public void testGetAdvertisementById() {
         // given
-        given(advertisementManagementRepository.findById(advertisement.getId())).willReturn(Optional.of(advertisement));
+        given(advertisementCache.get(advertisement.getId())).willReturn(Optional.of(advertisement));
 
         // when
         Advertisement foundAd = advertisementManagementService.getAdvertisementById(advertisement.getId());
@@ -172,12 +214,13 @@ public class AdvertisementManagementServiceTest {
         assertThat(foundAd).isNotNull();
         assertThat(foundAd.getId()).isEqualTo(1L);
         assertThat(foundAd.getTitle()).isEqualTo(advertisement.getTitle());
+        verify(advertisementManagementRepository, never()).findById(anyLong());
     }
 
     @Test
     public void testGetAdvertisementByIdNotFound() {
         // given
-        given(advertisementManagementRepository.findById(advertisement.getId())).willReturn(Optional.empty());
+        given(advertisementCache.get(advertisement.getId())).willReturn(Optional.empty());
 
         // when
         EntityNotFoundException thrown = assertThrows(EntityNotFoundException.class, () -> {
@@ -188,12 +231,68 @@ public class AdvertisementManagementServiceTest {
         assertThat(thrown.getMessage()).isEqualTo("Advertisement with id: 1 was not found");
     }
 
+    @Test
+    public void testGetAdvertisementVersionFromCachedAdvertisement() {
+        // given
+        given(advertisementCache.getIfPresent(advertisement.getId())).willReturn(Optional.of(advertisement));
+
+        // when
+        ResourceVersion version = advertisementManagementService.getAdvertisementVersion(advertisement.getId());
+
+        // then
+        assertThat(version.getLastModified()).isEqualTo(advertisement.getUpdatedAt().truncatedTo(ChronoUnit.MICROS));
+        verify(advertisementManagementRepository, never()).findLastModifiedById(anyLong());
+    }
+
+    @Test
+    public void testGetAdvertisementVersionWithoutLoadingAdvertisement() {
+        // given
+        LocalDateTime updatedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+        given(advertisementCache.getIfPresent(advertisement.getId())).willReturn(null);
+        given(advertisementManagementRepository.findLastModifiedById(advertisement.getId())).willReturn(Optional.of(updatedAt));
+
+        // when
+        ResourceVersion version = advertisementManagementService.getAdvertisementVersion(advertisement.getId());
+
+        // then
+        assertThat(version.getETag()).isEqualTo(ResourceVersion.of(updatedAt).getETag());
+        verify(advertisementManagementRepository, never()).findById(anyLong());
+        verify(advertisementCache, never()).get(anyLong());
+    }
+
+    @Test
+    public void testGetAdvertisementVersionChangesWithEmbeddedCategory() {
+        // given
+        LocalDateTime renamedAt = advertisement.getUpdatedAt().plusMinutes(5);
+        ReflectionTestUtils.setField(category, "updatedAt", renamedAt);
+        given(advertisementCache.getIfPresent(advertisement.getId())).willReturn(Optional.of(advertisement));
+
+        // when
+        ResourceVersion version = advertisementManagementService.getAdvertisementVersion(advertisement.getId());
+
+        // then
+        assertThat(version.getLastModified()).isEqualTo(renamedAt.truncatedTo(ChronoUnit.MICROS));
+    }
+
+    @Test
+    public void testGetAdvertisementVersionNotFound() {
+        // given
+        given(advertisementCache.getIfPresent(advertisement.getId())).willReturn(Optional.empty());
+
+        // when
+        EntityNotFoundException thrown = assertThrows(EntityNotFoundException.class,
+                () -> advertisementManagementService.getAdvertisementVersion(advertisement.getId()));
+
+        // then
+        assertThat(thrown.getMessage()).isEqualTo("Advertisement with id: 1 was not found");
+    }
+
     @Test
     public void testBuyAdvertisement() {
         // given
         Long buyerId = 3L;
+        given(advertisementManagementRepository.markBought(eq(advertisement.getId()), eq(buyerId), any(LocalDateTime.class))).willReturn(1);
         given(advertisementManagementRepository.findById(advertisement.getId())).willReturn(Optional.of(advertisement));
-        given(advertisementManagementRepository.save(any(Advertisement.class))).willReturn(advertisement);
 
         // when
         Advertisement boughtAd = advertisementManagementService.buyAdvertisement(advertisement.getId(), buyerId);
@@ -201,27 +300,61 @@ public class AdvertisementManagementServiceTest {
         // then
         assertThat(boughtAd.getStatus()).isEqualTo(AdvertisementStatus.BOUGHT);
         assertThat(boughtAd.getBuyerId()).isEqualTo(buyerId);
-        verify(advertisementManagementRepository, times(1)).save(advertisement);
+        verify(advertisementManagementRepository, never()).save(any(Advertisement.class));
+        verify(emailService).sendEmailToOwner(user, advertisement, user.getEmail());
+        verify(observerNotificationService).recordStatusChange(advertisement.getId(), advertisement.getTitle(), AdvertisementStatus.BOUGHT);
+        verify(advertisementSearchService).onAdvertisementSaved(argThat(previous -> previous.getStatus() == AdvertisementStatus.ACTIVE), eq(advertisement));
+    }
+
+    @Test
+    public void testBuyAdvertisementAlreadyBought() {
+        // given
+        given(advertisementManagementRepository.markBought(eq(advertisement.getId()), eq(3L), any(LocalDateTime.class))).willReturn(0);
+        given(advertisementManagementRepository.existsById(advertisement.getId())).willReturn(true);
+
+        // when
+        AdvertisementNotAvailableException thrown = assertThrows(AdvertisementNotAvailableException.class,
+                () -> advertisementManagementService.buyAdvertisement(advertisement.getId(), 3L));
+
+        // then
+        assertThat(thrown.getMessage()).isEqualTo("Advertisement with id: 1 is not available for sale");
+        verify(advertisementManagementRepository, never()).findById(anyLong());
+        verifyNoInteractions(emailService, observerNotificationService, advertisementSearchService);
+    }
+
+    @Test
+    public void testBuyAdvertisementNotFound() {
+        // given
+        given(advertisementManagementRepository.markBought(eq(advertisement.getId()), eq(3L), any(LocalDateTime.class))).willReturn(0);
+        given(advertisementManagementRepository.existsById(advertisement.getId())).willReturn(false);
+
+        // when
+        EntityNotFoundException thrown = assertThrows(EntityNotFoundException.class,
+                () -> advertisementManagementService.buyAdvertisement(advertisement.getId(), 3L));
+
+        // then
+        assertThat(thrown.getMessage()).isEqualTo("Advertisement with id: 1 was not found");
+        verifyNoInteractions(emailService, observerNotificationService);
     }
 
     @Test
     void testObserveAdvertisement() {
         // given
-        given(advertisementManagementRepository.findById(advertisement.getId())).willReturn(Optional.of(advertisement));
-        given(advertisementManagementRepository.save(any(Advertisement.class))).willReturn(advertisement);
+        given(advertisementObserverRepository.insertIfAbsent(advertisement.getId(), "test@example.com")).willReturn(1);
 
         // when
-        Advertisement result = advertisementManagementService.observeAdvertisement(advertisement.getId(), "test@example.com");
+        advertisementManagementService.observeAdvertisement(advertisement.getId(), "test@example.com");
 
         // then
-        assertThat(result.getObservers()).hasSize(1).contains("test@example.com");
+        verify(advertisementManagementRepository, never()).findById(anyLong());
+        verify(advertisementManagementRepository, never()).save(any(Advertisement.class));
     }
 
     @Test
     void testObserveAdvertisementAlreadyObserved() {
         // given
-        advertisement.getObservers().add("test@example.com");
-        given(advertisementManagementRepository.findById(advertisement.getId())).willReturn(Optional.of(advertisement));
+        given(advertisementObserverRepository.insertIfAbsent(advertisement.getId(), "test@example.com")).willReturn(0);
+        given(advertisementManagementRepository.existsById(advertisement.getId())).willReturn(true);
 
         EntityExistsException thrown = assertThrows(EntityExistsException.class, () -> {
             advertisementManagementService.observeAdvertisement(advertisement.getId(), "test@example.com");
@@ -230,24 +363,36 @@ public class AdvertisementManagementServiceTest {
         assertThat(thrown.getMessage()).isEqualTo("User with email: test@example.com already observes the advertisement with id: 1");
     }
 
+    @Test
+    void testObserveAdvertisementNotFound() {
+        // given
+        given(advertisementObserverRepository.insertIfAbsent(advertisement.getId(), "test@example.com")).willReturn(0);
+        given(advertisementManagementRepository.existsById(advertisement.getId())).willReturn(false);
+
+        EntityNotFoundException thrown = assertThrows(EntityNotFoundException.class, () -> {
+            advertisementManagementService.observeAdvertisement(advertisement.getId(), "test@example.com");
+        });
+
+        assertThat(thrown.getMessage()).isEqualTo("Advertisement with id: 1 was not found");
+    }
+
     @Test
     void testUnobserveAdvertisement() {
         // given
-        advertisement.getObservers().add("test@example.com");
-        given(advertisementManagementRepository.findById(advertisement.getId())).willReturn(Optional.of(advertisement));
-        given(advertisementManagementRepository.save(any(Advertisement.class))).willReturn(advertisement);
+        given(advertisementObserverRepository.deleteByAdvertisementIdAndEmail(advertisement.getId(), "test@example.com")).willReturn(1);
 
         // when
-        Advertisement result = advertisementManagementService.unobserveAdvertisement(advertisement.getId(), "test@example.com");
+        advertisementManagementService.unobserveAdvertisement(advertisement.getId(), "test@example.com");
 
         // then
-        assertThat(result.getObservers()).doesNotContain("test@example.com");
+        verify(advertisementObserverRepository, times(1)).deleteByAdvertisementIdAndEmail(advertisement.getId(), "test@example.com");
+        verify(advertisementManagementRepository, never()).findById(anyLong());
     }
 
     @Test
     void testUnobserveAdvertisementNotObserved() {
         // given
-        given(advertisementManagementRepository.findById(advertisement.getId())).willReturn(Optional.of(advertisement));
+        given(advertisementObserverRepository.deleteByAdvertisementIdAndEmail(advertisement.getId(), "test@example.com")).willReturn(0);
 
         EntityNotFoundException thrown = assertThrows(EntityNotFoundException.class, () -> {
             advertisementManagementService.unobserveAdvertisement(advertisement.getId(), "test@example.com");
@@ -0,0 +1,361 @@
+package org.marketplace.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.enums.AdvertisementSortField;
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.enums.UserRole;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.models.User;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.requests.AdvertisementFacets;
+import org.marketplace.requests.AdvertisementListing;
+import org.marketplace.requests.AdvertisementPage;
+import org.marketplace.search.AdvertisementGeoIndex;
+import org.marketplace.search.AdvertisementSearchDocument;
+import org.marketplace.search.AdvertisementSearchCursor;
+import org.marketplace.search.AdvertisementSort;
+import org.marketplace.search.AdvertisementSuggestionIndex;
+import org.marketplace.search.AdvertisementTextIndex;
+import org.marketplace.search.AdvertisementTrigramIndex;
+import org.marketplace.search.Gazetteer;
+import org.marketplace.search.GeoPoint;
+import org.marketplace.search.GeoQueryClause;
+import org.marketplace.search.SearchResultCache;
+import org.marketplace.search.TextSearchHit;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class AdvertisementSearchServiceTest {
+
+    @Mock
+    private AdvertisementManagementRepository advertisementManagementRepository;
+
+    @Mock
+    private AdvertisementTextIndex advertisementTextIndex;
+
+    @Mock
+    private AdvertisementTrigramIndex advertisementTrigramIndex;
+
+    @Mock
+    private AdvertisementGeoIndex advertisementGeoIndex;
+
+    @Mock
+    private AdvertisementSuggestionIndex advertisementSuggestionIndex;
+
+    @Mock
+    private Gazetteer gazetteer;
+
+    @Spy
+    private SearchResultCache searchResultCache = new SearchResultCache(100, 60);
+
+    @InjectMocks
+    private AdvertisementSearchService advertisementSearchService;
+
+    private List<Advertisement> advertisements;
+    private List<AdvertisementListing> listings;
+
+    @BeforeEach
+    public void setUp() {
+        User user = new User(2L, "user2", "password", UserRole.USER, "user2@gmail.com", "123456789");
+        Category category = new Category(1L, "newCategory");
+        advertisements = List.of(
+                new Advertisement(1L, "Title 1", "Description", category, user, 100.0, "Location"),
+                new Advertisement(2L, "Title 2", "Description", category, user, 200.0, "Location"),
+                new Advertisement(3L, "Title 3", "Description", category, user, 300.0, "Location")
+        );
+        listings = advertisements.stream().map(AdvertisementListing::of).toList();
+    }
+
+    @Test
+    public void testSearchReturnsNextCursorWhenMoreResultsExist() {
+        // given
+        given(advertisementManagementRepository.findListings(any(), any(), anyInt())).willReturn(listings);
+
+        // when
+        AdvertisementPage page = advertisementSearchService.search(Map.of("size", "2", "sort", "price,desc"));
+
+        // then
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.isHasNext()).isTrue();
+        AdvertisementSearchCursor cursor = AdvertisementSearchCursor.decode(page.getNextCursor());
+        assertThat(cursor.getField()).isEqualTo(AdvertisementSortField.PRICE);
+        assertThat(cursor.getDirection()).isEqualTo(Sort.Direction.DESC);
+        assertThat(cursor.getLastId()).isEqualTo(2L);
+        assertThat(cursor.getTypedValue()).isEqualTo(200.0);
+    }
+
+    @Test
+    public void testSearchLastPageHasNoCursor() {
+        // given
+        given(advertisementManagementRepository.findListings(any(), any(), anyInt())).willReturn(listings);
+
+        // when
+        AdvertisementPage page = advertisementSearchService.search(Map.of("size", "3"));
+
+        // then
+        assertThat(page.getContent()).hasSize(3);
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void testSearchCursorForDifferentSort() {
+        // given
+        String cursor = AdvertisementSearchCursor.after(listings.get(0), AdvertisementSort.parse("price")).encode();
+
+        // when
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            advertisementSearchService.search(Map.of("cursor", cursor, "sort", "createdAt"));
+        });
+
+        // then
+        assertThat(thrown.getMessage()).isEqualTo("Cursor does not match the requested sort");
+        verify(advertisementManagementRepository, never()).findListings(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testSearchInvalidCursor() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            advertisementSearchService.search(Map.of("cursor", "not-a-cursor"));
+        });
+
+        assertThat(thrown.getMessage()).isEqualTo("Invalid cursor provided");
+    }
+
+    @Test
+    public void testSearchInvalidPageSize() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            advertisementSearchService.search(Map.of("size", "1000"));
+        });
+
+        assertThat(thrown.getMessage()).isEqualTo("Page size must be between 1 and 100");
+    }
+
+    @Test
+    public void testSearchTextQueryPagesByRelevance() {
+        // given
+        given(advertisementTextIndex.search(any())).willReturn(List.of(
+                new TextSearchHit(3L, 2.5),
+                new TextSearchHit(1L, 1.5),
+                new TextSearchHit(2L, 1.5)
+        ));
+        given(advertisementManagementRepository.findListings(any(), any(), anyInt())).willReturn(listings);
+
+        // when
+        AdvertisementPage firstPage = advertisementSearchService.search(Map.of("q", "title", "size", "2"));
+        AdvertisementPage secondPage = advertisementSearchService.search(Map.of("q", "title", "size", "2", "cursor", firstPage.getNextCursor()));
+
+        // then
+        assertThat(firstPage.getContent()).extracting(AdvertisementListing::getId).containsExactly(3L, 1L);
+        assertThat(secondPage.getContent()).extracting(AdvertisementListing::getId).containsExactly(2L);
+        assertThat(secondPage.isHasNext()).isFalse();
+    }
+
+    @Test
+    public void testSearchWithFacetsCountsWholeFilter() {
+        // given
+        AdvertisementFacets facets = new AdvertisementFacets();
+        facets.addGroup(1L, "newCategory", AdvertisementStatus.ACTIVE, new long[]{0, 2, 1, 0, 0});
+        facets.addGroup(1L, "newCategory", AdvertisementStatus.BOUGHT, new long[]{1, 0, 0, 0, 0});
+        given(advertisementManagementRepository.findListings(any(), any(), anyInt())).willReturn(listings.subList(0, 1));
+        given(advertisementManagementRepository.countFacets(any())).willReturn(facets);
+
+        // when
+        AdvertisementPage page = advertisementSearchService.search(Map.of("categoryId", "1", "facets", "true"));
+
+        // then
+        assertThat(page.getFacets().getTotal()).isEqualTo(4);
+        assertThat(page.getFacets().getStatuses()).containsEntry(AdvertisementStatus.ACTIVE, 3L).containsEntry(AdvertisementStatus.BOUGHT, 1L);
+        assertThat(page.getFacets().getCategories()).extracting(AdvertisementFacets.CategoryCount::getCount).containsExactly(4L);
+        assertThat(page.getFacets().getPriceRanges()).extracting(AdvertisementFacets.PriceRangeCount::getCount).containsExactly(1L, 2L, 1L, 0L, 0L);
+    }
+
+    @Test
+    public void testFacetsCountAllIndexMatchesBeyondCandidateLimit() {
+        // given
+        List<TextSearchHit> hits = new ArrayList<>();
+        for (long id = 1; id <= AdvertisementSearchService.MAX_INDEX_CANDIDATES + 1; id++) {
+            hits.add(new TextSearchHit(id, 1.0));
+        }
+        AdvertisementFacets facets = new AdvertisementFacets();
+        facets.addGroup(1L, "newCategory", AdvertisementStatus.ACTIVE, new long[]{0, 2, 1, 0, 0});
+        given(advertisementTextIndex.search(any())).willReturn(hits);
+        given(advertisementManagementRepository.findListings(any(), any(), anyInt())).willReturn(listings.subList(0, 1));
+        given(advertisementManagementRepository.countFacets(any())).willReturn(facets);
+
+        // when
+        AdvertisementPage page = advertisementSearchService.search(Map.of("q", "title", "sort", "price,asc", "facets", "true"));
+
+        // then
+        assertThat(page.isTruncated()).isTrue();
+        assertThat(page.getFacets().getTotal()).isEqualTo(6);
+        assertThat(page.getFacets().getPriceRanges()).extracting(AdvertisementFacets.PriceRangeCount::getCount).containsExactly(0L, 4L, 2L, 0L, 0L);
+        verify(advertisementManagementRepository, times(2)).countFacets(any());
+    }
+
+    @Test
+    public void testSearchWithoutFacets() {
+        // given
+        given(advertisementManagementRepository.findListings(any(), any(), anyInt())).willReturn(listings);
+
+        // when
+        AdvertisementPage page = advertisementSearchService.search(Map.of("status", "ACTIVE"));
+
+        // then
+        assertThat(page.getFacets()).isNull();
+        verify(advertisementManagementRepository, never()).countFacets(any());
+    }
+
+    @Test
+    public void testSearchIsCachedUntilMatchingAdvertisementChanges() {
+        // given
+        given(advertisementManagementRepository.findListings(any(), any(), anyInt())).willReturn(listings);
+        Advertisement otherCategory = new Advertisement(4L, "Title 4", "Description", new Category(2L, "other"), advertisements.get(0).getUser(), 50.0, "Location");
+
+        // when
+        advertisementSearchService.search(Map.of("categoryId", "1", "price.lt", "500"));
+        advertisementSearchService.search(Map.of("categoryId", "1", "price.lt", "500"));
+        advertisementSearchService.onAdvertisementSaved(null, otherCategory);
+        advertisementSearchService.search(Map.of("categoryId", "1", "price.lt", "500"));
+        advertisementSearchService.onAdvertisementSaved(null, advertisements.get(0));
+        advertisementSearchService.search(Map.of("categoryId", "1", "price.lt", "500"));
+
+        // then
+        verify(advertisementManagementRepository, times(2)).findListings(any(), any(), anyInt());
+        assertThat(searchResultCache.getCache().getHitCount()).isEqualTo(2);
+        assertThat(searchResultCache.getCache().getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testIndexesAreUpdatedAfterCommit() {
+        // given
+        given(advertisementManagementRepository.findListings(any(), any(), anyInt())).willReturn(listings);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            advertisementSearchService.onAdvertisementSaved(null, advertisements.get(0));
+
+            // when
+            advertisementSearchService.search(Map.of("categoryId", "1"));
+            verify(advertisementTextIndex, never()).index(any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        advertisementSearchService.search(Map.of("categoryId", "1"));
+
+        // then
+        verify(advertisementTextIndex).index(advertisements.get(0));
+        verify(advertisementManagementRepository, times(2)).findListings(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testIndexesAreNotUpdatedAfterRollback() {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            advertisementSearchService.onAdvertisementDeleted(AdvertisementSearchDocument.of(advertisements.get(0)));
+
+            // when
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // then
+        verify(advertisementTextIndex, never()).remove(any());
+        verify(advertisementGeoIndex, never()).remove(any());
+    }
+
+    @Test
+    public void testSearchNearPlaceCombinesSpatialAndTextMatches() {
+        // given
+        given(gazetteer.find("Kraków")).willReturn(new GeoPoint(50.0647, 19.9450));
+        given(advertisementGeoIndex.search(any(GeoQueryClause.class))).willReturn(List.of(3L, 1L));
+        given(advertisementTextIndex.search(any())).willReturn(List.of(new TextSearchHit(1L, 2.0), new TextSearchHit(2L, 1.5), new TextSearchHit(3L, 1.0)));
+        given(advertisementManagementRepository.findListings(any(), any(), anyInt())).willReturn(List.of(listings.get(0), listings.get(2)));
+
+        // when
+        AdvertisementPage page = advertisementSearchService.search(Map.of("q", "title", "near", "Kraków", "radiusKm", "20"));
+
+        // then
+        assertThat(page.getContent()).extracting(AdvertisementListing::getId).containsExactly(1L, 3L);
+        assertThat(page.isHasNext()).isFalse();
+    }
+
+    @Test
+    public void testSearchNearUnknownPlace() {
+        // when & then
+        assertThrows(IllegalArgumentException.class, () -> advertisementSearchService.search(Map.of("near", "Atlantis")));
+        verify(advertisementGeoIndex, never()).search(any());
+    }
+
+    @Test
+    public void testSearchFallsBackToFuzzyTitleMatching() {
+        // given
+        given(advertisementTextIndex.search(any())).willReturn(List.of());
+        given(advertisementTrigramIndex.search("Titel 2")).willReturn(List.of(new TextSearchHit(2L, 0.6)));
+        given(advertisementManagementRepository.findListings(any(), any(), anyInt())).willReturn(List.of(listings.get(1)));
+
+        // when
+        AdvertisementPage page = advertisementSearchService.search(Map.of("q", "Titel 2"));
+
+        // then
+        assertThat(page.isFuzzy()).isTrue();
+        assertThat(page.getContent()).extracting(AdvertisementListing::getId).containsExactly(2L);
+    }
+
+    @Test
+    public void testSearchWithoutFuzzyFallback() {
+        // given
+        given(advertisementTextIndex.search(any())).willReturn(List.of());
+
+        // when
+        AdvertisementPage page = advertisementSearchService.search(Map.of("q", "Titel 2", "fuzzy", "false"));
+
+        // then
+        assertThat(page.getContent()).isEmpty();
+        verify(advertisementTrigramIndex, never()).search(any());
+    }
+
+    @Test
+    public void testSearchWithStopWordsOnlyMatchesNothing() {
+        // when
+        AdvertisementPage page = advertisementSearchService.search(Map.of("q", "the", "title", "a"));
+
+        // then
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getNextCursor()).isNull();
+        verify(advertisementTextIndex, never()).search(any());
+        verify(advertisementTrigramIndex, never()).search(any());
+        verify(advertisementManagementRepository, never()).findListings(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testSuggestRejectsInvalidLimit() {
+        // when & then
+        assertThrows(IllegalArgumentException.class, () -> advertisementSearchService.suggest("bi", 50));
+        verify(advertisementSuggestionIndex, never()).suggest(any(), anyInt());
+    }
+}
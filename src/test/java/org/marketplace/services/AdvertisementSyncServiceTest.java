@@ -0,0 +1,155 @@
+package org.marketplace.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.models.AdvertisementTombstone;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.repositories.AdvertisementTombstoneRepository;
+import org.marketplace.requests.AdvertisementChange;
+import org.marketplace.requests.AdvertisementChanges;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class AdvertisementSyncServiceTest {
+
+    @Mock
+    private AdvertisementManagementRepository advertisementManagementRepository;
+
+    @Mock
+    private AdvertisementTombstoneRepository advertisementTombstoneRepository;
+
+    private AdvertisementSyncService advertisementSyncService;
+    private LocalDateTime hourAgo;
+
+    @BeforeEach
+    public void setUp() {
+        advertisementSyncService = new AdvertisementSyncService(advertisementManagementRepository, advertisementTombstoneRepository, 2000, 30, 2);
+        hourAgo = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @Test
+    public void testChangesSinceCursor() {
+        // given
+        AdvertisementChange change = change(1L, hourAgo.plusMinutes(1));
+        ArgumentCaptor<LocalDateTime> until = ArgumentCaptor.forClass(LocalDateTime.class);
+        given(advertisementManagementRepository.findChangesBetween(eq(hourAgo), eq(0L), until.capture(), any())).willReturn(List.of(change));
+        given(advertisementTombstoneRepository.findDeletedBetween(eq(hourAgo), eq(0L), any(), any())).willReturn(List.of(new AdvertisementTombstone(3L, hourAgo.plusMinutes(2))));
+
+        // when
+        AdvertisementChanges changes = advertisementSyncService.getChangesSince(cursor(hourAgo, 0L));
+
+        // then
+        assertThat(changes.getChanged()).containsExactly(change);
+        assertThat(changes.getDeleted()).containsExactly(3L);
+        assertThat(changes.isHasMore()).isFalse();
+        assertThat(until.getValue()).isBefore(LocalDateTime.now().minusSeconds(1));
+        assertThat(changes.getNextCursor()).isEqualTo(cursor(until.getValue(), 0L));
+    }
+
+    @Test
+    public void testChangesArePagedInOrderOfChange() {
+        // given
+        AdvertisementChange first = change(5L, hourAgo.plusMinutes(1));
+        AdvertisementChange third = change(2L, hourAgo.plusMinutes(3));
+        given(advertisementManagementRepository.findChangesBetween(eq(hourAgo), eq(0L), any(), any())).willReturn(List.of(first, third));
+        given(advertisementTombstoneRepository.findDeletedBetween(eq(hourAgo), eq(0L), any(), any())).willReturn(List.of(new AdvertisementTombstone(4L, hourAgo.plusMinutes(2))));
+
+        // when
+        AdvertisementChanges changes = advertisementSyncService.getChangesSince(cursor(hourAgo, 0L));
+
+        // then
+        assertThat(changes.getChanged()).containsExactly(first);
+        assertThat(changes.getDeleted()).containsExactly(4L);
+        assertThat(changes.isHasMore()).isTrue();
+        assertThat(changes.getNextCursor()).isEqualTo(cursor(hourAgo.plusMinutes(2), 4L));
+    }
+
+    @Test
+    public void testInitialSyncPagesThroughAllAdvertisementsById() {
+        // given
+        given(advertisementManagementRepository.findChangesAfterId(eq(0L), any())).willReturn(List.of(change(1L, hourAgo), change(2L, hourAgo), change(3L, hourAgo)));
+        given(advertisementManagementRepository.findChangesAfterId(eq(2L), any())).willReturn(List.of(change(3L, hourAgo)));
+
+        // when
+        AdvertisementChanges firstPage = advertisementSyncService.getChangesSince(null);
+        AdvertisementChanges lastPage = advertisementSyncService.getChangesSince(firstPage.getNextCursor());
+
+        // then
+        assertThat(firstPage.getChanged()).extracting(AdvertisementChange::getId).containsExactly(1L, 2L);
+        assertThat(firstPage.isHasMore()).isTrue();
+        assertThat(lastPage.getChanged()).extracting(AdvertisementChange::getId).containsExactly(3L);
+        assertThat(lastPage.isHasMore()).isTrue();
+        assertThat(lastPage.getNextCursor()).isNotEqualTo(firstPage.getNextCursor());
+        verifyNoInteractions(advertisementTombstoneRepository);
+    }
+
+    @Test
+    public void testCursorNotSettledYetReturnsNoChanges() {
+        // given
+        String cursor = cursor(LocalDateTime.now(), 0L);
+
+        // when
+        AdvertisementChanges changes = advertisementSyncService.getChangesSince(cursor);
+
+        // then
+        assertThat(changes.getChanged()).isEmpty();
+        assertThat(changes.getNextCursor()).isEqualTo(cursor);
+        assertThat(changes.isHasMore()).isFalse();
+        verify(advertisementTombstoneRepository, never()).findDeletedBetween(any(), any(), any(), any());
+    }
+
+    @Test
+    public void testExpiredCursorIsRejected() {
+        // given
+        AdvertisementSyncService shortRetention = new AdvertisementSyncService(advertisementManagementRepository, advertisementTombstoneRepository, 0, 0, 2);
+
+        // when
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> shortRetention.getChangesSince(cursor(hourAgo, 0L)));
+
+        // then
+        assertThat(thrown.getMessage()).isEqualTo("Cursor is older than the retained deletions, download all advertisements again");
+    }
+
+    @Test
+    public void testInvalidCursorIsRejected() {
+        // when
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> advertisementSyncService.getChangesSince("yesterday"));
+
+        // then
+        assertThat(thrown.getMessage()).isEqualTo("Invalid cursor: yesterday");
+    }
+
+    @Test
+    public void testPurgeTombstones() {
+        // when
+        advertisementSyncService.purgeTombstones();
+
+        // then
+        verify(advertisementTombstoneRepository).deleteDeletedBefore(any());
+    }
+
+    private static AdvertisementChange change(Long id, LocalDateTime updatedAt) {
+        return new AdvertisementChange(id, "Title", 100.0, AdvertisementStatus.ACTIVE, "Location", updatedAt, 1L, 2L, updatedAt);
+    }
+
+    private static String cursor(LocalDateTime time, Long lastId) {
+        return new AdvertisementSyncService.SyncCursor(false, time, lastId).encode();
+    }
+}
@@ -5,6 +5,7 @@ import jakarta.validation.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.cache.AdvertisementCache;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -30,6 +31,9 @@ class CategoryManagementServiceTest {
     @Mock
     private CategoryManagementRepository categoryManagementRepository;
 
+    @Mock
+    private AdvertisementCache advertisementCache;
+
     @InjectMocks
     private CategoryManagementService categoryManagementService;
 
@@ -130,6 +134,7 @@ class CategoryManagementServiceTest {
         assertThat(updatedCategory).isNotNull();
         assertThat(updatedCategory.getId()).isEqualTo(1L);
         assertThat(updatedCategory.getName()).isEqualTo("updatedCategory");
+        verify(advertisementCache, times(1)).invalidateCategory(1L);
     }
 
     @Test
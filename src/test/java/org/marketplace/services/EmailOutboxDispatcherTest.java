@@ -0,0 +1,209 @@
+package org.marketplace.services;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.marketplace.enums.EmailOutboxStatus;
+import org.marketplace.mail.EmailTemplates;
+import org.marketplace.models.EmailOutboxMessage;
+import org.marketplace.repositories.EmailOutboxRepository;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension smtpServer = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @AfterEach
+    public void tearDown() {
+        if (emailOutboxDispatcher != null) {
+            emailOutboxDispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testDispatchBatchSendsThroughSmtp() throws Exception {
+        // given
+        JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
+        javaMailSender.setHost("localhost");
+        javaMailSender.setPort(ServerSetupTest.SMTP.getPort());
+        emailOutboxDispatcher = dispatcher(javaMailSender);
+        List<EmailOutboxMessage> batch = List.of(
+                new EmailOutboxMessage("first@example.com", "Price change", "New price"),
+                new EmailOutboxMessage("second@example.com", "Price change", "New price"),
+                new EmailOutboxMessage("third@example.com", "Price change", "New price"));
+        claim(batch);
+
+        // when
+        int dispatched = emailOutboxDispatcher.dispatchBatch();
+
+        // then
+        assertThat(dispatched).isEqualTo(3);
+        assertThat(smtpServer.waitForIncomingEmail(5000, 3)).isTrue();
+        List<String> recipients = new ArrayList<>();
+        for (MimeMessage received : smtpServer.getReceivedMessages()) {
+            recipients.add(received.getAllRecipients()[0].toString());
+        }
+        assertThat(recipients).containsExactlyInAnyOrder("first@example.com", "second@example.com", "third@example.com");
+        assertThat(batch).extracting(EmailOutboxMessage::getStatus).containsOnly(EmailOutboxStatus.SENT);
+        verify(emailOutboxRepository).saveAll(batch);
+    }
+
+    @Test
+    public void testFailedMessageIsRetriedWithBackoff() {
+        // given
+        JavaMailSender javaMailSender = mock(JavaMailSender.class);
+        doThrow(new MailSendException("Connection refused")).when(javaMailSender).send(any(SimpleMailMessage[].class));
+        emailOutboxDispatcher = dispatcher(javaMailSender);
+        EmailOutboxMessage message = new EmailOutboxMessage("first@example.com", "Price change", "New price");
+        claim(List.of(message));
+        LocalDateTime before = LocalDateTime.now();
+
+        // when
+        emailOutboxDispatcher.dispatchBatch();
+
+        // then
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+        assertThat(message.getAttempts()).isEqualTo(1);
+        assertThat(message.getLastError()).isEqualTo("Connection refused");
+        assertThat(message.getNextAttemptAt()).isAfterOrEqualTo(before.plusSeconds(1));
+    }
+
+    @Test
+    public void testOnlyRejectedMessagesOfBatchAreRetried() {
+        // given
+        JavaMailSender javaMailSender = mock(JavaMailSender.class);
+        doAnswer(invocation -> {
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            for (Object argument : invocation.getArguments()) {
+                SimpleMailMessage email = (SimpleMailMessage) argument;
+                if (email.getTo()[0].startsWith("bad")) {
+                    failed.put(email, new MailSendException("Invalid address"));
+                }
+            }
+            if (!failed.isEmpty()) {
+                throw new MailSendException(failed);
+            }
+            return null;
+        }).when(javaMailSender).send(any(SimpleMailMessage[].class));
+        emailOutboxDispatcher = dispatcher(javaMailSender);
+        List<EmailOutboxMessage> batch = List.of(
+                new EmailOutboxMessage("first@example.com", "Price change", "New price"),
+                new EmailOutboxMessage("bad@example", "Price change", "New price"),
+                new EmailOutboxMessage("third@example.com", "Price change", "New price"));
+        claim(batch);
+
+        // when
+        emailOutboxDispatcher.dispatchBatch();
+
+        // then
+        assertThat(batch).extracting(EmailOutboxMessage::getStatus)
+                .containsExactly(EmailOutboxStatus.SENT, EmailOutboxStatus.PENDING, EmailOutboxStatus.SENT);
+        assertThat(batch.get(1).getLastError()).isEqualTo("Invalid address");
+    }
+
+    @Test
+    public void testMessageFailsAfterMaxAttempts() {
+        // given
+        JavaMailSender javaMailSender = mock(JavaMailSender.class);
+        doThrow(new MailSendException("Mailbox unavailable")).when(javaMailSender).send(any(SimpleMailMessage[].class));
+        emailOutboxDispatcher = dispatcher(javaMailSender);
+        EmailOutboxMessage message = new EmailOutboxMessage("first@example.com", "Price change", "New price");
+        message.markFailed("Connection refused", LocalDateTime.now());
+        message.markFailed("Connection refused", LocalDateTime.now());
+        claim(List.of(message));
+
+        // when
+        emailOutboxDispatcher.dispatchBatch();
+
+        // then
+        assertThat(message.getStatus()).isEqualTo(EmailOutboxStatus.FAILED);
+        assertThat(message.getAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    public void testMessagesClaimedByAnotherDispatcherAreNotSent() {
+        // given
+        JavaMailSender javaMailSender = mock(JavaMailSender.class);
+        emailOutboxDispatcher = dispatcher(javaMailSender);
+        given(emailOutboxRepository.findDueIds(any(), any())).willReturn(List.of(1L, 2L));
+        given(emailOutboxRepository.claim(eq(List.of(1L, 2L)), any(), any(), any())).willReturn(0);
+
+        // when
+        int dispatched = emailOutboxDispatcher.dispatchBatch();
+
+        // then
+        assertThat(dispatched).isEqualTo(2);
+        verify(javaMailSender, never()).send(any(SimpleMailMessage[].class));
+        verify(emailOutboxRepository, never()).findByClaimTokenOrderByIdAsc(any());
+    }
+
+    @Test
+    public void testDispatchPendingRefreshesQueueDepth() {
+        // given
+        emailOutboxDispatcher = dispatcher(mock(JavaMailSender.class));
+        given(emailOutboxRepository.findDueIds(any(), any())).willReturn(List.of());
+        given(emailOutboxRepository.countByStatus(EmailOutboxStatus.PENDING)).willReturn(42L);
+
+        // when
+        emailOutboxDispatcher.dispatchPending();
+
+        // then
+        assertThat(emailOutboxDispatcher.getPendingCount()).isEqualTo(42);
+    }
+
+    @Test
+    public void testBackoffDoublesUpToMaximum() {
+        emailOutboxDispatcher = dispatcher(mock(JavaMailSender.class));
+
+        assertThat(emailOutboxDispatcher.backoff(1)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(emailOutboxDispatcher.backoff(2)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(emailOutboxDispatcher.backoff(3)).isEqualTo(Duration.ofSeconds(3));
+        assertThat(emailOutboxDispatcher.backoff(40)).isEqualTo(Duration.ofSeconds(3));
+    }
+
+    private EmailOutboxDispatcher dispatcher(JavaMailSender javaMailSender) {
+        EmailService emailService = new EmailService(javaMailSender, emailOutboxRepository, new EmailTemplates("email/templates", "en", "en"));
+        return new EmailOutboxDispatcher(emailOutboxRepository, emailService, 10, 2, 3, 1000, 3000, 60000);
+    }
+
+    private void claim(List<EmailOutboxMessage> batch) {
+        List<Long> ids = LongStream.rangeClosed(1, batch.size()).boxed().toList();
+        given(emailOutboxRepository.findDueIds(any(), any())).willReturn(ids);
+        given(emailOutboxRepository.claim(eq(ids), any(), any(), any())).willReturn(batch.size());
+        given(emailOutboxRepository.findByClaimTokenOrderByIdAsc(any())).willReturn(batch);
+    }
+}
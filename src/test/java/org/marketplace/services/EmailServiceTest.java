@@ -2,13 +2,25 @@ package org.marketplace.services;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.mail.EmailTemplates;
 import org.marketplace.models.Email;
+import org.marketplace.models.EmailOutboxMessage;
+import org.marketplace.models.ObserverNotification;
+import org.marketplace.repositories.EmailOutboxRepository;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -18,6 +30,12 @@ class EmailServiceTest {
     @Mock
     private JavaMailSender javaMailSender;
 
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Spy
+    private EmailTemplates emailTemplates = new EmailTemplates("email/templates", "en", "en");
+
     @InjectMocks
     private EmailService emailService;
 
@@ -70,4 +88,71 @@ class EmailServiceTest {
         // Then
         assertEquals("An unexpected error occurred while sending email Unexpected error", exception.getMessage());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendObserverDigests_WritesOneOutboxMessagePerObserver() {
+        // Given
+        ArgumentCaptor<List<EmailOutboxMessage>> messages = ArgumentCaptor.forClass(List.class);
+        Map<String, List<ObserverNotification>> digests = new LinkedHashMap<>();
+        digests.put("first@example.com", List.of(new ObserverNotification("first@example.com", 1L, "Bike", null, AdvertisementStatus.BOUGHT)));
+        digests.put("second@example.com", List.of(
+                new ObserverNotification("second@example.com", 1L, "Bike", null, AdvertisementStatus.BOUGHT),
+                new ObserverNotification("second@example.com", 2L, "Helmet", 80.0, null)));
+
+        // When
+        emailService.sendObserverDigests(digests);
+
+        // Then
+        verify(emailOutboxRepository, times(1)).saveAll(messages.capture());
+        assertEquals(2, messages.getValue().size());
+        assertEquals("Advertisement Bike has been bought!", messages.getValue().get(0).getSubject());
+        assertEquals("Updates on 2 advertisements you observe", messages.getValue().get(1).getSubject());
+        assertTrue(messages.getValue().get(1).getContent().contains("- Helmet: price changed to 80.0"));
+        verify(javaMailSender, never()).send(any(Email.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendObserverDigests_SameChangeDiffersOnlyInGreeting() {
+        // Given
+        ArgumentCaptor<List<EmailOutboxMessage>> messages = ArgumentCaptor.forClass(List.class);
+        Map<String, List<ObserverNotification>> digests = new LinkedHashMap<>();
+        digests.put("first@example.com", List.of(new ObserverNotification("first@example.com", 1L, "Bike", 80.0, null)));
+        digests.put("second@example.com", List.of(new ObserverNotification("second@example.com", 1L, "Bike", 80.0, null)));
+
+        // When
+        emailService.sendObserverDigests(digests);
+
+        // Then
+        verify(emailOutboxRepository, times(1)).saveAll(messages.capture());
+        EmailOutboxMessage first = messages.getValue().get(0);
+        EmailOutboxMessage second = messages.getValue().get(1);
+        assertEquals("Price change for advertisement Bike", first.getSubject());
+        assertSame(first.getSubject(), second.getSubject());
+        assertEquals("Hello first@example.com,\n\nThe price for the advertisement Bike has been changed to 80.0", first.getContent());
+        assertEquals("Hello second@example.com,\n\nThe price for the advertisement Bike has been changed to 80.0", second.getContent());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendObserverDigests_ListsAtMostMaxLinesOfLongDigest() {
+        // Given
+        ArgumentCaptor<List<EmailOutboxMessage>> messages = ArgumentCaptor.forClass(List.class);
+        List<ObserverNotification> notifications = new ArrayList<>();
+        for(long id = 1; id <= 300; id++){
+            notifications.add(new ObserverNotification("first@example.com", id, "Advertisement " + id, 80.0, null));
+        }
+
+        // When
+        emailService.sendObserverDigests(Map.of("first@example.com", notifications));
+
+        // Then
+        verify(emailOutboxRepository, times(1)).saveAll(messages.capture());
+        EmailOutboxMessage digest = messages.getValue().get(0);
+        assertEquals("Updates on 300 advertisements you observe", digest.getSubject());
+        assertTrue(digest.getContent().contains("- Advertisement " + EmailService.MAX_DIGEST_LINES + ": price changed to 80.0"));
+        assertFalse(digest.getContent().contains("- Advertisement " + (EmailService.MAX_DIGEST_LINES + 1) + ":"));
+        assertTrue(digest.getContent().endsWith("- ...and " + (300 - EmailService.MAX_DIGEST_LINES) + " more"));
+    }
 }
@@ -0,0 +1,172 @@
+package org.marketplace.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.enums.AdvertisementStatus;
+import org.marketplace.models.ObserverNotification;
+import org.marketplace.repositories.AdvertisementManagementRepository;
+import org.marketplace.repositories.ObserverNotificationRepository;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class ObserverNotificationServiceTest {
+
+    @Mock
+    private ObserverNotificationRepository observerNotificationRepository;
+
+    @Mock
+    private AdvertisementManagementRepository advertisementManagementRepository;
+
+    @Mock
+    private EmailService emailService;
+
+    private ObserverNotificationService observerNotificationService;
+
+    @BeforeEach
+    public void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        observerNotificationService = new ObserverNotificationService(observerNotificationRepository, advertisementManagementRepository, emailService, transactionTemplate, 300, 2);
+    }
+
+    @Test
+    public void testRecordPriceChangeUpdatesAndInsertsInBulk() {
+        // given
+        given(observerNotificationRepository.updatePendingPrice(1L, "Bike", 80.0)).willReturn(2);
+        given(observerNotificationRepository.insertPendingPrice(1L, "Bike", 80.0)).willReturn(3);
+
+        // when
+        observerNotificationService.recordPriceChange(1L, "Bike", 80.0);
+
+        // then
+        assertThat(observerNotificationService.getRecordedCount()).isEqualTo(5);
+        InOrder inOrder = inOrder(advertisementManagementRepository, observerNotificationRepository);
+        inOrder.verify(advertisementManagementRepository).findAndLockById(1L);
+        inOrder.verify(observerNotificationRepository).insertPendingPrice(1L, "Bike", 80.0);
+    }
+
+    @Test
+    public void testRecordStatusChangeUpdatesAndInsertsInBulk() {
+        // given
+        given(observerNotificationRepository.updatePendingStatus(1L, "Bike", AdvertisementStatus.BOUGHT)).willReturn(0);
+        given(observerNotificationRepository.insertPendingStatus(1L, "Bike", AdvertisementStatus.BOUGHT)).willReturn(4);
+
+        // when
+        observerNotificationService.recordStatusChange(1L, "Bike", AdvertisementStatus.BOUGHT);
+
+        // then
+        assertThat(observerNotificationService.getRecordedCount()).isEqualTo(4);
+        InOrder inOrder = inOrder(advertisementManagementRepository, observerNotificationRepository);
+        inOrder.verify(advertisementManagementRepository).findAndLockById(1L);
+        inOrder.verify(observerNotificationRepository).insertPendingStatus(1L, "Bike", AdvertisementStatus.BOUGHT);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSendDueDigestsGroupsChangesPerObserver() {
+        // given
+        List<ObserverNotification> notifications = List.of(
+                new ObserverNotification("first@example.com", 1L, "Bike", 80.0, null),
+                new ObserverNotification("second@example.com", 1L, "Bike", 80.0, null),
+                new ObserverNotification("first@example.com", 2L, "Helmet", null, AdvertisementStatus.BOUGHT));
+        given(observerNotificationRepository.findRecipientsDue(any(), any())).willReturn(List.of("first@example.com", "second@example.com"), List.of());
+        given(observerNotificationRepository.findByRecipientInOrderByIdAsc(List.of("first@example.com", "second@example.com"))).willReturn(notifications);
+        ArgumentCaptor<Map<String, List<ObserverNotification>>> digests = ArgumentCaptor.forClass(Map.class);
+
+        // when
+        observerNotificationService.sendDueDigests();
+
+        // then
+        verify(emailService).sendObserverDigests(digests.capture());
+        assertThat(digests.getValue()).containsOnlyKeys("first@example.com", "second@example.com");
+        assertThat(digests.getValue().get("first@example.com")).containsExactly(notifications.get(0), notifications.get(2));
+        verify(observerNotificationRepository).deleteAll(notifications);
+        verify(observerNotificationRepository, times(2)).findRecipientsDue(any(), any());
+        assertThat(observerNotificationService.getDigestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testSendDueDigestsSkipsOnlyObserverWithConcurrentlyRecordedChange() {
+        // given
+        List<ObserverNotification> first = List.of(new ObserverNotification("first@example.com", 1L, "Bike", 80.0, null));
+        List<ObserverNotification> second = List.of(new ObserverNotification("second@example.com", 2L, "Helmet", 40.0, null));
+        List<ObserverNotification> both = List.of(first.get(0), second.get(0));
+        given(observerNotificationRepository.findRecipientsDue(any(), any())).willReturn(List.of("first@example.com", "second@example.com"), List.of());
+        given(observerNotificationRepository.findByRecipientInOrderByIdAsc(List.of("first@example.com", "second@example.com"))).willReturn(both);
+        given(observerNotificationRepository.findByRecipientInOrderByIdAsc(List.of("first@example.com"))).willReturn(first);
+        given(observerNotificationRepository.findByRecipientInOrderByIdAsc(List.of("second@example.com"))).willReturn(second);
+        doAnswer(invocation -> {
+            List<ObserverNotification> deleted = invocation.getArgument(0);
+            if (deleted.contains(first.get(0))) {
+                throw new OptimisticLockingFailureException("Row was updated");
+            }
+            return null;
+        }).when(observerNotificationRepository).deleteAll(any());
+
+        // when
+        observerNotificationService.sendDueDigests();
+
+        // then
+        verify(observerNotificationRepository).deleteAll(second);
+        verify(observerNotificationRepository, times(2)).findRecipientsDue(any(), any());
+        assertThat(observerNotificationService.getDigestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSendDueDigestsQueuesOtherObserversWhenOneDigestFails() {
+        // given
+        List<ObserverNotification> first = List.of(new ObserverNotification("first@example.com", 1L, "Bike", 80.0, null));
+        List<ObserverNotification> second = List.of(new ObserverNotification("second@example.com", 1L, "Bike", 80.0, null));
+        given(observerNotificationRepository.findRecipientsDue(any(), any())).willReturn(List.of("first@example.com", "second@example.com"), List.of("first@example.com"));
+        given(observerNotificationRepository.findByRecipientInOrderByIdAsc(List.of("first@example.com", "second@example.com"))).willReturn(List.of(first.get(0), second.get(0)));
+        given(observerNotificationRepository.findByRecipientInOrderByIdAsc(List.of("first@example.com"))).willReturn(first);
+        given(observerNotificationRepository.findByRecipientInOrderByIdAsc(List.of("second@example.com"))).willReturn(second);
+        doAnswer(invocation -> {
+            Map<String, List<ObserverNotification>> digests = invocation.getArgument(0);
+            if (digests.containsKey("first@example.com")) {
+                throw new IllegalStateException("Digest too large");
+            }
+            return null;
+        }).when(emailService).sendObserverDigests(any());
+
+        // when
+        observerNotificationService.sendDueDigests();
+
+        // then
+        verify(observerNotificationRepository).deleteAll(second);
+        verify(observerNotificationRepository, never()).deleteAll(first);
+        verify(observerNotificationRepository, times(2)).findRecipientsDue(any(), any());
+        assertThat(observerNotificationService.getDigestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSendDueDigestsWithoutDueObservers() {
+        // given
+        given(observerNotificationRepository.findRecipientsDue(any(), any())).willReturn(List.of());
+
+        // when
+        observerNotificationService.sendDueDigests();
+
+        // then
+        verify(emailService, never()).sendObserverDigests(any());
+    }
+}
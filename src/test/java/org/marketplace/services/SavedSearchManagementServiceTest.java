@@ -0,0 +1,112 @@
+package org.marketplace.services;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.enums.UserRole;
+import org.marketplace.models.Advertisement;
+import org.marketplace.models.Category;
+import org.marketplace.models.SavedSearch;
+import org.marketplace.models.User;
+import org.marketplace.repositories.SavedSearchManagementRepository;
+import org.marketplace.repositories.UserManagementRepository;
+import org.marketplace.search.AdvertisementSearchDocument;
+import org.marketplace.search.Gazetteer;
+import org.marketplace.search.SavedSearchPercolator;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SavedSearchManagementServiceTest {
+
+    @Mock
+    private SavedSearchManagementRepository savedSearchManagementRepository;
+
+    @Mock
+    private UserManagementRepository userManagementRepository;
+
+    @Mock
+    private SavedSearchPercolator savedSearchPercolator;
+
+    @Mock
+    private Gazetteer gazetteer;
+
+    @Mock
+    private EmailService emailService;
+
+    @InjectMocks
+    private SavedSearchManagementService savedSearchManagementService;
+
+    private User user;
+    private SavedSearch savedSearch;
+
+    @BeforeEach
+    public void setUp() {
+        user = new User(2L, "user2", "password", UserRole.USER, "user2@gmail.com", "123456789");
+        savedSearch = new SavedSearch(1L, "Cheap bikes", user, new HashMap<>(Map.of("q", "bike", "price.lt", "500", "size", "10")));
+    }
+
+    @Test
+    public void testAddSavedSearch() {
+        // given
+        given(userManagementRepository.existsById(user.getId())).willReturn(true);
+        given(savedSearchManagementRepository.save(savedSearch)).willReturn(savedSearch);
+
+        // when
+        SavedSearch saved = savedSearchManagementService.addSavedSearch(savedSearch);
+
+        // then
+        assertThat(saved.getParams()).containsOnlyKeys("q", "price.lt");
+        verify(savedSearchPercolator, times(1)).register(1L, saved.getParams(), gazetteer);
+    }
+
+    @Test
+    public void testAddSavedSearchWithInvalidFilter() {
+        // given
+        given(userManagementRepository.existsById(user.getId())).willReturn(true);
+        savedSearch.setParams(Map.of("price.lt", "cheap"));
+
+        // when & then
+        assertThrows(IllegalArgumentException.class, () -> savedSearchManagementService.addSavedSearch(savedSearch));
+        verify(savedSearchManagementRepository, never()).save(any(SavedSearch.class));
+    }
+
+    @Test
+    public void testDeleteSavedSearchNotFound() {
+        // given
+        given(savedSearchManagementRepository.existsById(1L)).willReturn(false);
+
+        // when & then
+        assertThrows(EntityNotFoundException.class, () -> savedSearchManagementService.deleteSavedSearch(1L));
+        verify(savedSearchPercolator, never()).remove(any());
+    }
+
+    @Test
+    public void testNotifyMatchingSavedSearchesSkipsAdvertisementOwner() {
+        // given
+        User seller = new User(3L, "seller", "password", UserRole.USER, "seller@gmail.com", "123456789");
+        SavedSearch sellersSearch = new SavedSearch(2L, "My bikes", seller, Map.of("q", "bike"));
+        Advertisement advertisement = new Advertisement(1L, "Road bike", "Description", new Category(1L), seller, 300.0, "Kraków");
+        given(savedSearchPercolator.match(any(AdvertisementSearchDocument.class))).willReturn(List.of(1L, 2L));
+        given(savedSearchManagementRepository.findAllById(List.of(1L, 2L))).willReturn(List.of(savedSearch, sellersSearch));
+
+        // when
+        savedSearchManagementService.notifyMatchingSavedSearches(advertisement);
+
+        // then
+        verify(emailService, times(1)).sendSavedSearchMatchEmail("user2@gmail.com", "Cheap bikes", advertisement);
+        verify(emailService, never()).sendSavedSearchMatchEmail("seller@gmail.com", "My bikes", advertisement);
+    }
+}
@@ -4,6 +4,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.marketplace.cache.TokenCache;
+import org.marketplace.cache.TokenVersionCache;
+import org.marketplace.enums.UserRole;
+import org.marketplace.models.VerifiedToken;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,10 +26,13 @@ import static org.mockito.Mockito.*;
 @AutoConfigureMockMvc
 public class TokenServiceTest {
     private final String username = "testUser";
+    private final org.marketplace.models.User user = new org.marketplace.models.User(1L, "login", "password", UserRole.USER, username, null);
     @Autowired
     private MockMvc mockMvc;
     @Mock
     private TokenCache tokenCache;
+    @Mock
+    private TokenVersionCache tokenVersionCache;
     @InjectMocks
     private TokenService tokenService;
 
@@ -36,33 +42,33 @@ public class TokenServiceTest {
 
     @Test
     public void generateToken_notLoggedIn() {
-        String token = tokenService.generateToken(username);
+        String token = tokenService.generateToken(user);
         assertNotNull(token);
     }
 
     @Test
     public void generateToken_loggedIn() {
-        String token = tokenService.generateToken(username);
+        String token = tokenService.generateToken(user);
         assertNotNull(token);
 
-        String token2 = tokenService.generateToken(username);
+        String token2 = tokenService.generateToken(user);
         assertEquals(token, token2);
     }
 
     @Test
     public void generateToken_expiredToken() {
-        String token = tokenService.generateToken(username);
+        String token = tokenService.generateToken(user);
         assertNotNull(token);
 
         tokenService.invalidateToken(token);
 
-        String token2 = tokenService.generateToken(username);
+        String token2 = tokenService.generateToken(user);
         assertNotEquals(token, token2);
     }
 
     @Test
     public void validateToken() {
-        String token = tokenService.generateToken(username);
+        String token = tokenService.generateToken(user);
         assertNotNull(token);
 
         UserDetails userDetails = User.withUsername(username).password("password").authorities("USER").build();
@@ -80,7 +86,7 @@ public class TokenServiceTest {
 
     @Test
     public void invalidateToken_validToken() {
-        String token = tokenService.generateToken(username);
+        String token = tokenService.generateToken(user);
         assertNotNull(token);
 
         tokenService.invalidateToken(token);
@@ -94,6 +100,53 @@ public class TokenServiceTest {
         tokenService.invalidateToken(invalidToken);
     }
 
+    @Test
+    public void verify_parsesTokenOnce() {
+        String token = tokenService.generateToken(user);
+
+        VerifiedToken verifiedToken = tokenService.verify(token);
+        assertEquals(username, verifiedToken.getUsername());
+        assertFalse(verifiedToken.isExpired());
+        assertSame(verifiedToken, tokenService.verify(token));
+    }
+
+    @Test
+    public void verify_carriesUserClaims() {
+        String token = tokenService.generateToken(user);
+
+        VerifiedToken verifiedToken = tokenService.verify(token);
+        assertEquals(Long.valueOf(1L), verifiedToken.getUserId());
+        assertEquals(UserRole.USER, verifiedToken.getRole());
+        assertEquals(Integer.valueOf(0), verifiedToken.getTokenVersion());
+    }
+
+    @Test
+    public void isAuthenticationValid_revokedToken() {
+        String token = tokenService.generateToken(user);
+        VerifiedToken verifiedToken = tokenService.verify(token);
+
+        when(tokenVersionCache.getVersion(1L)).thenReturn(0);
+        assertTrue(tokenService.isAuthenticationValid(verifiedToken));
+
+        when(tokenVersionCache.getVersion(1L)).thenReturn(1);
+        assertFalse(tokenService.isAuthenticationValid(verifiedToken));
+    }
+
+    @Test
+    public void revokeTokensOfDeletedUser() {
+        String token = tokenService.generateToken(user);
+        VerifiedToken verifiedToken = tokenService.verify(token);
+
+        tokenService.revokeTokensOfDeletedUser(user);
+        verify(tokenCache, times(1)).removeToken(username);
+        verify(tokenVersionCache, times(1)).remove(1L);
+        assertNotSame(verifiedToken, tokenService.verify(token));
+    }
+
+    @Test(expected = BadCredentialsException.class)
+    public void verify_invalidToken() {
+        tokenService.verify("invalidToken");
+    }
 
     @Test
     public void testOnLogoutSuccess_validToken() throws BadCredentialsException {
@@ -5,6 +5,7 @@ import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.marketplace.cache.AdvertisementCache;
 import org.marketplace.enums.UserRole;
 import org.marketplace.models.Email;
 import org.marketplace.models.RegistrationToken;
@@ -40,6 +41,12 @@ public class UserManagementServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private TokenService tokenService;
+
+    @Mock
+    private AdvertisementCache advertisementCache;
+
     @InjectMocks
     private UserManagementService userManagementService;
 
@@ -207,12 +214,32 @@ public class UserManagementServiceTest {
         assertThat(updatedUser).isNotNull();
         assertThat(updatedUser.getPassword()).isEqualTo("encodedPassword");
         assertThat(updatedUser.getLogin()).isEqualTo("newLogin");
+        assertThat(updatedUser.getTokenVersion()).isEqualTo(1);
         verify(userManagementRepository, times(1)).save(user);
+        verify(tokenService, times(1)).revokeTokens(user);
+        verify(advertisementCache, times(1)).invalidateUser(user.getId());
+    }
+
+    @Test
+    public void testUpdateUserAccountWithSamePasswordKeepsTokens() {
+        // given
+        given(userManagementRepository.findByEmail(user.getEmail())).willReturn(user);
+        given(passwordEncoder.matches("password", "password")).willReturn(true);
+        given(passwordEncoder.encode("password")).willReturn("password");
+        given(userManagementRepository.save(user)).willReturn(user);
+
+        // when
+        User updatedUser = userManagementService.updateUserAccount(user);
+
+        // then
+        assertThat(updatedUser.getTokenVersion()).isZero();
+        verify(tokenService, never()).revokeTokens(any(User.class));
     }
 
     @Test
     public void testDeleteUserById() {
         // given
+        given(userManagementRepository.findById(1L)).willReturn(Optional.of(user));
         doNothing().when(userManagementRepository).deleteById(1L);
 
         // when
@@ -220,12 +247,13 @@ public class UserManagementServiceTest {
 
         // then
         verify(userManagementRepository, times(1)).deleteById(1L);
+        verify(tokenService, times(1)).revokeTokensOfDeletedUser(user);
     }
 
     @Test
     public void testDeleteUserByIdNotFound() {
         // given
-        doThrow(new EntityNotFoundException("User with id: 2 was not found")).when(userManagementRepository).deleteById(2L);
+        given(userManagementRepository.findById(2L)).willReturn(Optional.empty());
         // when
         EntityNotFoundException thrown = assertThrows(EntityNotFoundException.class, () -> {
             userManagementService.deleteUserById(2L);
@@ -233,5 +261,7 @@ public class UserManagementServiceTest {
 
         // then
         assertThat(thrown.getMessage()).isEqualTo("User with id: 2 was not found");
+        verify(userManagementRepository, never()).deleteById(any());
+        verify(tokenService, never()).revokeTokensOfDeletedUser(any());
     }
 }
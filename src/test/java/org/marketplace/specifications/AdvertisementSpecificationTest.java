@@ -0,0 +1,60 @@
+package org.marketplace.specifications;
+
+import org.junit.jupiter.api.Test;
+import org.marketplace.enums.AdvertisementStatus;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AdvertisementSpecificationTest {
+
+    @Test
+    public void testFromSearchParamWithoutSuffixIsEquality() {
+        AdvertisementSpecification specification = AdvertisementSpecification.fromSearchParam("price", "150");
+
+        assertThat(specification.getOperation()).isEqualTo(AdvertisementSpecification.EQUAL);
+        assertThat(specification.getValues()).containsExactly(150.0);
+    }
+
+    @Test
+    public void testFromSearchParamRangeOperators() {
+        assertThat(AdvertisementSpecification.fromSearchParam("price.lt", "500").getOperation()).isEqualTo(AdvertisementSpecification.LESS_THAN);
+        assertThat(AdvertisementSpecification.fromSearchParam("price.gt", "100").getOperation()).isEqualTo(AdvertisementSpecification.GREATER_THAN);
+        assertThat(AdvertisementSpecification.fromSearchParam("price.between", "100,500").getValues()).containsExactly(100.0, 500.0);
+        assertThat(AdvertisementSpecification.fromSearchParam("createdAt.gt", "2024-05-01").getValues())
+                .containsExactly(LocalDateTime.of(2024, 5, 1, 0, 0));
+    }
+
+    @Test
+    public void testFromSearchParamInOperator() {
+        assertThat(AdvertisementSpecification.fromSearchParam("status.in", "ACTIVE,inactive").getValues())
+                .containsExactly(AdvertisementStatus.ACTIVE, AdvertisementStatus.INACTIVE);
+        assertThat(AdvertisementSpecification.fromSearchParam("categoryId.in", "1,2,3").getValues())
+                .containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    public void testUnsupportedOperation() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            AdvertisementSpecification.fromSearchParam("status.lt", "ACTIVE");
+        });
+
+        assertThat(thrown.getMessage()).isEqualTo("Unsupported search operation: status <");
+    }
+
+    @Test
+    public void testInvalidValue() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> {
+            AdvertisementSpecification.fromSearchParam("price.between", "100,abc");
+        });
+
+        assertThat(thrown.getMessage()).isEqualTo("Invalid value for price: abc");
+    }
+
+    @Test
+    public void testBetweenRequiresTwoValues() {
+        assertThrows(IllegalArgumentException.class, () -> AdvertisementSpecification.fromSearchParam("price.between", "100"));
+    }
+}